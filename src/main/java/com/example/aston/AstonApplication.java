@@ -2,8 +2,15 @@ package com.example.aston;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+/**
+ * R2DBC is set up by {@link com.example.aston.config.ReactiveConfig} for the reactive stack only; Boot's own
+ * {@code ConnectionFactory} bean would replace the JDBC {@code DataSource} that JPA needs.
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@ConfigurationPropertiesScan
 public class AstonApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,48 @@
+package com.example.aston.aop;
+
+import com.example.aston.config.TransferProperties;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ordered before the transaction interceptor so that every attempt runs in a fresh transaction.
+ */
+@Component
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class ConflictRetryAspect {
+    private static final Logger logger = LoggerFactory.getLogger(ConflictRetryAspect.class);
+    private static final long BACKOFF_NANOS = 200_000;
+
+    private final TransferProperties transferProperties;
+
+    @Around("@annotation(com.example.aston.aop.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        int attempt = 1;
+        while (true) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferProperties.getMaxAttempts()) {
+                    throw e;
+                }
+                logger.debug("Conflict in method {}, attempt {}: {}",
+                        joinPoint.getSignature().getName(), attempt, e.getMessage());
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(BACKOFF_NANOS * attempt));
+                attempt++;
+            }
+        }
+    }
+}
@@ -7,10 +7,16 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+/**
+ * Text log of every service call including its result. Superseded by {@link TracingAspect}; kept for
+ * debugging and enabled with {@code aston.tracing.legacy-logging=true}.
+ */
 @Component
 @Aspect
+@ConditionalOnProperty(prefix = "aston.tracing", name = "legacy-logging", havingValue = "true")
 public class LoggingAspect {
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
@@ -0,0 +1,139 @@
+package com.example.aston.aop;
+
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every service call in the {@value #TIMER_NAME} timer, tagged by class, method and
+ * exception. Arguments and results are never formatted; a call is logged only when DEBUG is enabled or it fails.
+ * Calls rejected with a wrong PIN, insufficient funds or an unknown account are also counted in
+ * {@value #REJECTIONS_NAME} by reason and, being expected, logged at DEBUG only; other failures are logged at WARN.
+ * Calls that return a {@link Mono} or {@link Flux} are timed from subscription to the terminal signal, and an
+ * error signal counts like a thrown exception. Meters are registered once per method and outcome and then reused.
+ */
+@Component
+@Aspect
+@RequiredArgsConstructor
+public class TracingAspect {
+    public static final String TIMER_NAME = "aston.service";
+    public static final String REJECTIONS_NAME = "aston.service.rejections";
+
+    private static final Logger logger = LoggerFactory.getLogger(TracingAspect.class);
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Failure, FailureMeters> failures = new ConcurrentHashMap<>();
+
+    @Around("execution(* com.example.aston.service.*.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable exception) {
+            failed(method, exception, start);
+            throw exception;
+        }
+        // A reactive call only assembles its publisher; it is timed from subscription to the terminal signal.
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doOnSuccess(value -> succeeded(method, subscribed))
+                        .doOnError(exception -> failed(method, exception, subscribed));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux.doOnComplete(() -> succeeded(method, subscribed))
+                        .doOnError(exception -> failed(method, exception, subscribed));
+            });
+        }
+        succeeded(method, start);
+        return result;
+    }
+
+    private void succeeded(Method method, long start) {
+        long nanos = System.nanoTime() - start;
+        timers.computeIfAbsent(method, key -> timer(key, NO_EXCEPTION)).record(nanos, TimeUnit.NANOSECONDS);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Method {}.{} executed in {} us", method.getDeclaringClass().getSimpleName(),
+                    method.getName(), TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+    }
+
+    private void failed(Method method, Throwable exception, long start) {
+        long nanos = System.nanoTime() - start;
+        FailureMeters meters = failures.computeIfAbsent(new Failure(method, exception.getClass()),
+                this::failureMeters);
+        meters.timer().record(nanos, TimeUnit.NANOSECONDS);
+        if (meters.rejections() != null) {
+            meters.rejections().increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Method {}.{} rejected: {}", method.getDeclaringClass().getSimpleName(),
+                        method.getName(), exception.getMessage());
+            }
+        } else {
+            logger.warn("Error in method {}.{}: {}", method.getDeclaringClass().getSimpleName(),
+                    method.getName(), exception.getMessage());
+        }
+    }
+
+    private FailureMeters failureMeters(Failure failure) {
+        String exception = failure.exception().getSimpleName();
+        boolean rejection = WrongPinException.class.isAssignableFrom(failure.exception())
+                || NotEnoughFundsException.class.isAssignableFrom(failure.exception())
+                || NotFoundException.class.isAssignableFrom(failure.exception());
+        return new FailureMeters(timer(failure.method(), exception),
+                rejection ? rejections(failure.method(), exception) : null);
+    }
+
+    private Timer timer(Method method, String exception) {
+        return Timer.builder(TIMER_NAME)
+                .description("Latency of service calls")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter rejections(Method method, String reason) {
+        return Counter.builder(REJECTIONS_NAME)
+                .description("Service calls rejected by business rules")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Failure(Method method, Class<? extends Throwable> exception) {
+    }
+
+    /**
+     * {@code rejections} is null for failures that are not business rejections.
+     */
+    private record FailureMeters(Timer timer, Counter rejections) {
+    }
+}
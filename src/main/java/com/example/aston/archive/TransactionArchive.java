@@ -0,0 +1,202 @@
+package com.example.aston.archive;
+
+import com.example.aston.config.ArchiveProperties;
+import com.example.aston.config.ArchiveProperties.Period;
+import com.example.aston.dto.TransactionView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read-only cold storage for transactions of closed periods. Every archive run of a period adds a new segment,
+ * {@code <period>.<n>.ndjson.gz}: gzipped transactions, one JSON object per line, in id order. Segments are
+ * written to a temporary file, forced to disk and then renamed into place, so a segment is either complete or
+ * absent, and a segment is never changed after that.
+ * <p>
+ * Queries scan the segments of the periods that overlap the requested page; there is no index inside a
+ * segment.
+ */
+@Component
+public class TransactionArchive {
+    private static final Pattern SEGMENT = Pattern.compile("(\\d{4}-\\d{2}(?:-\\d{2})?)\\.(\\d+)\\.ndjson\\.gz");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ArchiveProperties archiveProperties;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+
+    public TransactionArchive(ArchiveProperties archiveProperties, ObjectMapper objectMapper) {
+        this.archiveProperties = archiveProperties;
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(TransactionView.class);
+    }
+
+    record Segment(Path path, String key, int number, Instant start, Instant end) {
+    }
+
+    /**
+     * Writes the transactions that {@code source} passes to its consumer as the next segment of the period
+     * starting at {@code start}. Nothing is written when there are none.
+     *
+     * @return the number of archived transactions
+     */
+    public long write(Instant start, Consumer<Consumer<TransactionView>> source) {
+        String key = archiveProperties.getPeriod().key(start);
+        int number = segments().stream()
+                .filter(segment -> segment.key().equals(key))
+                .mapToInt(segment -> segment.number() + 1)
+                .max().orElse(0);
+        Path directory = archiveProperties.getDirectory();
+        Path target = directory.resolve(key + "." + number + ".ndjson.gz");
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        long[] count = new long[1];
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                try (SequenceWriter writer = objectMapper.writer()
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .withRootValueSeparator("\n")
+                        .writeValues(gzip)) {
+                    source.accept(transaction -> {
+                        try {
+                            writer.write(transaction);
+                            count[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                gzip.finish();
+                channel.force(true);
+            }
+            if (count[0] == 0) {
+                Files.delete(temporary);
+                return 0;
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment " + target, e);
+        }
+        return count[0];
+    }
+
+    /**
+     * Ids of the archived transactions of the period starting at {@code start}.
+     */
+    public long[] ids(Instant start) {
+        String key = archiveProperties.getPeriod().key(start);
+        LongStream.Builder ids = LongStream.builder();
+        for (Segment segment : segments()) {
+            if (segment.key().equals(key)) {
+                read(segment, transaction -> ids.add(transaction.id()));
+            }
+        }
+        return ids.build().toArray();
+    }
+
+    /**
+     * Up to {@code limit} archived transactions of {@code accountNumber} after the ({@code afterTime},
+     * {@code afterId}) cursor in (time, id) order, with a time before {@code to}. Periods are read in order and the
+     * scan stops at the first period that starts after the last transaction of a full page, so a page reads only
+     * the periods it covers.
+     */
+    public List<TransactionView> find(String accountNumber, Instant afterTime, long afterId, Instant to, int limit) {
+        TreeSet<TransactionView> page = new TreeSet<>(TransactionView.TIME_ORDER);
+        for (Segment segment : segments()) {
+            if (!segment.start().isBefore(to)
+                    || ((page.size() == limit) && segment.start().isAfter(page.last().time()))) {
+                break;
+            }
+            if (segment.end().isAfter(afterTime)) {
+                read(segment, transaction -> {
+                    if ((accountNumber.equals(transaction.accountNumberFrom())
+                            || accountNumber.equals(transaction.accountNumberTo()))
+                            && transaction.isAfter(afterTime, afterId) && transaction.time().isBefore(to)) {
+                        page.add(transaction);
+                        if (page.size() > limit) {
+                            page.pollLast();
+                        }
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(page);
+    }
+
+    List<Segment> segments() {
+        Path directory = archiveProperties.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> SEGMENT.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> segment(directory, matcher))
+                    .sorted(Comparator.comparing(Segment::start).thenComparingInt(Segment::number))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list archive segments in " + directory, e);
+        }
+    }
+
+    private static Segment segment(Path directory, Matcher matcher) {
+        String key = matcher.group(1);
+        Period period = Period.ofKey(key);
+        Instant start = period.parse(key);
+        return new Segment(directory.resolve(matcher.group()), key, Integer.parseInt(matcher.group(2)), start,
+                period.next(start));
+    }
+
+    private void read(Segment segment, Consumer<TransactionView> consumer) {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(segment.path()), BUFFER_SIZE);
+             MappingIterator<TransactionView> transactions = reader.readValues(input)) {
+            while (transactions.hasNextValue()) {
+                consumer.accept(transactions.nextValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + segment.path(), e);
+        }
+    }
+
+    /**
+     * Makes the rename durable. Not every platform can open a directory; there the rename is left to the OS.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Windows
+        }
+    }
+}
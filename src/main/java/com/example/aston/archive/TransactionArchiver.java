@@ -0,0 +1,134 @@
+package com.example.aston.archive;
+
+import com.example.aston.config.ArchiveProperties;
+import com.example.aston.config.ArchiveProperties.Period;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Moves closed periods from the transactions table into the {@link TransactionArchive}, oldest first, so that
+ * the table and its indexes only hold the last {@code aston.archive.retention} plus the current period no
+ * matter how much history there is.
+ * <p>
+ * A period is first written as a new segment and only then deleted from the table, by id and in batches. A run
+ * that stops in between leaves rows that are already archived; the next run of that period deletes them before
+ * it archives whatever else is left, so a transaction ends up in exactly one segment.
+ */
+@Component
+public class TransactionArchiver implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+    private static final String SELECT_OLDEST_TIME = "select min(time) from transactions";
+    private static final String SELECT_PERIOD = """
+            select id, account_number_from, account_number_to, time, amount, operation from transactions
+            where time >= ? and time < ? order by id
+            """;
+    private static final String DELETE = "delete from transactions where id = ?";
+
+    private final TransactionArchive transactionArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties archiveProperties;
+    private final ScheduledExecutorService scheduler;
+
+    public TransactionArchiver(TransactionArchive transactionArchive, JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate, ArchiveProperties archiveProperties) {
+        this.transactionArchive = transactionArchive;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.archiveProperties = archiveProperties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long interval = archiveProperties.getInterval().toMillis();
+        if (archiveProperties.isEnabled() && interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Archives every period that ended at least {@code aston.archive.retention} before {@code now}.
+     *
+     * @return the number of archived transactions
+     */
+    public long archive(Instant now) {
+        Period period = archiveProperties.getPeriod();
+        Instant cutoff = period.start(now.minus(archiveProperties.getRetention()));
+        long archived = 0;
+        Instant oldest;
+        while ((oldest = jdbcTemplate.queryForObject(SELECT_OLDEST_TIME, Instant.class)) != null
+                && oldest.isBefore(cutoff)) {
+            Instant start = period.start(oldest);
+            archived += archive(start, period.next(start));
+        }
+        return archived;
+    }
+
+    private long archive(Instant start, Instant end) {
+        long startNanos = System.nanoTime();
+        delete(transactionArchive.ids(start));
+        LongStream.Builder ids = LongStream.builder();
+        long archived = transactionArchive.write(start, consumer -> jdbcTemplate.query(SELECT_PERIOD,
+                (RowCallbackHandler) resultSet -> {
+                    TransactionView transaction = transaction(resultSet);
+                    consumer.accept(transaction);
+                    ids.add(transaction.id());
+                }, start, end));
+        delete(ids.build().toArray());
+        logger.info("Archived {} transactions of {} in {} ms", archived, archiveProperties.getPeriod().key(start),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return archived;
+    }
+
+    private void delete(long[] ids) {
+        for (int from = 0; from < ids.length; from += archiveProperties.getBatchSize()) {
+            List<Object[]> batch = Arrays.stream(ids, from, Math.min(from + archiveProperties.getBatchSize(),
+                    ids.length)).mapToObj(id -> new Object[]{id}).toList();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(DELETE, batch));
+        }
+    }
+
+    private static TransactionView transaction(ResultSet resultSet) throws SQLException {
+        return new TransactionView(resultSet.getLong("id"), resultSet.getString("account_number_from"),
+                resultSet.getString("account_number_to"), resultSet.getObject("time", Instant.class),
+                Money.ofMinor(resultSet.getLong("amount")), Operation.valueOf(resultSet.getString("operation")));
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive(Instant.now());
+        } catch (RuntimeException e) {
+            logger.error("Transaction archiving failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.aston.cache;
+
+import com.example.aston.config.AccountCacheProperties;
+import com.example.aston.dto.AccountView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of {@link AccountView} records keyed by account number.
+ * <p>
+ * Writers invalidate an entry only after their transaction has committed. A load runs inside the
+ * cache's per-key computation and an invalidation of the same key waits for it to finish, so a
+ * snapshot read before the commit is either removed by the invalidation or was never stored;
+ * loads that start after the commit read the committed row.
+ */
+@Component
+public class AccountCache implements MeterBinder {
+    private final Cache<String, AccountView> cache;
+
+    public AccountCache(AccountCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<AccountView> get(String accountNumber, Function<String, Optional<AccountView>> loader) {
+        return Optional.ofNullable(cache.get(accountNumber, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Drops the given accounts once the current transaction commits, or right away outside a transaction.
+     */
+    public void invalidateAfterCommit(String... accountNumbers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(accountNumbers);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(accountNumbers);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "accounts");
+    }
+
+    /**
+     * Drops the given accounts right away; for writers that are not bound to a Spring-managed JDBC transaction
+     * and call it once their own transaction has committed.
+     */
+    public void invalidate(String... accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            cache.invalidate(accountNumber);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.aston.cache;
+
+import com.example.aston.config.IdempotencyProperties;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.repo.IdempotencyKeyRepository;
+import com.example.aston.shard.AccountShards;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deduplicates money movements by the client's {@code Idempotency-Key}. Recent keys are held in a bounded
+ * in-memory index (a striped hash map, so lookups are O(1) and do not contend across keys); older keys are
+ * found in the {@code idempotency_keys} table, which every money movement writes in its own transaction. With
+ * {@code aston.sharding.enabled} the movement writes it on the shard of its account, so every shard is searched
+ * as well.
+ * <p>
+ * A key is reserved with {@link #begin(String, String)} before the operation runs and either
+ * {@link #complete(String, String) completed} after its transaction has committed or
+ * {@link #abort(String, String) released} if it failed, so a failed request can be retried with the same key.
+ * Every key is bound to the {@link IdempotencyKey#fingerprint fingerprint} of the request that took it; a
+ * different request with the same key is a {@link Status#MISMATCH}, not a repeat.
+ */
+@Component
+public class IdempotencyStore {
+    public enum Status {NEW, IN_PROGRESS, COMPLETED, MISMATCH}
+
+    private final ConcurrentMap<String, Reservation> reservations;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final AccountShards accountShards;
+
+    public IdempotencyStore(IdempotencyProperties properties, IdempotencyKeyRepository idempotencyKeyRepository,
+                            ObjectProvider<AccountShards> accountShards) {
+        Cache<String, Reservation> cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .build();
+        this.reservations = cache.asMap();
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.accountShards = accountShards.getIfAvailable();
+    }
+
+    public Status begin(String idempotencyKey, String fingerprint) {
+        Reservation previous = reservations.putIfAbsent(idempotencyKey, new Reservation(fingerprint, false));
+        if (previous == null) {
+            Optional<IdempotencyKey> taken = find(idempotencyKey);
+            if (taken.isEmpty()) {
+                return Status.NEW;
+            }
+            previous = new Reservation(taken.get().getFingerprint(), true);
+            reservations.put(idempotencyKey, previous);
+        }
+        if (!IdempotencyKey.matches(previous.fingerprint(), fingerprint)) {
+            return Status.MISMATCH;
+        }
+        return previous.completed() ? Status.COMPLETED : Status.IN_PROGRESS;
+    }
+
+    public void complete(String idempotencyKey, String fingerprint) {
+        reservations.put(idempotencyKey, new Reservation(fingerprint, true));
+    }
+
+    public void abort(String idempotencyKey, String fingerprint) {
+        reservations.remove(idempotencyKey, new Reservation(fingerprint, false));
+    }
+
+    /**
+     * Checks the database only; used when a concurrent request on another instance won the race. Returns
+     * {@link Status#NEW} if the key is not taken, {@link Status#COMPLETED} if it was taken by the same request and
+     * {@link Status#MISMATCH} otherwise.
+     */
+    public Status persisted(String idempotencyKey, String fingerprint) {
+        return find(idempotencyKey)
+                .map(taken -> IdempotencyKey.matches(taken.getFingerprint(), fingerprint)
+                        ? Status.COMPLETED : Status.MISMATCH)
+                .orElse(Status.NEW);
+    }
+
+    private Optional<IdempotencyKey> find(String idempotencyKey) {
+        Optional<IdempotencyKey> taken = idempotencyKeyRepository.findById(idempotencyKey);
+        if (taken.isEmpty() && accountShards != null) {
+            taken = accountShards.findIdempotencyKey(idempotencyKey);
+        }
+        return taken;
+    }
+
+    /**
+     * @param fingerprint of the request that reserved or took the key; {@code null} if it was not recorded
+     */
+    private record Reservation(String fingerprint, boolean completed) {
+    }
+}
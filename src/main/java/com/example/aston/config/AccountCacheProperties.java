@@ -0,0 +1,21 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.cache.accounts")
+public class AccountCacheProperties {
+
+    /**
+     * Maximum number of account snapshots kept in memory.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Time after which a snapshot is reloaded even if no write invalidated it.
+     */
+    private Duration expireAfterWrite = Duration.ofSeconds(30);
+}
@@ -0,0 +1,110 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+@Data
+@ConfigurationProperties(prefix = "aston.archive")
+public class ArchiveProperties {
+
+    /**
+     * Periodically move closed periods out of the transactions table into segment files.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Length of a period; every archive run writes at most one segment per period.
+     */
+    private Period period = Period.DAY;
+
+    /**
+     * How long a period stays in the transactions table after it has ended. Idempotency keys of archived
+     * transactions are no longer checked.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Directory with the segment files.
+     */
+    private Path directory = Path.of("archive");
+
+    /**
+     * Delay between archive runs.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Number of archived rows deleted from the transactions table per database transaction.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Calendar periods in UTC.
+     */
+    public enum Period {
+        DAY {
+            @Override
+            public Instant start(Instant time) {
+                return LocalDate.ofInstant(time, ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+
+            @Override
+            public Instant next(Instant start) {
+                return start.atOffset(ZoneOffset.UTC).plusDays(1).toInstant();
+            }
+
+            @Override
+            public String key(Instant start) {
+                return LocalDate.ofInstant(start, ZoneOffset.UTC).toString();
+            }
+        },
+        MONTH {
+            @Override
+            public Instant start(Instant time) {
+                return YearMonth.from(time.atOffset(ZoneOffset.UTC)).atDay(1).atStartOfDay(ZoneOffset.UTC)
+                        .toInstant();
+            }
+
+            @Override
+            public Instant next(Instant start) {
+                return start.atOffset(ZoneOffset.UTC).plusMonths(1).toInstant();
+            }
+
+            @Override
+            public String key(Instant start) {
+                return YearMonth.from(start.atOffset(ZoneOffset.UTC)).toString();
+            }
+        };
+
+        /**
+         * Start of the period that contains {@code time}.
+         */
+        public abstract Instant start(Instant time);
+
+        public abstract Instant next(Instant start);
+
+        /**
+         * Name of the period in segment file names: {@code 2024-03-01} or {@code 2024-03}.
+         */
+        public abstract String key(Instant start);
+
+        /**
+         * Parses a key of either period length, so that segments stay readable after the period is changed.
+         */
+        public static Period ofKey(String key) {
+            return key.length() == 7 ? MONTH : DAY;
+        }
+
+        public Instant parse(String key) {
+            return this == MONTH ? YearMonth.parse(key).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : LocalDate.parse(key).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.aston.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Serializes a response body into a buffer sized from the number of elements before writing it, so that the
+ * response has a {@code Content-Length}. Without it the body is chunked and Tomcat compresses every response,
+ * however small, instead of only those above {@code server.compression.min-response-size}.
+ */
+public class BufferedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    private static final int MINIMUM_BUFFER_SIZE = 256;
+    /**
+     * Roughly the size of a serialized transaction or account with UUID account numbers.
+     */
+    private static final int ELEMENT_SIZE = 192;
+
+    public BufferedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        int size = object instanceof Collection<?> collection
+                ? Math.max(MINIMUM_BUFFER_SIZE, collection.size() * ELEMENT_SIZE) : MINIMUM_BUFFER_SIZE;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(size);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        outputMessage.getHeaders().setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
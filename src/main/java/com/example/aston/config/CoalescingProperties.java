@@ -0,0 +1,27 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * Apply concurrent transfers to the same receiver as one database transaction.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long the first transfer of a group waits for more to join. With zero a group collects only the
+     * transfers that arrive while the previous group for the same receiver is being applied.
+     */
+    private Duration window = Duration.ZERO;
+
+    /**
+     * Largest number of transfers applied in one group.
+     */
+    private int maxBatch = 64;
+}
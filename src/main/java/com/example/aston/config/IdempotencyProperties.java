@@ -0,0 +1,21 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Maximum number of idempotency keys kept in memory. Older keys are looked up in the transactions table.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Time after which a key is only found through the transactions table.
+     */
+    private Duration expireAfterWrite = Duration.ofHours(1);
+}
@@ -0,0 +1,14 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "aston.import")
+public class ImportProperties {
+
+    /**
+     * Rows sent to the database in one JDBC batch.
+     */
+    private int batchSize = 1000;
+}
@@ -0,0 +1,38 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.journal")
+public class JournalProperties {
+
+    /**
+     * Append every balance change to the journal in the transaction that makes it.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Delay between snapshots of all account balances; replay after a snapshot only reads newer entries.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * Rebuild the account balances from the journal at startup.
+     */
+    private Rebuild rebuild = Rebuild.NONE;
+
+    public enum Rebuild {
+        NONE,
+        /**
+         * Start from the latest snapshot of every account and replay the entries after it.
+         */
+        SNAPSHOT,
+        /**
+         * Replay the whole journal, then take a new snapshot.
+         */
+        FULL
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.aston.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JsonConfig {
+
+    /**
+     * Replaces the reflective getter, setter and constructor calls of the serializers and deserializers with
+     * generated lambdas. Boot registers every {@code Module} bean with the shared {@code ObjectMapper}, which
+     * both web stacks, the bulk import and the transaction archive use.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * Takes the place of the converter Boot would create, which backs off when one is defined.
+     */
+    @Bean
+    public BufferedJackson2HttpMessageConverter bufferedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new BufferedJackson2HttpMessageConverter(objectMapper);
+    }
+}
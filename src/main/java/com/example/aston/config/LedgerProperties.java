@@ -0,0 +1,31 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.ledger")
+public class LedgerProperties {
+
+    /**
+     * Serve deposits, withdrawals and transfers from the in-memory ledger instead of the database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of single-writer shard threads; every account is owned by exactly one of them.
+     */
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Delay between write-behind flushes of balances and transactions.
+     */
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    /**
+     * Maximum number of transaction rows written in one flush transaction.
+     */
+    private int flushBatchSize = 1000;
+}
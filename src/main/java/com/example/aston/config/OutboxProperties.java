@@ -0,0 +1,27 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.outbox")
+public class OutboxProperties {
+
+    /**
+     * Write money movements to the outbox in the request transaction and move them to the transactions
+     * table in the background.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Delay between relay runs; every run drains the whole outbox.
+     */
+    private Duration interval = Duration.ofMillis(100);
+
+    /**
+     * Number of outbox rows moved to the transactions table per database transaction.
+     */
+    private int batchSize = 1000;
+}
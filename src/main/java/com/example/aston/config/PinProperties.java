@@ -0,0 +1,36 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.pin")
+public class PinProperties {
+
+    /**
+     * PBKDF2 iterations for new PIN hashes. Hashes keep the count they were created with.
+     */
+    private int iterations = 10_000;
+
+    /**
+     * Maximum number of accounts whose last verified PIN is remembered, so that repeated debits skip PBKDF2.
+     */
+    private long verifiedMaximumSize = 10_000;
+
+    /**
+     * Time after which a remembered PIN is verified with PBKDF2 again.
+     */
+    private Duration verifiedExpireAfterWrite = Duration.ofMinutes(5);
+
+    /**
+     * Wrong PINs in a row after which the account's debits are locked.
+     */
+    private int maxFailedAttempts = 5;
+
+    /**
+     * How long an account stays locked after its last counted wrong PIN.
+     */
+    private Duration lockoutDuration = Duration.ofMinutes(15);
+}
@@ -0,0 +1,101 @@
+package com.example.aston.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Netty and R2DBC for the reactive stack ({@code spring.main.web-application-type=reactive}). The pool opens the same
+ * H2 database as the JDBC {@code DataSource}, which stays in place for JPA, Flyway, seeding and the journal
+ * maintenance.
+ * <p>
+ * The connection pool is deliberately not a bean: Boot backs off from the JDBC {@code DataSource} as soon as a
+ * {@code ConnectionFactory} bean exists, and for the same reason {@code R2dbcAutoConfiguration} is excluded.
+ * <p>
+ * r2dbc-h2 runs the embedded engine synchronously on the subscribing thread, including row-lock waits. Every
+ * acquired connection is therefore handed over to a dedicated scheduler with one thread per pooled connection, so
+ * that statements never run on the Netty event loops nor inside the pool's release of another connection.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements DisposableBean {
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+    private final Scheduler scheduler;
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveConfig(DataSourceProperties dataSourceProperties, ReactiveProperties reactiveProperties,
+                          LedgerProperties ledgerProperties) {
+        if (ledgerProperties.isEnabled()) {
+            throw new IllegalStateException("aston.ledger.enabled is not supported by the reactive stack");
+        }
+        String url = dataSourceProperties.determineUrl();
+        if ((url == null) || !url.startsWith(H2_URL_PREFIX)) {
+            throw new IllegalStateException("The reactive stack requires an H2 database, got " + url);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_URL_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(new H2ConnectionFactory(configuration))
+                .initialSize(reactiveProperties.getPoolSize())
+                .maxSize(reactiveProperties.getPoolSize())
+                .maxAcquireTime(reactiveProperties.getAcquireTimeout())
+                .build());
+        this.scheduler = Schedulers.newBoundedElastic(reactiveProperties.getPoolSize(), Integer.MAX_VALUE, "r2dbc-h2");
+        this.connectionFactory = new ConnectionFactory() {
+            @Override
+            public Mono<Connection> create() {
+                return connectionPool.create().publishOn(scheduler);
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return connectionPool.getMetadata();
+            }
+        };
+    }
+
+    /**
+     * Boot would start Tomcat, which is on the classpath for the servlet stack, in front of the reactive handlers.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+        scheduler.dispose();
+    }
+}
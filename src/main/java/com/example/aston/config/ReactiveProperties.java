@@ -0,0 +1,21 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.reactive")
+public class ReactiveProperties {
+
+    /**
+     * Maximum number of R2DBC connections used by the reactive handlers.
+     */
+    private int poolSize = 10;
+
+    /**
+     * How long a request waits for a free R2DBC connection before it fails; the Hikari default.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
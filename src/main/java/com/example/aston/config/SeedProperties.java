@@ -0,0 +1,37 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.math.BigDecimal;
+
+@Data
+@ConfigurationProperties(prefix = "aston.seed")
+public class SeedProperties {
+
+    /**
+     * Create the two demo accounts at every startup. Off for a persistent database, where they would pile up.
+     */
+    private boolean demo = true;
+
+    /**
+     * Number of generated accounts ({@code seed-1} ... {@code seed-N}, PIN 1111) to create at startup.
+     */
+    private int accounts = 0;
+
+    /**
+     * Balance of every generated account.
+     */
+    private BigDecimal amount = new BigDecimal("1000");
+
+    /**
+     * CSV or NDJSON file of accounts to import at startup, e.g. {@code file:accounts.csv}.
+     */
+    private Resource accountsFile;
+
+    /**
+     * CSV or NDJSON file of historical transactions to import at startup.
+     */
+    private Resource transactionsFile;
+}
@@ -0,0 +1,55 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "aston.sharding")
+public class ShardingProperties {
+
+    /**
+     * Keep accounts and their money movements in {@link #shards} separate databases instead of the main one.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of shard databases. An account lives on shard {@code floorMod(accountNumber.hashCode(), shards)},
+     * so changing the number requires moving the accounts.
+     */
+    private int shards = 4;
+
+    /**
+     * JDBC URL of a shard; {@code {shard}} is replaced with the shard number.
+     */
+    private String url = "jdbc:h2:mem:aston-shard-{shard};DB_CLOSE_DELAY=-1";
+
+    /**
+     * Maximum number of connections per shard.
+     */
+    private int poolSize = 10;
+
+    /**
+     * Delay between recovery runs for cross-shard transfers that stopped after the debit; 0 disables the
+     * background runs, the startup run is always made.
+     */
+    private Duration recoveryInterval = Duration.ofSeconds(10);
+
+    /**
+     * Age after which a debited cross-shard transfer is considered abandoned by its request and is finished
+     * by recovery.
+     */
+    private Duration inDoubtAfter = Duration.ofSeconds(30);
+
+    /**
+     * Delay between runs that move transactions and closing balances from the shards to the main database,
+     * where history and statements read them; every run drains all shards.
+     */
+    private Duration relayInterval = Duration.ofMillis(100);
+
+    /**
+     * Number of shard transactions moved to the main database per database transaction.
+     */
+    private int relayBatchSize = 1000;
+}
@@ -0,0 +1,28 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+@Data
+@ConfigurationProperties(prefix = "aston.statement")
+public class StatementProperties {
+
+    /**
+     * Time zone of business days. Daily aggregates and closing balances are kept per day of a transaction's time
+     * in this zone, whatever the zone of the server, and statement periods are days in it.
+     */
+    private ZoneId zone = ZoneOffset.UTC;
+
+    public LocalDate businessDay(Instant time) {
+        return LocalDate.ofInstant(time, zone);
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+}
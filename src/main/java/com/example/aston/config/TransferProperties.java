@@ -0,0 +1,40 @@
+package com.example.aston.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "aston.transfer")
+public class TransferProperties {
+
+    /**
+     * How concurrent balance mutations on the same account are serialized.
+     */
+    private Locking locking = Locking.PESSIMISTIC;
+
+    /**
+     * Attempts made for a money movement that lost an optimistic version check or a lock wait.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Number of items of a batch transfer request applied in one database transaction.
+     */
+    private int batchChunkSize = 500;
+
+    /**
+     * Largest number of items accepted in one batch transfer request; larger requests are rejected whole.
+     */
+    private int batchMaxSize = 10_000;
+
+    public enum Locking {
+        /**
+         * Rows are locked with SELECT ... FOR UPDATE in ascending account number order.
+         */
+        PESSIMISTIC,
+        /**
+         * Rows are read without locks and the {@code @Version} check decides the winner on commit.
+         */
+        OPTIMISTIC
+    }
+}
@@ -1,29 +1,49 @@
 package com.example.aston.controller;
 
+import com.example.aston.cache.IdempotencyStore;
+import com.example.aston.config.TransferProperties;
 import com.example.aston.dto.AccountDTO;
+import com.example.aston.dto.AccountView;
 import com.example.aston.dto.PaymentDTO;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
 import com.example.aston.exception.WrongPinException;
 import com.example.aston.exception.NotEnoughFundsException;
 import com.example.aston.exception.NotFoundException;
-import com.example.aston.model.Account;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
 import com.example.aston.service.AccountService;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/accounts")
 
 public class AccountController {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String KEY_MISMATCH_MESSAGE = "Idempotency key was already used with a different request.";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
 
     private final AccountService accountService;
+    private final TransferProperties transferProperties;
+    private final IdempotencyStore idempotencyStore;
+    private final Validator validator;
 
     @PostMapping()
     public ResponseEntity<String> saveAccount(@RequestBody AccountDTO accountJson) {
@@ -40,70 +60,189 @@ public class AccountController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accounts = accountService.getAccounts();
+    public ResponseEntity<List<AccountView>> getAllAccounts() {
+        List<AccountView> accounts = accountService.getAccounts();
         return new ResponseEntity<>(accounts, HttpStatus.OK);
     }
 
     @GetMapping(value = "/{accountNumber}")
-    public ResponseEntity<Account> getAccount(@PathVariable @NotBlank String accountNumber) {
-        Optional<Account> accountByAccountNumber = accountService.getAccountByAccountNumber(accountNumber);
+    public ResponseEntity<AccountView> getAccount(@PathVariable @NotBlank String accountNumber) {
+        Optional<AccountView> accountByAccountNumber = accountService.getAccountByAccountNumber(accountNumber);
         return accountByAccountNumber.map(account -> new ResponseEntity<>(account, HttpStatus.OK)).orElseGet(() ->
                 new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PatchMapping(value = "/{accountNumber}/deposit")
     public ResponseEntity<String> deposit(@PathVariable @NotBlank String accountNumber,
-                                          @RequestBody PaymentDTO paymentDto) {
-        BigDecimal amount = paymentDto.getAmount();
-
-        try {
-            accountService.deposit(accountNumber, amount);
-        } catch (NotFoundException e) {
-            return ResponseEntity.notFound().build();
-        }
-        return new ResponseEntity<>("Transfer completed.", HttpStatus.OK);
+                                          @RequestBody PaymentDTO paymentDto,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                          String idempotencyKey) {
+        Money amount = paymentDto.getAmount();
+
+        String fingerprint = IdempotencyKey.fingerprint(Operation.DEPOSIT, accountNumber, accountNumber, amount);
+        return idempotent(idempotencyKey, fingerprint, "Transfer completed.", () -> {
+            try {
+                accountService.deposit(accountNumber, amount, idempotencyKey);
+            } catch (NotFoundException e) {
+                return ResponseEntity.notFound().build();
+            }
+            return new ResponseEntity<>("Transfer completed.", HttpStatus.OK);
+        });
     }
 
     @PatchMapping(value = "/{fromAccountNumber}/transfer/{toAccountNumber}")
     public ResponseEntity<String> transfer(@PathVariable @NotBlank String fromAccountNumber,
                                            @PathVariable @NotBlank String toAccountNumber,
-                                           @RequestBody PaymentDTO paymentDto) {
+                                           @RequestBody PaymentDTO paymentDto,
+                                           @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                           String idempotencyKey) {
 
-        BigDecimal amount = paymentDto.getAmount();
+        Money amount = paymentDto.getAmount();
         String pinCode = paymentDto.getPinCode();
 
-        try {
-            accountService.transfer(fromAccountNumber, toAccountNumber, amount, pinCode);
+        String fingerprint = IdempotencyKey.fingerprint(Operation.TRANSFER, fromAccountNumber, toAccountNumber,
+                amount);
+        return idempotent(idempotencyKey, fingerprint, "Transfer completed successfully.", () -> {
+            try {
+                accountService.transfer(fromAccountNumber, toAccountNumber, amount, pinCode, idempotencyKey);
+
+            } catch (NotFoundException e) {
+                return new ResponseEntity<>("Transfer error: Account not found.", HttpStatus.BAD_REQUEST);
+            } catch (WrongPinException e) {
+                return new ResponseEntity<>("Transfer error: Wrong PIN.", HttpStatus.BAD_REQUEST);
+            } catch (NotEnoughFundsException e) {
+                return new ResponseEntity<>("Transfer error: Insufficient funds.", HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>("Transfer completed successfully.", HttpStatus.OK);
+        });
+    }
 
-        } catch (NotFoundException e) {
-            return new ResponseEntity<>("Transfer error: Account not found.", HttpStatus.BAD_REQUEST);
-        } catch (WrongPinException e) {
-            return new ResponseEntity<>("Transfer error: Wrong PIN.", HttpStatus.BAD_REQUEST);
-        } catch (NotEnoughFundsException e) {
-            return new ResponseEntity<>("Transfer error: Insufficient funds.", HttpStatus.BAD_REQUEST);
+    /**
+     * Items that fail validation are answered with {@code INVALID} and the rest of the batch is still applied.
+     */
+    @PostMapping(value = "/transfers/batch")
+    public ResponseEntity<?> transferAll(@RequestBody List<TransferDTO> transfers) {
+        if (transfers.size() > transferProperties.getBatchMaxSize()) {
+            return new ResponseEntity<>(batchTooLarge(transferProperties), HttpStatus.BAD_REQUEST);
         }
-        return new ResponseEntity<>("Transfer completed successfully.", HttpStatus.OK);
-
+        List<TransferDTO> valid = transfers.stream().filter(transfer -> isValid(validator, transfer)).toList();
+        List<TransferResultDTO> applied = new ArrayList<>(valid.size());
+        int chunkSize = transferProperties.getBatchChunkSize();
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<TransferDTO> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            try {
+                applied.addAll(accountService.transferAll(chunk));
+            } catch (ConcurrencyFailureException e) {
+                chunk.forEach(transfer -> applied.add(new TransferResultDTO(transfer, TransferResultDTO.Status.FAILED)));
+            }
+        }
+        return new ResponseEntity<>(withInvalid(transfers, valid, applied), HttpStatus.OK);
     }
 
     @PatchMapping(value = "/{accountNumber}/withdraw")
     public ResponseEntity<String> withdraw(@PathVariable @NotBlank String accountNumber,
-                                           @RequestBody PaymentDTO paymentDto) {
-        BigDecimal amount = paymentDto.getAmount();
+                                           @RequestBody PaymentDTO paymentDto,
+                                           @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                           String idempotencyKey) {
+        Money amount = paymentDto.getAmount();
         String pinCode = paymentDto.getPinCode();
 
+        String fingerprint = IdempotencyKey.fingerprint(Operation.WITHDRAW, accountNumber, accountNumber, amount);
+        return idempotent(idempotencyKey, fingerprint, "Withdrawal completed successfully.", () -> {
+            try {
+                accountService.withdraw(accountNumber, amount, pinCode, idempotencyKey);
+
+            } catch (NotFoundException e) {
+                return new ResponseEntity<>("Withdrawal error: Account not found.", HttpStatus.BAD_REQUEST);
+            } catch (NotEnoughFundsException e) {
+                return new ResponseEntity<>("Withdrawal error: Insufficient funds.", HttpStatus.BAD_REQUEST);
+            } catch (WrongPinException e) {
+                return new ResponseEntity<>("Withdrawal error: Wrong PIN.", HttpStatus.BAD_REQUEST);
+
+            }
+            return new ResponseEntity<>("Withdrawal completed successfully.", HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Runs a money movement at most once per idempotency key. A repeated key is answered with the success
+     * response without calling the service; only successful movements are remembered, so a rejected request
+     * can be retried with the same key. A key that was taken by a request with another {@code fingerprint} is
+     * answered with 422.
+     */
+    private ResponseEntity<String> idempotent(String idempotencyKey, String fingerprint, String completedMessage,
+                                              Supplier<ResponseEntity<String>> operation) {
+        if (idempotencyKey == null) {
+            return operation.get();
+        }
+        if (idempotencyKey.isBlank() || (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return new ResponseEntity<>("Invalid idempotency key.", HttpStatus.BAD_REQUEST);
+        }
+        switch (idempotencyStore.begin(idempotencyKey, fingerprint)) {
+            case COMPLETED:
+                return replayed(completedMessage);
+            case IN_PROGRESS:
+                return new ResponseEntity<>("Request with this idempotency key is in progress.", HttpStatus.CONFLICT);
+            case MISMATCH:
+                return new ResponseEntity<>(KEY_MISMATCH_MESSAGE, HttpStatus.UNPROCESSABLE_ENTITY);
+            default:
+                break;
+        }
+
+        boolean completed = false;
         try {
-            accountService.withdraw(accountNumber, amount, pinCode);
+            ResponseEntity<String> response = operation.get();
+            completed = response.getStatusCode().is2xxSuccessful();
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            switch (idempotencyStore.persisted(idempotencyKey, fingerprint)) {
+                case COMPLETED:
+                    completed = true;
+                    return replayed(completedMessage);
+                case MISMATCH:
+                    return new ResponseEntity<>(KEY_MISMATCH_MESSAGE, HttpStatus.UNPROCESSABLE_ENTITY);
+                default:
+                    throw e;
+            }
+        } finally {
+            if (completed) {
+                idempotencyStore.complete(idempotencyKey, fingerprint);
+            } else {
+                idempotencyStore.abort(idempotencyKey, fingerprint);
+            }
+        }
+    }
 
-        } catch (NotFoundException e) {
-            return new ResponseEntity<>("Withdrawal error: Account not found.", HttpStatus.BAD_REQUEST);
-        } catch (NotEnoughFundsException e) {
-            return new ResponseEntity<>("Withdrawal error: Insufficient funds.", HttpStatus.BAD_REQUEST);
-        } catch (WrongPinException e) {
-            return new ResponseEntity<>("Withdrawal error: Wrong PIN.", HttpStatus.BAD_REQUEST);
+    static String batchTooLarge(TransferProperties transferProperties) {
+        return "Batch error: At most " + transferProperties.getBatchMaxSize() + " transfers per request.";
+    }
+
+    static boolean isValid(Validator validator, TransferDTO transfer) {
+        return (transfer != null) && validator.validate(transfer).isEmpty();
+    }
 
+    /**
+     * Puts the results of the {@code valid} items, a subsequence of {@code transfers}, back in request order,
+     * with {@code INVALID} for the skipped ones.
+     */
+    static List<TransferResultDTO> withInvalid(List<TransferDTO> transfers, List<TransferDTO> valid,
+                                               List<TransferResultDTO> applied) {
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        int next = 0;
+        for (TransferDTO transfer : transfers) {
+            if ((next < valid.size()) && (valid.get(next) == transfer)) {
+                results.add(applied.get(next++));
+            } else if (transfer == null) {
+                results.add(new TransferResultDTO(null, null, null, TransferResultDTO.Status.INVALID));
+            } else {
+                results.add(new TransferResultDTO(transfer, TransferResultDTO.Status.INVALID));
+            }
         }
-        return new ResponseEntity<>("Withdrawal completed successfully.", HttpStatus.OK);
+        return results;
+    }
+
+    private static ResponseEntity<String> replayed(String completedMessage) {
+        return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED_HEADER, "true").body(completedMessage);
     }
 }
@@ -0,0 +1,182 @@
+package com.example.aston.controller;
+
+import com.example.aston.cache.IdempotencyStore;
+import com.example.aston.config.TransferProperties;
+import com.example.aston.dto.AccountDTO;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.PaymentDTO;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Operation;
+import com.example.aston.service.ReactiveAccountService;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reactive handlers of the {@link AccountController} endpoints, with the same statuses and messages.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class AccountHandler {
+    private final ReactiveAccountService accountService;
+    private final TransferProperties transferProperties;
+    private final IdempotencyStore idempotencyStore;
+    private final Validator validator;
+
+    public Mono<ServerResponse> saveAccount(ServerRequest request) {
+        return request.bodyToMono(AccountDTO.class)
+                .flatMap(account -> accountService.createAccount(account.getName(), account.getPinCode()))
+                .flatMap(account -> message(HttpStatus.OK, "New account created."))
+                .onErrorResume(WrongPinException.class, e -> message(HttpStatus.BAD_REQUEST, "Wrong PIN length."));
+    }
+
+    public Mono<ServerResponse> getAllAccounts(ServerRequest request) {
+        return ServerResponse.ok().body(accountService.getAccounts(), AccountView.class);
+    }
+
+    public Mono<ServerResponse> getAccount(ServerRequest request) {
+        return accountService.getAccountByAccountNumber(request.pathVariable("accountNumber"))
+                .flatMap(account -> ServerResponse.ok().bodyValue(account))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> deposit(ServerRequest request) {
+        String accountNumber = request.pathVariable("accountNumber");
+        return request.bodyToMono(PaymentDTO.class).flatMap(payment ->
+                idempotent(request, IdempotencyKey.fingerprint(Operation.DEPOSIT, accountNumber, accountNumber,
+                        payment.getAmount()), "Transfer completed.", idempotencyKey -> accountService
+                        .deposit(accountNumber, payment.getAmount(), idempotencyKey)
+                        .then(message(HttpStatus.OK, "Transfer completed."))
+                        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build())));
+    }
+
+    public Mono<ServerResponse> transfer(ServerRequest request) {
+        String fromAccountNumber = request.pathVariable("fromAccountNumber");
+        String toAccountNumber = request.pathVariable("toAccountNumber");
+        return request.bodyToMono(PaymentDTO.class).flatMap(payment ->
+                idempotent(request, IdempotencyKey.fingerprint(Operation.TRANSFER, fromAccountNumber, toAccountNumber,
+                        payment.getAmount()), "Transfer completed successfully.", idempotencyKey -> accountService
+                        .transfer(fromAccountNumber, toAccountNumber, payment.getAmount(), payment.getPinCode(),
+                                idempotencyKey)
+                        .then(message(HttpStatus.OK, "Transfer completed successfully."))
+                        .onErrorResume(NotFoundException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Transfer error: Account not found."))
+                        .onErrorResume(WrongPinException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Transfer error: Wrong PIN."))
+                        .onErrorResume(NotEnoughFundsException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Transfer error: Insufficient funds."))));
+    }
+
+    public Mono<ServerResponse> transferAll(ServerRequest request) {
+        int maxSize = transferProperties.getBatchMaxSize();
+        return request.bodyToFlux(TransferDTO.class)
+                .take(maxSize + 1L)
+                .collectList()
+                .flatMap(transfers -> {
+                    if (transfers.size() > maxSize) {
+                        return message(HttpStatus.BAD_REQUEST, AccountController.batchTooLarge(transferProperties));
+                    }
+                    List<TransferDTO> valid = transfers.stream()
+                            .filter(transfer -> AccountController.isValid(validator, transfer))
+                            .toList();
+                    return Flux.fromIterable(valid)
+                            .buffer(transferProperties.getBatchChunkSize())
+                            .concatMap(chunk -> accountService.transferAll(chunk)
+                                    .flatMapIterable(Function.identity())
+                                    .onErrorResume(TransientDataAccessException.class, e -> Flux.fromIterable(chunk)
+                                            .map(transfer -> new TransferResultDTO(transfer,
+                                                    TransferResultDTO.Status.FAILED))))
+                            .collectList()
+                            .flatMap(applied -> ServerResponse.ok()
+                                    .bodyValue(AccountController.withInvalid(transfers, valid, applied)));
+                });
+    }
+
+    public Mono<ServerResponse> withdraw(ServerRequest request) {
+        String accountNumber = request.pathVariable("accountNumber");
+        return request.bodyToMono(PaymentDTO.class).flatMap(payment ->
+                idempotent(request, IdempotencyKey.fingerprint(Operation.WITHDRAW, accountNumber, accountNumber,
+                        payment.getAmount()), "Withdrawal completed successfully.", idempotencyKey -> accountService
+                        .withdraw(accountNumber, payment.getAmount(), payment.getPinCode(), idempotencyKey)
+                        .then(message(HttpStatus.OK, "Withdrawal completed successfully."))
+                        .onErrorResume(NotFoundException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Withdrawal error: Account not found."))
+                        .onErrorResume(NotEnoughFundsException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Withdrawal error: Insufficient funds."))
+                        .onErrorResume(WrongPinException.class, e ->
+                                message(HttpStatus.BAD_REQUEST, "Withdrawal error: Wrong PIN."))));
+    }
+
+    /**
+     * Same contract as the servlet controller: a repeated key is answered with the success response without
+     * running the operation, a key taken by another request with 422, and only successful operations are
+     * remembered. The store may look the key up in {@code idempotency_keys} over JDBC, so it is called on the
+     * bounded elastic scheduler.
+     */
+    private Mono<ServerResponse> idempotent(ServerRequest request, String fingerprint, String completedMessage,
+                                            Function<String, Mono<ServerResponse>> operation) {
+        String idempotencyKey = request.headers().firstHeader(AccountController.IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null) {
+            return operation.apply(null);
+        }
+        if (idempotencyKey.isBlank() || (idempotencyKey.length() > AccountController.MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return message(HttpStatus.BAD_REQUEST, "Invalid idempotency key.");
+        }
+        return Mono.fromCallable(() -> idempotencyStore.begin(idempotencyKey, fingerprint))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(status -> switch (status) {
+                    case COMPLETED -> replayed(completedMessage);
+                    case IN_PROGRESS -> message(HttpStatus.CONFLICT,
+                            "Request with this idempotency key is in progress.");
+                    case MISMATCH -> message(HttpStatus.UNPROCESSABLE_ENTITY,
+                            AccountController.KEY_MISMATCH_MESSAGE);
+                    case NEW -> operation.apply(idempotencyKey)
+                            .onErrorResume(DataIntegrityViolationException.class, e -> Mono
+                                    .fromCallable(() -> idempotencyStore.persisted(idempotencyKey, fingerprint))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flatMap(persisted -> switch (persisted) {
+                                        case COMPLETED -> replayed(completedMessage);
+                                        case MISMATCH -> message(HttpStatus.UNPROCESSABLE_ENTITY,
+                                                AccountController.KEY_MISMATCH_MESSAGE);
+                                        default -> Mono.error(e);
+                                    }))
+                            .doOnNext(response -> {
+                                if (response.statusCode().is2xxSuccessful()) {
+                                    idempotencyStore.complete(idempotencyKey, fingerprint);
+                                } else {
+                                    idempotencyStore.abort(idempotencyKey, fingerprint);
+                                }
+                            })
+                            .doOnError(e -> idempotencyStore.abort(idempotencyKey, fingerprint))
+                            .doOnCancel(() -> idempotencyStore.abort(idempotencyKey, fingerprint));
+                });
+    }
+
+    private static Mono<ServerResponse> replayed(String completedMessage) {
+        return ServerResponse.ok()
+                .header(AccountController.IDEMPOTENT_REPLAYED_HEADER, "true")
+                .bodyValue(completedMessage);
+    }
+
+    private static Mono<ServerResponse> message(HttpStatus status, String message) {
+        return ServerResponse.status(status).bodyValue(message);
+    }
+}
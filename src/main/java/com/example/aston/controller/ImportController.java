@@ -0,0 +1,58 @@
+package com.example.aston.controller;
+
+import com.example.aston.dto.ImportResultDTO;
+import com.example.aston.service.BulkImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Bulk loading of accounts and historical transactions. The request body is streamed, so files with
+ * millions of rows are never held in memory.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/admin/import")
+@RequiredArgsConstructor
+public class ImportController {
+    public static final String TEXT_CSV = "text/csv";
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping(value = "/accounts", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                            InputStream body) {
+        try {
+            ImportResultDTO result = bulkImportService.importAccounts(body, format(contentType));
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping(value = "/transactions", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importTransactions(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                InputStream body) {
+        try {
+            ImportResultDTO result = bulkImportService.importTransactions(body, format(contentType));
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static BulkImportService.Format format(MediaType contentType) {
+        return contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? BulkImportService.Format.NDJSON
+                : BulkImportService.Format.CSV;
+    }
+}
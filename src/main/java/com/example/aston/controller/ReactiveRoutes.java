@@ -0,0 +1,50 @@
+package com.example.aston.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.headers;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The paths of {@link AccountController} and {@link TransactionController} on the reactive stack.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoutes {
+    /**
+     * Only clients that ask for NDJSON get the stream; {@code Accept: *}{@code /*} gets a JSON page.
+     */
+    private static final RequestPredicate ACCEPTS_NDJSON = headers(headers ->
+            headers.accept().contains(MediaType.APPLICATION_NDJSON));
+
+    @Bean
+    public RouterFunction<ServerResponse> accountRoutes(AccountHandler handler) {
+        return route()
+                .path("/api/accounts", builder -> builder
+                        .POST("", handler::saveAccount)
+                        .GET("", handler::getAllAccounts)
+                        .POST("/transfers/batch", handler::transferAll)
+                        .GET("/{accountNumber}", handler::getAccount)
+                        .PATCH("/{accountNumber}/deposit", handler::deposit)
+                        .PATCH("/{fromAccountNumber}/transfer/{toAccountNumber}", handler::transfer)
+                        .PATCH("/{accountNumber}/withdraw", handler::withdraw))
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> transactionRoutes(TransactionHandler handler) {
+        return route()
+                .path("/api/transactions", builder -> builder
+                        .GET("", ACCEPTS_NDJSON, handler::streamTransactions)
+                        .GET("", handler::getTransactions)
+                        .GET("/{accountNumber}", ACCEPTS_NDJSON, handler::streamTransactionsById)
+                        .GET("/{accountNumber}", handler::getTransactionsById))
+                .build();
+    }
+}
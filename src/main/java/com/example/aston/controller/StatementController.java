@@ -0,0 +1,49 @@
+package com.example.aston.controller;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.dto.StatementDTO;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.service.StatementService;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/accounts")
+@RequiredArgsConstructor
+public class StatementController {
+
+    private final StatementService statementService;
+    private final StatementProperties statementProperties;
+
+    /**
+     * Statement for the business days from {@code from} to {@code to} inclusive; by default the last 30 days.
+     */
+    @GetMapping(value = "/{accountNumber}/statement")
+    public ResponseEntity<StatementDTO> getStatement(
+            @PathVariable @NotBlank String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : statementProperties.today();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(statementService.getStatement(accountNumber, start, end), HttpStatus.OK);
+        } catch (NotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+}
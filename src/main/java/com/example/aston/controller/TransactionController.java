@@ -1,34 +1,125 @@
 package com.example.aston.controller;
 
-import com.example.aston.model.Transaction;
+import com.example.aston.dto.TransactionView;
 import com.example.aston.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/transactions")
 @RequiredArgsConstructor
 public class TransactionController {
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+    public static final String NEXT_AFTER_TIME_HEADER = "X-Next-After-Time";
+    private static final int MAX_PAGE_SIZE = 1000;
 
     private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<Transaction>> getTransactions() {
-        List<Transaction> allTransactions = transactionService.getTransactions();
-        return new ResponseEntity<>(allTransactions, HttpStatus.OK);
+    public ResponseEntity<List<TransactionView>> getTransactions(@RequestParam(defaultValue = "0") long afterId,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        List<TransactionView> transactions = transactionService.getTransactions(afterId, pageSize(limit));
+        return page(transactions, pageSize(limit));
     }
 
     @GetMapping(value = "/{accountNumber}")
-    public ResponseEntity<List<Transaction>> getTransactionsById(@PathVariable @NotBlank String accountNumber) {
-        List<Transaction> allTransactionsByAccountNumber = transactionService.getTransactionsByAccountNumber(accountNumber);
-        return new ResponseEntity<>(allTransactionsByAccountNumber, HttpStatus.OK);
+    public ResponseEntity<List<TransactionView>> getTransactionsById(@PathVariable @NotBlank String accountNumber,
+                                                                 @RequestParam(defaultValue = "0") long afterId,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        List<TransactionView> transactions = transactionService.getTransactionsByAccountNumber(accountNumber, afterId,
+                pageSize(limit));
+        return page(transactions, pageSize(limit));
+    }
+
+    /**
+     * Transactions with a time in [{@code from}, {@code to}), including archived periods, ordered by time and id and
+     * returned a page at a time. A full page carries the cursor of the next one, to pass as {@code afterTime} and
+     * {@code afterId}.
+     */
+    @GetMapping(value = "/{accountNumber}", params = {"from", "to"})
+    public ResponseEntity<List<TransactionView>> getTransactionsBetween(@PathVariable @NotBlank String accountNumber,
+                                                                    @RequestParam Instant from,
+                                                                    @RequestParam Instant to,
+                                                                    @RequestParam(required = false) Instant afterTime,
+                                                                    @RequestParam(defaultValue = "0") long afterId,
+                                                                    @RequestParam(defaultValue = "100") int limit) {
+        if ((afterTime == null) || afterTime.isBefore(from)) {
+            afterTime = from;
+            afterId = 0;
+        }
+        List<TransactionView> transactions = transactionService.getTransactionsByAccountNumber(accountNumber,
+                afterTime, afterId, to, pageSize(limit));
+        HttpHeaders headers = new HttpHeaders();
+        if (transactions.size() == pageSize(limit)) {
+            TransactionView last = transactions.get(transactions.size() - 1);
+            headers.set(NEXT_AFTER_TIME_HEADER, last.time().toString());
+            headers.set(NEXT_AFTER_ID_HEADER, String.valueOf(last.id()));
+        }
+        return new ResponseEntity<>(transactions, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamTransactions() {
+        return ndjson(consumer -> transactionService.streamTransactions(consumer));
+    }
+
+    @GetMapping(value = "/{accountNumber}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamTransactionsById(@PathVariable @NotBlank String accountNumber) {
+        return ndjson(consumer -> transactionService.streamTransactionsByAccountNumber(accountNumber, consumer));
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * A full page carries the id to pass as {@code afterId} for the next one.
+     */
+    private static ResponseEntity<List<TransactionView>> page(List<TransactionView> transactions, int limit) {
+        HttpHeaders headers = new HttpHeaders();
+        if (transactions.size() == limit) {
+            headers.set(NEXT_AFTER_ID_HEADER, String.valueOf(transactions.get(transactions.size() - 1).id()));
+        }
+        return new ResponseEntity<>(transactions, headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<TransactionView>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                source.accept(transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, NDJSON).body(body);
     }
 }
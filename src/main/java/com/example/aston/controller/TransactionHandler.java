@@ -0,0 +1,73 @@
+package com.example.aston.controller;
+
+import com.example.aston.dto.TransactionView;
+import com.example.aston.service.ReactiveTransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive handlers of the {@link TransactionController} endpoints. The NDJSON variants write every transaction
+ * as soon as it is read and read only as fast as the client consumes them.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class TransactionHandler {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveTransactionService transactionService;
+
+    public Mono<ServerResponse> getTransactions(ServerRequest request) {
+        int limit = pageSize(request);
+        return page(transactionService.getTransactions(afterId(request), limit), limit);
+    }
+
+    public Mono<ServerResponse> getTransactionsById(ServerRequest request) {
+        int limit = pageSize(request);
+        return page(transactionService.getTransactionsByAccountNumber(request.pathVariable("accountNumber"),
+                afterId(request), limit), limit);
+    }
+
+    public Mono<ServerResponse> streamTransactions(ServerRequest request) {
+        return ndjson(transactionService.streamTransactions());
+    }
+
+    public Mono<ServerResponse> streamTransactionsById(ServerRequest request) {
+        return ndjson(transactionService.streamTransactionsByAccountNumber(request.pathVariable("accountNumber")));
+    }
+
+    private static long afterId(ServerRequest request) {
+        return request.queryParam("afterId").map(Long::parseLong).orElse(0L);
+    }
+
+    private static int pageSize(ServerRequest request) {
+        int limit = request.queryParam("limit").map(Integer::parseInt).orElse(100);
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * A full page carries the id to pass as {@code afterId} for the next one.
+     */
+    private static Mono<ServerResponse> page(Flux<TransactionView> transactions, int limit) {
+        return transactions.collectList().flatMap(page -> {
+            ServerResponse.BodyBuilder response = ServerResponse.ok();
+            if (page.size() == limit) {
+                response.header(TransactionController.NEXT_AFTER_ID_HEADER,
+                        String.valueOf(page.get(page.size() - 1).id()));
+            }
+            return response.bodyValue(page);
+        });
+    }
+
+    private static Mono<ServerResponse> ndjson(Flux<TransactionView> transactions) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(transactions, TransactionView.class);
+    }
+}
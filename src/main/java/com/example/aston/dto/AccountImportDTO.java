@@ -0,0 +1,19 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One account of a bulk import. The account number is generated when it is blank.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountImportDTO {
+    private String accountNumber;
+    private String name;
+    private String pinCode;
+    private Money amount;
+}
@@ -0,0 +1,15 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+
+/**
+ * Read model of an account for responses and the account cache. Repositories select it with a constructor
+ * expression, so reads never create a managed entity.
+ */
+public record AccountView(String accountNumber, String name, Money amount) {
+
+    public static AccountView of(Account account) {
+        return new AccountView(account.getAccountNumber(), account.getName(), account.getAmount());
+    }
+}
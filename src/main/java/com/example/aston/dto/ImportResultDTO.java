@@ -0,0 +1,23 @@
+package com.example.aston.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private long imported;
+    private long skipped;
+    private long millis;
+    private long rowsPerSecond;
+
+    public static ImportResultDTO of(long imported, long skipped, long nanos) {
+        long rows = imported + skipped;
+        return new ImportResultDTO(imported, skipped, TimeUnit.NANOSECONDS.toMillis(nanos),
+                nanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / nanos : rows);
+    }
+}
@@ -1,11 +1,10 @@
 package com.example.aston.dto;
 
+import com.example.aston.model.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
 @Data
 public class PaymentDTO {
     private String pinCode;
-    private BigDecimal amount;
+    private Money amount;
 }
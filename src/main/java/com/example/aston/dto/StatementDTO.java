@@ -0,0 +1,22 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.DailyAggregate;
+import com.example.aston.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementDTO {
+    private String accountNumber;
+    private LocalDate from;
+    private LocalDate to;
+    private Money openingBalance;
+    private Money closingBalance;
+    private List<DailyAggregate> days;
+}
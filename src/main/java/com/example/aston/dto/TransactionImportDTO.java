@@ -0,0 +1,23 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One historical transaction of a bulk import. Imported transactions do not change balances.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionImportDTO {
+    private String accountNumberFrom;
+    private String accountNumberTo;
+    private Instant time;
+    private Money amount;
+    private Operation operation;
+}
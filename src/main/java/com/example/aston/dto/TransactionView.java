@@ -0,0 +1,28 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * Read model of a transaction for responses and archive segments, without the idempotency key. Repositories
+ * select it with a constructor expression, so reads never create a managed entity.
+ */
+public record TransactionView(Long id, String accountNumberFrom, String accountNumberTo, Instant time, Money amount,
+                              Operation operation) {
+    /**
+     * Order of time range queries; the id breaks ties between transactions of the same instant.
+     */
+    public static final Comparator<TransactionView> TIME_ORDER = Comparator.comparing(TransactionView::time)
+            .thenComparing(TransactionView::id);
+
+    /**
+     * Whether this transaction comes after the ({@code time}, {@code id}) cursor in {@link #TIME_ORDER}.
+     */
+    public boolean isAfter(Instant time, long id) {
+        int order = this.time.compareTo(time);
+        return (order > 0) || ((order == 0) && (this.id > id));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferDTO {
+    @NotBlank
+    private String fromAccountNumber;
+    @NotBlank
+    private String toAccountNumber;
+    @NotNull
+    private String pinCode;
+    @NotNull
+    private Money amount;
+    /**
+     * Set when a single transfer request is applied as part of a batch, never taken from the request body.
+     */
+    @JsonIgnore
+    private String idempotencyKey;
+
+    public TransferDTO(String fromAccountNumber, String toAccountNumber, String pinCode, Money amount) {
+        this(fromAccountNumber, toAccountNumber, pinCode, amount, null);
+    }
+
+    /**
+     * A zero or negative amount would move nothing or move money from the receiver; {@code @Positive} does not
+     * apply to {@link Money}.
+     */
+    @JsonIgnore
+    @AssertTrue
+    public boolean isAmountPositive() {
+        return (amount == null) || Money.ZERO.isLessThan(amount);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.aston.dto;
+
+import com.example.aston.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDTO {
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private Money amount;
+    private Status status;
+
+    public TransferResultDTO(TransferDTO transfer, Status status) {
+        this(transfer.getFromAccountNumber(), transfer.getToAccountNumber(), transfer.getAmount(), status);
+    }
+
+    public enum Status {
+        COMPLETED,
+        NOT_FOUND,
+        WRONG_PIN,
+        NOT_ENOUGH_FUNDS,
+        FAILED,
+        /**
+         * The item lacks an account number, PIN or amount and was not applied.
+         */
+        INVALID
+    }
+}
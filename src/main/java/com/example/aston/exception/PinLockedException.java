@@ -0,0 +1,11 @@
+package com.example.aston.exception;
+
+/**
+ * The account has seen too many wrong PINs in a row; debits are refused until the lockout expires. Handled
+ * like a wrong PIN, so that callers cannot tell a locked account from a guess that failed.
+ */
+public class PinLockedException extends WrongPinException {
+    public PinLockedException() {
+        super("Too many wrong PIN codes, the account is locked.");
+    }
+}
@@ -4,4 +4,8 @@ public class WrongPinException extends RuntimeException {
     public WrongPinException() {
         super("Wrong PIN code.");
     }
+
+    protected WrongPinException(String message) {
+        super(message);
+    }
 }
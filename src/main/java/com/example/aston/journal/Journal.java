@@ -0,0 +1,175 @@
+package com.example.aston.journal;
+
+import com.example.aston.config.JournalProperties;
+import com.example.aston.model.Account;
+import com.example.aston.model.JournalEntry;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.JournalRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of balance changes. {@code accounts.amount} is a projection of the journal that is kept up to
+ * date in the same transaction as every append, so reads never replay; replay is only needed to rebuild the
+ * projection after it was lost or corrupted.
+ * <p>
+ * Entries are appended after the account rows have been locked (or, in optimistic mode, before the version
+ * check commits), so sequence numbers of the committed entries of an account increase in commit order and
+ * {@code accounts.journal_seq} always names the last entry included in the balance.
+ */
+@Component
+@RequiredArgsConstructor
+public class Journal {
+    private static final String REBUILD_FROM_SNAPSHOTS = """
+            update accounts a set
+                amount = coalesce((select s.amount from account_snapshots s
+                                   where s.account_number = a.account_number), 0)
+                       + coalesce((select sum(j.delta) from journal j
+                                   where j.account_number = a.account_number
+                                     and j.seq > coalesce((select s.journal_seq from account_snapshots s
+                                                           where s.account_number = a.account_number), 0)), 0),
+                journal_seq = coalesce((select max(j.seq) from journal j
+                                        where j.account_number = a.account_number), 0),
+                version = version + 1
+            """;
+    private static final String REBUILD_FROM_JOURNAL = """
+            update accounts a set
+                amount = coalesce((select sum(j.delta) from journal j
+                                   where j.account_number = a.account_number), 0),
+                journal_seq = coalesce((select max(j.seq) from journal j
+                                        where j.account_number = a.account_number), 0),
+                version = version + 1
+            """;
+    static final String RESERVE_SEQS = "select next value for journal_seq from system_range(1, ?)";
+    static final String INSERT_ENTRY = "insert into journal (seq, account_number, transaction_id, operation, delta) "
+            + "values (?, ?, ?, ?, ?)";
+    private static final String INSERT_OPENING_BALANCE = "insert into journal "
+            + "(seq, account_number, transaction_id, operation, delta) values (?, ?, null, null, ?)";
+    private static final String SNAPSHOT = """
+            merge into account_snapshots (account_number, journal_seq, amount) key (account_number)
+            select account_number, journal_seq, amount from accounts
+            """;
+
+    private final JournalRepository journalRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JournalProperties journalProperties;
+
+    /**
+     * Appends the balance changes made by {@code transactions} and stamps the new sequence numbers on the
+     * changed accounts. Must run in the transaction that saves the accounts and the transactions.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Collection<Transaction> transactions, Map<String, Account> accounts) {
+        append(transactions).forEach((accountNumber, seq) -> accounts.get(accountNumber).setJournalSeq(seq));
+    }
+
+    /**
+     * Appends the balance changes made by {@code transactions} and returns the last new sequence number of every
+     * changed account, or nothing when the journal is disabled. Must run in the transaction that saves the
+     * transactions and applies the changes to the balances.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Long> append(Collection<Transaction> transactions) {
+        if (!journalProperties.isEnabled() || transactions.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Long> seqs = new HashMap<>();
+        for (JournalEntry entry : journalRepository.saveAll(entries(transactions))) {
+            seqs.merge(entry.getAccountNumber(), entry.getSeq(), Math::max);
+        }
+        return seqs;
+    }
+
+    /**
+     * Net balance change of every account touched by {@code transactions}, the sum of its journal entries.
+     */
+    public static Map<String, Money> deltas(Collection<Transaction> transactions) {
+        Map<String, Money> deltas = new HashMap<>();
+        for (JournalEntry entry : entries(transactions)) {
+            deltas.merge(entry.getAccountNumber(), entry.getDelta(), Money::plus);
+        }
+        return deltas;
+    }
+
+    /**
+     * One entry per side of every transaction: a debit of the sender and a credit of the receiver.
+     */
+    static List<JournalEntry> entries(Collection<Transaction> transactions) {
+        List<JournalEntry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            if (transaction.getOperation() != Operation.DEPOSIT) {
+                entries.add(new JournalEntry(transaction.getAccountNumberFrom(), transaction.getId(),
+                        transaction.getOperation(), transaction.getAmount().negate()));
+            }
+            if (transaction.getOperation() != Operation.WITHDRAW) {
+                entries.add(new JournalEntry(transaction.getAccountNumberTo(), transaction.getId(),
+                        transaction.getOperation(), transaction.getAmount()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reserves {@code count} sequence numbers for {@link #appendOpeningBalances}, or returns zeros when the
+     * journal is disabled. The values are block starts of the pooled-lo sequence, which Hibernate never hands
+     * out again.
+     */
+    public long[] reserveSeqs(int count) {
+        if (!journalProperties.isEnabled()) {
+            return new long[count];
+        }
+        return jdbcTemplate.queryForList(RESERVE_SEQS, Long.class, count).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Records balances that were loaded directly rather than by a transaction, such as seed data and bulk
+     * imports, as opening entries without a transaction. Every account must already be saved with a
+     * {@code journalSeq} from {@link #reserveSeqs}; accounts with a zero sequence number are left out.
+     * Must run in the transaction that inserted the accounts.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendOpeningBalances(List<Account> accounts) {
+        List<Object[]> entries = accounts.stream()
+                .filter(account -> account.getJournalSeq() > 0)
+                .map(account -> new Object[]{account.getJournalSeq(), account.getAccountNumber(),
+                        account.getAmount().minorUnits()})
+                .toList();
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_OPENING_BALANCE, entries);
+        }
+    }
+
+    /**
+     * Copies every balance together with the sequence number it includes. Both come from the same row, so the
+     * snapshot is consistent per account without stopping writers.
+     */
+    @Transactional
+    public int snapshot() {
+        return jdbcTemplate.update(SNAPSHOT);
+    }
+
+    /**
+     * Recomputes every balance from the journal, either on top of the latest snapshots or from the first entry.
+     * A full replay ends with a new snapshot. Returns the number of accounts rebuilt.
+     */
+    @Transactional
+    public int rebuild(boolean fromSnapshots) {
+        if (fromSnapshots) {
+            return jdbcTemplate.update(REBUILD_FROM_SNAPSHOTS);
+        }
+        int accounts = jdbcTemplate.update(REBUILD_FROM_JOURNAL);
+        snapshot();
+        return accounts;
+    }
+}
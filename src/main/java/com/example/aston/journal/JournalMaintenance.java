@@ -0,0 +1,66 @@
+package com.example.aston.journal;
+
+import com.example.aston.config.JournalProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the balances at startup when {@code aston.journal.rebuild} asks for it, and snapshots them
+ * periodically afterwards. The rebuild runs before the web server starts accepting requests.
+ */
+@Component
+@ConditionalOnProperty(prefix = "aston.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JournalMaintenance implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(JournalMaintenance.class);
+
+    private final Journal journal;
+    private final JournalProperties journalProperties;
+    private final ScheduledExecutorService snapshotter;
+
+    public JournalMaintenance(Journal journal, JournalProperties journalProperties) {
+        this.journal = journal;
+        this.journalProperties = journalProperties;
+        // A daemon thread, so that a rebuild run without a web server exits when it is done.
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (journalProperties.getRebuild() != JournalProperties.Rebuild.NONE) {
+            long start = System.nanoTime();
+            int accounts = journal.rebuild(journalProperties.getRebuild() == JournalProperties.Rebuild.SNAPSHOT);
+            logger.info("Rebuilt {} account balances from the journal ({}) in {} ms", accounts,
+                    journalProperties.getRebuild(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        long interval = journalProperties.getSnapshotInterval().toMillis();
+        if (interval > 0) {
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            journal.snapshot();
+        } catch (RuntimeException e) {
+            logger.error("Journal snapshot failed, will retry: {}", e.getMessage());
+        }
+    }
+}
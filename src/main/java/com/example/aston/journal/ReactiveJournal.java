@@ -0,0 +1,58 @@
+package com.example.aston.journal;
+
+import com.example.aston.config.JournalProperties;
+import com.example.aston.model.Account;
+import com.example.aston.model.JournalEntry;
+import com.example.aston.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * R2DBC counterpart of {@link Journal#append} for the reactive stack. Sequence numbers are taken straight from
+ * {@code journal_seq} after the account rows have been locked, so they keep increasing in commit order per
+ * account; every entry uses up one pooled-lo block, which only makes the numbering sparser.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveJournal {
+    private final DatabaseClient databaseClient;
+    private final JournalProperties journalProperties;
+
+    /**
+     * Appends the balance changes made by {@code transactions} and stamps the new sequence numbers on the
+     * changed accounts. Must be subscribed to in the transaction that saves the accounts and the transactions.
+     */
+    public Mono<Void> append(Collection<Transaction> transactions, Map<String, Account> accounts) {
+        if (!journalProperties.isEnabled() || transactions.isEmpty()) {
+            return Mono.empty();
+        }
+        List<JournalEntry> entries = Journal.entries(transactions);
+        return databaseClient.sql(Journal.RESERVE_SEQS)
+                .bind(0, entries.size())
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .flatMapMany(seqs -> Flux.range(0, entries.size()).concatMap(i -> {
+                    JournalEntry entry = entries.get(i);
+                    entry.setSeq(seqs.get(i));
+                    accounts.get(entry.getAccountNumber()).setJournalSeq(entry.getSeq());
+                    return databaseClient.sql(Journal.INSERT_ENTRY)
+                            .bind(0, entry.getSeq())
+                            .bind(1, entry.getAccountNumber())
+                            .bind(2, entry.getTransactionId())
+                            .bind(3, entry.getOperation().name())
+                            .bind(4, entry.getDelta().minorUnits())
+                            .then();
+                }))
+                .then();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.aston.ledger;
+
+import com.example.aston.config.LedgerProperties;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.repo.IdempotencyKeyWriter;
+import com.example.aston.repo.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps account balances in memory, partitioned into shards that are each owned by a single thread.
+ * All reads and writes of an account run on its shard thread, so no locks are taken on the hot path.
+ * Changed balances and new transactions are made durable by a periodic batched flush; anything
+ * applied after the last flush is lost if the process dies.
+ * <p>
+ * A flush does not write the balances held in memory. It journals the flushed transactions and adds their
+ * deltas to {@code accounts.amount}, so the stored balance stays the projection of the journal that a
+ * rebuild recomputes, even when a balance changed in memory before its transaction was recorded.
+ */
+@Component
+@ConditionalOnProperty(prefix = "aston.ledger", name = "enabled", havingValue = "true")
+public class BalanceLedger {
+    private static final Logger logger = LoggerFactory.getLogger(BalanceLedger.class);
+    private static final String APPLY_DELTA = "update accounts set amount = amount + ?, "
+            + "journal_seq = greatest(journal_seq, ?), version = version + 1 where account_number = ?";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final DailyAggregateWriter dailyAggregateWriter;
+    private final Journal journal;
+    private final IdempotencyKeyWriter idempotencyKeyWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+
+    private final ExecutorService[] shardExecutors;
+    private final List<Map<String, Account>> shardAccounts = new ArrayList<>();
+    private final Map<String, Money> dirtyBalances = new ConcurrentHashMap<>();
+    private final Queue<Transaction> pendingTransactions = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+
+    public BalanceLedger(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                         DailyAggregateWriter dailyAggregateWriter, Journal journal,
+                         IdempotencyKeyWriter idempotencyKeyWriter, JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate, LedgerProperties ledgerProperties) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.dailyAggregateWriter = dailyAggregateWriter;
+        this.journal = journal;
+        this.idempotencyKeyWriter = idempotencyKeyWriter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushBatchSize = ledgerProperties.getFlushBatchSize();
+
+        this.shardExecutors = new ExecutorService[ledgerProperties.getShards()];
+        for (int i = 0; i < shardExecutors.length; i++) {
+            String threadName = "ledger-shard-" + i;
+            shardExecutors[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+            shardAccounts.add(new HashMap<>());
+        }
+
+        long interval = ledgerProperties.getFlushInterval().toMillis();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "ledger-flusher"));
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public int shardOf(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), shardExecutors.length);
+    }
+
+    /**
+     * Runs {@code operation} on the shard thread that owns the account and waits for its result.
+     * Exceptions thrown by the operation are rethrown to the caller unchanged.
+     */
+    public <T> T execute(String accountNumber, Function<Account, T> operation) {
+        int shard = shardOf(accountNumber);
+        return await(CompletableFuture.supplyAsync(() -> operation.apply(load(shard, accountNumber)),
+                shardExecutors[shard]));
+    }
+
+    /**
+     * Runs {@code operation} with both accounts on their common shard thread. Both accounts must be
+     * owned by the same shard.
+     */
+    public <T> T execute(String firstAccountNumber, String secondAccountNumber,
+                         BiFunction<Account, Account, T> operation) {
+        int shard = shardOf(firstAccountNumber);
+        if (shard != shardOf(secondAccountNumber)) {
+            throw new IllegalArgumentException("Accounts are owned by different shards.");
+        }
+        return await(CompletableFuture.supplyAsync(() -> operation.apply(load(shard, firstAccountNumber),
+                load(shard, secondAccountNumber)), shardExecutors[shard]));
+    }
+
+    /**
+     * Must be called on the shard thread after changing the balance of an account it owns.
+     */
+    public void markDirty(Account account) {
+        dirtyBalances.put(account.getAccountNumber(), account.getAmount());
+    }
+
+    public void record(Transaction transaction) {
+        pendingTransactions.add(transaction);
+    }
+
+    /**
+     * Balances changed in memory but not yet flushed, for callers that read accounts from the database.
+     */
+    public Optional<Money> unflushedBalance(String accountNumber) {
+        return Optional.ofNullable(dirtyBalances.get(accountNumber));
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            do {
+                List<Transaction> transactions = new ArrayList<>();
+                Transaction transaction;
+                while (transactions.size() < flushBatchSize && (transaction = pendingTransactions.poll()) != null) {
+                    transactions.add(transaction);
+                }
+                Map<String, Money> balances = new HashMap<>(dirtyBalances);
+                if (transactions.isEmpty() && balances.isEmpty()) {
+                    return;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        transactionRepository.saveAll(transactions);
+                        idempotencyKeyWriter.merge(transactions);
+                        Map<String, Long> seqs = journal.append(transactions);
+                        jdbcTemplate.batchUpdate(APPLY_DELTA, Journal.deltas(transactions).entrySet().stream()
+                                .map(entry -> new Object[]{entry.getValue().minorUnits(),
+                                        seqs.getOrDefault(entry.getKey(), 0L), entry.getKey()})
+                                .toList());
+                        dailyAggregateWriter.record(transactions, balances);
+                    });
+                } catch (RuntimeException e) {
+                    pendingTransactions.addAll(transactions);
+                    throw e;
+                }
+                // A balance changed since the snapshot stays dirty for the next round.
+                balances.forEach((accountNumber, balance) -> dirtyBalances.remove(accountNumber, balance));
+            } while (!pendingTransactions.isEmpty());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        for (ExecutorService executor : shardExecutors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : shardExecutors) {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Ledger flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private Account load(int shard, String accountNumber) {
+        return shardAccounts.get(shard).computeIfAbsent(accountNumber, key -> accountRepository.findById(key)
+                .orElseThrow(() -> new NotFoundException("Account with this number not found.")));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
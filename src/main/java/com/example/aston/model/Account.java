@@ -1,39 +1,49 @@
 package com.example.aston.model;
 
-import jakarta.persistence.Column;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
+/**
+ * The PIN is kept separately as an {@link AccountCredential}.
+ */
 @Entity
 @Data
 @NoArgsConstructor
 @Table(name = "accounts")
-@AllArgsConstructor
 public class Account {
 
     @Id
     private String accountNumber;
     @NotBlank(message = "Name is required.")
     private String name;
-    @Column(length = 4)
-    @NotBlank(message = "PIN is required.")
-    private String pinCode;
-    @Column(columnDefinition = "numeric")
-    private BigDecimal amount;
+    private Money amount;
+    @Version
+    @JsonIgnore
+    private Long version;
+    /**
+     * Sequence number of the last journal entry reflected in {@link #amount}.
+     */
+    @JsonIgnore
+    private long journalSeq;
 
-    public Account(String name, String pinCode) {
+    public Account(String name) {
         this.accountNumber = UUID.randomUUID().toString();
         this.name = name;
-        this.pinCode = pinCode;
-        this.amount = BigDecimal.valueOf(0);
+        this.amount = Money.ZERO;
+    }
+
+    public Account(String accountNumber, String name, Money amount) {
+        this.accountNumber = accountNumber;
+        this.name = name;
+        this.amount = amount;
     }
 
 }
@@ -0,0 +1,35 @@
+package com.example.aston.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Salted PBKDF2 hash of an account's PIN. Kept apart from {@link Account} so that reads of accounts never load
+ * it; only debits look it up.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "account_credentials")
+public class AccountCredential {
+
+    @Id
+    private String accountNumber;
+    @Column(length = 16, nullable = false)
+    @ToString.Exclude
+    private byte[] salt;
+    @Column(length = 32, nullable = false)
+    @ToString.Exclude
+    private byte[] pinHash;
+    /**
+     * PBKDF2 iterations the hash was computed with, so that the cost can be raised without rehashing.
+     */
+    private int iterations;
+}
@@ -0,0 +1,24 @@
+package com.example.aston.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Balance of an account including every journal entry up to {@code journalSeq}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "account_snapshots")
+public class AccountSnapshot {
+
+    @Id
+    private String accountNumber;
+    private long journalSeq;
+    private Money amount;
+}
@@ -0,0 +1,45 @@
+package com.example.aston.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totals of one account's operations of one type on one day, maintained by
+ * {@link com.example.aston.repo.DailyAggregateWriter} in the same transaction as the operations themselves.
+ * A transfer is counted for both accounts: as debits for the sender and as credits for the receiver.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(DailyAggregate.Key.class)
+@Table(name = "daily_aggregates")
+public class DailyAggregate {
+
+    @Id
+    private String accountNumber;
+    @Id
+    @Column(name = "business_day")
+    private LocalDate day;
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+    @Column(name = "operation_count")
+    private long count;
+    private Money credits;
+    private Money debits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountNumber;
+        private LocalDate day;
+        private Operation operation;
+    }
+}
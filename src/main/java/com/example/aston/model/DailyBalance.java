@@ -0,0 +1,36 @@
+package com.example.aston.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Balance of an account after its last operation of the day.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(DailyBalance.Key.class)
+@Table(name = "daily_balances")
+public class DailyBalance {
+
+    @Id
+    private String accountNumber;
+    @Id
+    @Column(name = "business_day")
+    private LocalDate day;
+    private Money closingBalance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountNumber;
+        private LocalDate day;
+    }
+}
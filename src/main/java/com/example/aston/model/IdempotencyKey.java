@@ -0,0 +1,67 @@
+package com.example.aston.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A client's {@code Idempotency-Key} together with the transaction it produced. The key is the primary key, so
+ * this table alone decides whether a key is taken, wherever the transaction itself is stored: in the outbox, in
+ * the transactions table or moving from one to the other.
+ * <p>
+ * The {@link #fingerprint(Operation, String, String, Money) fingerprint} binds the key to the request that took
+ * it, so that a different request with the same key is told apart from a retry. Keys taken before fingerprints
+ * were recorded, whose transaction was no longer in the database, have none and match any request.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys")
+public class IdempotencyKey {
+
+    @Id
+    @Column(length = 64)
+    private String idempotencyKey;
+    @Column(nullable = false)
+    private Long transactionId;
+    @Column(length = 64)
+    private String fingerprint;
+
+    /**
+     * Hex SHA-256 of the operation, both account numbers and the amount in minor units. Deposits and withdrawals
+     * use their account as both sender and receiver, as their transactions do.
+     */
+    public static String fingerprint(Operation operation, String accountNumberFrom, String accountNumberTo,
+                                     Money amount) {
+        String request = String.join("|", operation.name(), accountNumberFrom, accountNumberTo,
+                amount == null ? "" : Long.toString(amount.minorUnits()));
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String fingerprint(Transaction transaction) {
+        return fingerprint(transaction.getOperation(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getAmount());
+    }
+
+    /**
+     * Whether a request with {@code requested} fingerprint repeats the one recorded as {@code recorded}.
+     */
+    public static boolean matches(String recorded, String requested) {
+        return (recorded == null) || recorded.equals(requested);
+    }
+}
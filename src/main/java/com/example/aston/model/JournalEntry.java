@@ -0,0 +1,42 @@
+package com.example.aston.model;
+
+import com.example.aston.util.PooledSequenceGenerator;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+/**
+ * One balance change of one account. The journal is append-only; an account's balance is the sum of its
+ * deltas, and {@link Account#getAmount()} is a projection of it. Opening balances have neither a transaction
+ * nor an operation.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "journal", indexes = @Index(name = "idx_journal_account_seq", columnList = "accountNumber, seq"))
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(generator = "journal_seq")
+    @GenericGenerator(name = "journal_seq", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "journal_seq"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long seq;
+    @Column(nullable = false)
+    private String accountNumber;
+    private Long transactionId;
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+    @Column(nullable = false)
+    private Money delta;
+
+    public JournalEntry(String accountNumber, Long transactionId, Operation operation, Money delta) {
+        this.accountNumber = accountNumber;
+        this.transactionId = transactionId;
+        this.operation = operation;
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.aston.model;
+
+import com.example.aston.util.PooledSequenceGenerator;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import java.time.Instant;
+
+/**
+ * A {@link Transaction} that has been committed but not yet written to the transactions table. The id comes
+ * from the same sequence and becomes the id of the transaction; there is no index besides the primary key.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "transaction_outbox")
+public class OutboxEntry {
+
+    @Id
+    @GeneratedValue(generator = "transaction_outbox_seq")
+    @GenericGenerator(name = "transaction_outbox_seq", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "transactions_seq"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long id;
+    private String accountNumberFrom;
+    private String accountNumberTo;
+    private Instant time;
+    private Money amount;
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+    @Column(length = 64)
+    private String idempotencyKey;
+
+    public OutboxEntry(Transaction transaction) {
+        this.accountNumberFrom = transaction.getAccountNumberFrom();
+        this.accountNumberTo = transaction.getAccountNumberTo();
+        this.time = transaction.getTime();
+        this.amount = transaction.getAmount();
+        this.operation = transaction.getOperation();
+        this.idempotencyKey = transaction.getIdempotencyKey();
+    }
+}
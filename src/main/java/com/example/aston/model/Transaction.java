@@ -1,36 +1,53 @@
 package com.example.aston.model;
 
+import com.example.aston.util.PooledSequenceGenerator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
-import java.math.BigDecimal;
-import java.time.LocalTime;
+import java.time.Instant;
 
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "transactions")
-@AllArgsConstructor
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_from_id", columnList = "accountNumberFrom, id"),
+        @Index(name = "idx_transactions_to_id", columnList = "accountNumberTo, id"),
+        @Index(name = "idx_transactions_time", columnList = "time")
+})
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "transactions_seq")
+    @GenericGenerator(name = "transactions_seq", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "transactions_seq"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
     @NotBlank(message = "Account number from is required.")
     private String accountNumberFrom;
     @NotBlank(message = "Account number to is required.")
     private String accountNumberTo;
-    private LocalTime time;
-    @Column(columnDefinition = "numeric")
-    private BigDecimal amount;
+    private Instant time;
+    private Money amount;
     @Enumerated(EnumType.STRING)
     private Operation operation;
+    @JsonIgnore
+    @Column(length = 64)
+    private String idempotencyKey;
 
-    public Transaction(String accountNumberFrom, String accountNumberTo, LocalTime time,
-                       BigDecimal amount, Operation operation) {
+    public Transaction(Long id, String accountNumberFrom, String accountNumberTo, Instant time,
+                       Money amount, Operation operation) {
+        this(accountNumberFrom, accountNumberTo, time, amount, operation);
+        this.id = id;
+    }
+
+    public Transaction(String accountNumberFrom, String accountNumberTo, Instant time,
+                       Money amount, Operation operation) {
         this.accountNumberFrom = accountNumberFrom;
         this.accountNumberTo = accountNumberTo;
         this.time = time;
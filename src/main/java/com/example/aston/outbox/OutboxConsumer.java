@@ -0,0 +1,17 @@
+package com.example.aston.outbox;
+
+import com.example.aston.dto.TransactionView;
+
+import java.util.List;
+
+/**
+ * Receives the transactions that {@link OutboxRelay} moves out of the outbox, in id order. Delivery is at least
+ * once: a batch is passed to every consumer before it is deleted from the outbox, and a batch whose delivery or
+ * deletion fails is delivered again on the next run. Consumers must therefore tolerate duplicates, for example
+ * by remembering the highest id they have seen.
+ */
+@FunctionalInterface
+public interface OutboxConsumer {
+
+    void accept(List<TransactionView> transactions);
+}
@@ -0,0 +1,150 @@
+package com.example.aston.outbox;
+
+import com.example.aston.config.OutboxProperties;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves transactions from the {@link TransactionOutbox} to the transactions table in batches, oldest id first,
+ * and passes every batch to the {@link OutboxConsumer} beans.
+ * <p>
+ * A batch is delivered to the consumers first; the insert into the transactions table and the delete from the
+ * outbox then commit together. Inserts are merges by id, so a batch that is relayed twice, after a failure or by
+ * two instances at once, still yields one row per transaction. A clean shutdown drains the outbox; whatever a
+ * crash leaves in it is relayed at the next startup with the outbox enabled, before the web server accepts
+ * requests.
+ */
+@Component
+public class OutboxRelay implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final String SELECT_BATCH = """
+            select id, account_number_from, account_number_to, time, amount, operation, idempotency_key
+            from transaction_outbox order by id limit ?
+            """;
+    private static final String MERGE_TRANSACTION = """
+            merge into transactions (id, account_number_from, account_number_to, time, amount, operation,
+                idempotency_key) key (id) values (?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String DELETE = "delete from transaction_outbox where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties outboxProperties;
+    private final List<OutboxConsumer> consumers;
+    private final ScheduledExecutorService scheduler;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       OutboxProperties outboxProperties, ObjectProvider<OutboxConsumer> consumers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxProperties = outboxProperties;
+        this.consumers = consumers.orderedStream().toList();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!outboxProperties.isEnabled()) {
+            return;
+        }
+        long recovered = relay();
+        if (recovered > 0) {
+            logger.info("Relayed {} transactions left in the outbox", recovered);
+        }
+        long interval = outboxProperties.getInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::relayQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the relay and drains the outbox once more, so that a clean shutdown leaves it empty.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        if (outboxProperties.isEnabled()) {
+            relayQuietly();
+        }
+    }
+
+    /**
+     * Relays batches until the outbox is empty.
+     *
+     * @return the number of relayed transactions
+     */
+    public synchronized long relay() {
+        long relayed = 0;
+        List<Transaction> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_BATCH, OutboxRelay::transaction, outboxProperties.getBatchSize());
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<TransactionView> views = batch.stream().map(OutboxRelay::view).toList();
+            consumers.forEach(consumer -> consumer.accept(views));
+            move(batch);
+            relayed += batch.size();
+        } while (batch.size() == outboxProperties.getBatchSize());
+        return relayed;
+    }
+
+    private void move(List<Transaction> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(MERGE_TRANSACTION, batch.stream().map(OutboxRelay::row).toList());
+            jdbcTemplate.batchUpdate(DELETE, batch.stream().map(transaction -> new Object[]{transaction.getId()})
+                    .toList());
+        });
+    }
+
+    private static Object[] row(Transaction transaction) {
+        return new Object[]{transaction.getId(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount().minorUnits(),
+                transaction.getOperation().name(), transaction.getIdempotencyKey()};
+    }
+
+    private static Transaction transaction(ResultSet resultSet, int rowNum) throws SQLException {
+        Transaction transaction = new Transaction(resultSet.getLong("id"), resultSet.getString("account_number_from"),
+                resultSet.getString("account_number_to"), resultSet.getObject("time", Instant.class),
+                Money.ofMinor(resultSet.getLong("amount")), Operation.valueOf(resultSet.getString("operation")));
+        transaction.setIdempotencyKey(resultSet.getString("idempotency_key"));
+        return transaction;
+    }
+
+    private static TransactionView view(Transaction transaction) {
+        return new TransactionView(transaction.getId(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount(),
+                transaction.getOperation());
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            logger.error("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+}
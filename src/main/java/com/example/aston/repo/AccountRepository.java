@@ -1,9 +1,28 @@
 package com.example.aston.repo;
 
+import com.example.aston.dto.AccountView;
 import com.example.aston.model.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountRepository extends JpaRepository<Account, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByIdForUpdate(String accountNumber);
+
+    @Query("select new com.example.aston.dto.AccountView(a.accountNumber, a.name, a.amount) from Account a")
+    List<AccountView> findAllViews();
+
+    @Query("""
+            select new com.example.aston.dto.AccountView(a.accountNumber, a.name, a.amount) from Account a
+            where a.accountNumber = :accountNumber""")
+    Optional<AccountView> findViewById(String accountNumber);
 }
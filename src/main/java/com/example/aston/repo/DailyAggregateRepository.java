@@ -0,0 +1,14 @@
+package com.example.aston.repo;
+
+import com.example.aston.model.DailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyAggregateRepository extends JpaRepository<DailyAggregate, DailyAggregate.Key> {
+    List<DailyAggregate> findByAccountNumberAndDayBetweenOrderByDayAscOperationAsc(String accountNumber,
+                                                                                   LocalDate from, LocalDate to);
+}
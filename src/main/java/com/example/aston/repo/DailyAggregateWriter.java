@@ -0,0 +1,172 @@
+package com.example.aston.repo;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Upserts {@link com.example.aston.model.DailyAggregate} and {@link com.example.aston.model.DailyBalance} rows
+ * with JDBC on the connection of the current transaction, so they commit or roll back together with the
+ * operations they summarise. Rows are merged in key order, so concurrent writers lock them in the same order.
+ * Business days are days in {@code aston.statement.zone}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyAggregateWriter {
+    static final String MERGE_AGGREGATE = """
+            merge into daily_aggregates t
+            using (values (cast(? as varchar), cast(? as date), cast(? as varchar),
+                           cast(? as bigint), cast(? as bigint), cast(? as bigint)))
+                s(account_number, business_day, operation, operation_count, credits, debits)
+            on t.account_number = s.account_number and t.business_day = s.business_day and t.operation = s.operation
+            when matched then update set operation_count = t.operation_count + s.operation_count,
+                credits = t.credits + s.credits, debits = t.debits + s.debits
+            when not matched then insert (account_number, business_day, operation, operation_count, credits, debits)
+                values (s.account_number, s.business_day, s.operation, s.operation_count, s.credits, s.debits)
+            """;
+    static final String MERGE_BALANCE = """
+            merge into daily_balances (account_number, business_day, closing_balance)
+                key (account_number, business_day) values (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementProperties statementProperties;
+
+    /**
+     * Counts every transaction on the business day of its time and records every closing balance on the day of
+     * the latest of {@code transactions} that changed the account, or of the latest transaction if none did.
+     *
+     * @param closingBalances balances of the affected accounts after the transactions have been applied
+     */
+    public void record(Collection<Transaction> transactions, Map<String, Money> closingBalances) {
+        byDay(statementProperties, transactions, closingBalances)
+                .forEach((day, movements) -> record(day, movements.transactions(), movements.closingBalances()));
+    }
+
+    /**
+     * @param closingBalances balances of the affected accounts after the transactions have been applied
+     */
+    public void record(LocalDate day, Collection<Transaction> transactions, Map<String, Money> closingBalances) {
+        try {
+            jdbcTemplate.batchUpdate(MERGE_AGGREGATE, aggregateRows(day, transactions));
+            jdbcTemplate.batchUpdate(MERGE_BALANCE, balanceRows(day, closingBalances));
+        } catch (DuplicateKeyException e) {
+            throw concurrentInsert(e);
+        }
+    }
+
+    record Movements(List<Transaction> transactions, Map<String, Money> closingBalances) {
+    }
+
+    /**
+     * Splits {@code transactions} and {@code closingBalances} by business day as described in
+     * {@link #record(Collection, Map)}; a batch without transactions is recorded today.
+     */
+    static Map<LocalDate, Movements> byDay(StatementProperties statementProperties,
+                                           Collection<Transaction> transactions, Map<String, Money> closingBalances) {
+        Map<LocalDate, Movements> days = new TreeMap<>();
+        Map<String, Instant> lastChanged = new HashMap<>();
+        Instant last = null;
+        for (Transaction transaction : transactions) {
+            Instant time = transaction.getTime();
+            movements(days, statementProperties.businessDay(time)).transactions().add(transaction);
+            lastChanged.merge(transaction.getAccountNumberFrom(), time, DailyAggregateWriter::later);
+            lastChanged.merge(transaction.getAccountNumberTo(), time, DailyAggregateWriter::later);
+            last = last == null ? time : later(last, time);
+        }
+        LocalDate lastDay = last == null ? statementProperties.today() : statementProperties.businessDay(last);
+        closingBalances.forEach((accountNumber, balance) -> {
+            Instant time = lastChanged.get(accountNumber);
+            LocalDate day = time == null ? lastDay : statementProperties.businessDay(time);
+            movements(days, day).closingBalances().put(accountNumber, balance);
+        });
+        return days;
+    }
+
+    /**
+     * Parameters of {@link #MERGE_AGGREGATE}, one row per account and operation, in key order.
+     */
+    static List<Object[]> aggregateRows(LocalDate day, Collection<Transaction> transactions) {
+        Map<String, Totals> totals = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            Money amount = transaction.getAmount();
+            Operation operation = transaction.getOperation();
+            if (operation == Operation.WITHDRAW) {
+                totals(totals, transaction.getAccountNumberFrom(), operation).add(Money.ZERO, amount);
+            } else if (operation == Operation.DEPOSIT) {
+                totals(totals, transaction.getAccountNumberTo(), operation).add(amount, Money.ZERO);
+            } else {
+                totals(totals, transaction.getAccountNumberFrom(), operation).add(Money.ZERO, amount);
+                totals(totals, transaction.getAccountNumberTo(), operation).add(amount, Money.ZERO);
+            }
+        }
+        return totals.values().stream()
+                .map(row -> new Object[]{row.accountNumber, day, row.operation.name(),
+                        row.count, row.credits.minorUnits(), row.debits.minorUnits()})
+                .toList();
+    }
+
+    /**
+     * Parameters of {@link #MERGE_BALANCE} in key order.
+     */
+    static List<Object[]> balanceRows(LocalDate day, Map<String, Money> closingBalances) {
+        return new TreeMap<>(closingBalances).entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), day, entry.getValue().minorUnits()})
+                .toList();
+    }
+
+    /**
+     * Two transactions inserted the first row of the day for the same key; without row locks on the accounts
+     * (optimistic locking) this is a conflict like any other and the operation is retried.
+     */
+    static ConcurrencyFailureException concurrentInsert(DataAccessException e) {
+        return new ConcurrencyFailureException("Concurrent insert of a daily aggregate", e);
+    }
+
+    private static Movements movements(Map<LocalDate, Movements> days, LocalDate day) {
+        return days.computeIfAbsent(day, key -> new Movements(new ArrayList<>(), new HashMap<>()));
+    }
+
+    private static Instant later(Instant time, Instant other) {
+        return time.isAfter(other) ? time : other;
+    }
+
+    private static Totals totals(Map<String, Totals> totals, String accountNumber, Operation operation) {
+        return totals.computeIfAbsent(accountNumber + '/' + operation, key -> new Totals(accountNumber, operation));
+    }
+
+    private static final class Totals {
+        private final String accountNumber;
+        private final Operation operation;
+        private long count;
+        private Money credits = Money.ZERO;
+        private Money debits = Money.ZERO;
+
+        private Totals(String accountNumber, Operation operation) {
+            this.accountNumber = accountNumber;
+            this.operation = operation;
+        }
+
+        private void add(Money credit, Money debit) {
+            count++;
+            credits = credits.plus(credit);
+            debits = debits.plus(debit);
+        }
+    }
+}
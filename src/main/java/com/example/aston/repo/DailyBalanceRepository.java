@@ -0,0 +1,16 @@
+package com.example.aston.repo;
+
+import com.example.aston.model.DailyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, DailyBalance.Key> {
+    Optional<DailyBalance> findFirstByAccountNumberAndDayLessThanOrderByDayDesc(String accountNumber, LocalDate day);
+
+    Optional<DailyBalance> findFirstByAccountNumberAndDayLessThanEqualOrderByDayDesc(String accountNumber,
+                                                                                    LocalDate day);
+}
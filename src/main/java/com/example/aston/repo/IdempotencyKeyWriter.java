@@ -0,0 +1,64 @@
+package com.example.aston.repo;
+
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes {@link IdempotencyKey} rows with JDBC on the connection of the current
+ * transaction, so a key is taken exactly when the money movement it belongs to commits. Rows are written in key
+ * order, so concurrent writers lock them in the same order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyWriter {
+    static final String INSERT_KEY = """
+            insert into idempotency_keys (idempotency_key, transaction_id, fingerprint) values (?, ?, ?)
+            """;
+    static final String MERGE_KEY = """
+            merge into idempotency_keys (idempotency_key, transaction_id, fingerprint) key (idempotency_key)
+                values (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes the keys of {@code transactions}, which must already have their ids, with the fingerprints of the
+     * transactions. A key that is already taken
+     * fails the insert with a {@link org.springframework.dao.DuplicateKeyException}, which rolls back the
+     * movement.
+     */
+    public void insert(Collection<Transaction> transactions) {
+        List<Object[]> rows = rows(transactions);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_KEY, rows);
+        }
+    }
+
+    /**
+     * Like {@link #insert} for writers whose movements are already applied and can no longer be rejected, such
+     * as the ledger flush; a key that is already taken is pointed at the newer transaction instead.
+     */
+    public void merge(Collection<Transaction> transactions) {
+        List<Object[]> rows = rows(transactions);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_KEY, rows);
+        }
+    }
+
+    static List<Object[]> rows(Collection<Transaction> transactions) {
+        return transactions.stream()
+                .filter(transaction -> transaction.getIdempotencyKey() != null)
+                .sorted(Comparator.comparing(Transaction::getIdempotencyKey))
+                .map(transaction -> new Object[]{transaction.getIdempotencyKey(),
+                        Objects.requireNonNull(transaction.getId()), IdempotencyKey.fingerprint(transaction)})
+                .toList();
+    }
+}
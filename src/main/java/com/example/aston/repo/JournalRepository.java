@@ -0,0 +1,9 @@
+package com.example.aston.repo;
+
+import com.example.aston.model.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalRepository extends JpaRepository<JournalEntry, Long> {
+}
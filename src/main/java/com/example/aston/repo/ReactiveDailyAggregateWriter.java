@@ -0,0 +1,66 @@
+package com.example.aston.repo;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.model.Money;
+import com.example.aston.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * R2DBC counterpart of {@link DailyAggregateWriter} for the reactive stack; the rows and the merge statements are
+ * the same, so both stacks can update the same day.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveDailyAggregateWriter {
+    private final DatabaseClient databaseClient;
+    private final StatementProperties statementProperties;
+
+    /**
+     * Must be subscribed to in the transaction that applied {@code transactions}; the days are split as by
+     * {@link DailyAggregateWriter#record(Collection, Map)}.
+     *
+     * @param closingBalances balances of the affected accounts after the transactions have been applied
+     */
+    public Mono<Void> record(Collection<Transaction> transactions, Map<String, Money> closingBalances) {
+        return Flux.fromIterable(DailyAggregateWriter.byDay(statementProperties, transactions, closingBalances)
+                        .entrySet())
+                .concatMap(day -> record(day.getKey(), day.getValue().transactions(),
+                        day.getValue().closingBalances()))
+                .then();
+    }
+
+    /**
+     * Must be subscribed to in the transaction that applied {@code transactions}.
+     *
+     * @param closingBalances balances of the affected accounts after the transactions have been applied
+     */
+    public Mono<Void> record(LocalDate day, Collection<Transaction> transactions, Map<String, Money> closingBalances) {
+        return merge(DailyAggregateWriter.MERGE_AGGREGATE, DailyAggregateWriter.aggregateRows(day, transactions))
+                .then(merge(DailyAggregateWriter.MERGE_BALANCE, DailyAggregateWriter.balanceRows(day, closingBalances)))
+                .onErrorMap(DataIntegrityViolationException.class, DailyAggregateWriter::concurrentInsert);
+    }
+
+    private Mono<Void> merge(String sql, List<Object[]> rows) {
+        return Flux.fromIterable(rows)
+                .concatMap(row -> {
+                    DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql);
+                    for (int i = 0; i < row.length; i++) {
+                        statement = statement.bind(i, row[i]);
+                    }
+                    return statement.then();
+                })
+                .then();
+    }
+}
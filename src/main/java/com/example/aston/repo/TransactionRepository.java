@@ -1,13 +1,73 @@
 package com.example.aston.repo;
 
+import com.example.aston.dto.TransactionView;
 import com.example.aston.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Account history is read one direction at a time so that each query is a range scan of the
+ * (account_number_from, id) or (account_number_to, id) index; callers merge both sides by id.
+ * <p>
+ * Time ranges only cover the periods that have not been moved to the archive yet.
+ * <p>
+ * Reads select {@link TransactionView} records rather than entities, so nothing is added to the persistence
+ * context and there is no dirty-checking snapshot to keep or detach. Derived finders project through the record
+ * constructor; the others select {@link #VIEW}.
+ */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction,Long> {
+    String VIEW = "select new com.example.aston.dto.TransactionView(t.id, t.accountNumberFrom, t.accountNumberTo, "
+            + "t.time, t.amount, t.operation) from Transaction t ";
+
+    @Query(VIEW + "order by t.id")
+    List<TransactionView> findAllViews();
+
+    List<TransactionView> findTransactionsByAccountNumberFromOrderByIdAsc(String accountNumber);
+
+    List<TransactionView> findTransactionsByAccountNumberToOrderByIdAsc(String accountNumber);
+
+    List<TransactionView> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<TransactionView> findByAccountNumberFromAndIdGreaterThanOrderByIdAsc(String accountNumber, Long afterId,
+                                                                              Pageable pageable);
+
+    List<TransactionView> findByAccountNumberToAndIdGreaterThanOrderByIdAsc(String accountNumber, Long afterId,
+                                                                            Pageable pageable);
+
+    /**
+     * Sent transactions after the ({@code afterTime}, {@code afterId}) cursor in (time, id) order, with a time
+     * before {@code to}.
+     */
+    @Query(VIEW + "where t.accountNumberFrom = :accountNumber and t.time < :to "
+            + "and (t.time > :afterTime or (t.time = :afterTime and t.id > :afterId)) order by t.time, t.id")
+    List<TransactionView> findSentAfter(String accountNumber, Instant afterTime, long afterId, Instant to,
+                                        Pageable pageable);
+
+    @Query(VIEW + "where t.accountNumberTo = :accountNumber and t.time < :to "
+            + "and (t.time > :afterTime or (t.time = :afterTime and t.id > :afterId)) order by t.time, t.id")
+    List<TransactionView> findReceivedAfter(String accountNumber, Instant afterTime, long afterId, Instant to,
+                                            Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "order by t.id")
+    Stream<TransactionView> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "where t.accountNumberFrom = :accountNumber order by t.id")
+    Stream<TransactionView> streamByAccountNumberFrom(String accountNumber);
 
-    List<Transaction> findTransactionsByAccountNumberFrom(String accountNumber);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "where t.accountNumberTo = :accountNumber order by t.id")
+    Stream<TransactionView> streamByAccountNumberTo(String accountNumber);
 }
@@ -0,0 +1,66 @@
+package com.example.aston.repo.migration;
+
+import com.example.aston.model.AccountCredential;
+import com.example.aston.service.PinVerifier;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the plain-text PINs out of {@code accounts} into salted hashes in {@code account_credentials}. A Java
+ * migration because the hashes are computed with {@link PinVerifier}; Boot hands every {@code JavaMigration}
+ * bean to Flyway.
+ */
+@Component
+public class V2__Account_credentials extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_CREDENTIAL = """
+            insert into account_credentials (account_number, salt, pin_hash, iterations)
+            values (?, ?, ?, ?)""";
+
+    private final PinVerifier pinVerifier;
+
+    public V2__Account_credentials(PinVerifier pinVerifier) {
+        this.pinVerifier = pinVerifier;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        jdbcTemplate.execute("""
+                create table account_credentials (
+                    account_number varchar(255) not null,
+                    salt varbinary(16) not null,
+                    pin_hash varbinary(32) not null,
+                    iterations integer not null,
+                    primary key (account_number)
+                )""");
+        List<AccountCredential> batch = new ArrayList<>(BATCH_SIZE);
+        jdbcTemplate.query("select account_number, pin_code from accounts where pin_code is not null", row -> {
+            batch.add(pinVerifier.issue(row.getString("account_number"), row.getString("pin_code")));
+            if (batch.size() == BATCH_SIZE) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        });
+        insert(jdbcTemplate, batch);
+        jdbcTemplate.execute("alter table accounts drop column pin_code");
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<AccountCredential> credentials) {
+        if (credentials.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_CREDENTIAL, credentials, credentials.size(), (statement, credential) -> {
+            statement.setString(1, credential.getAccountNumber());
+            statement.setBytes(2, credential.getSalt());
+            statement.setBytes(3, credential.getPinHash());
+            statement.setInt(4, credential.getIterations());
+        });
+    }
+}
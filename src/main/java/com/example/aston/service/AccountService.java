@@ -1,21 +1,33 @@
 package com.example.aston.service;
 
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
 import com.example.aston.model.Account;
+import com.example.aston.model.Money;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountService {
     Optional<Account> createAccount(String name, String pin);
 
-    List<Account> getAccounts();
+    List<AccountView> getAccounts();
 
-    Optional<Account> getAccountByAccountNumber(String accountNumber);
+    Optional<AccountView> getAccountByAccountNumber(String accountNumber);
 
-    void deposit(String accountNumber, BigDecimal amount);
+    void deposit(String accountNumber, Money amount);
 
-    void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String pinCode);
+    void deposit(String accountNumber, Money amount, String idempotencyKey);
 
-    void withdraw(String accountNumber, BigDecimal amount, String pinCode);
+    void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode);
+
+    void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                  String idempotencyKey);
+
+    List<TransferResultDTO> transferAll(List<TransferDTO> transfers);
+
+    void withdraw(String accountNumber, Money amount, String pinCode);
+
+    void withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey);
 }
@@ -1,27 +1,54 @@
 package com.example.aston.service;
 
+import com.example.aston.aop.RetryOnConflict;
+import com.example.aston.cache.AccountCache;
+import com.example.aston.config.TransferProperties;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.PinLockedException;
 import com.example.aston.exception.WrongPinException;
 import com.example.aston.exception.NotEnoughFundsException;
 import com.example.aston.exception.NotFoundException;
+import com.example.aston.journal.Journal;
 import com.example.aston.model.Account;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.model.Money;
 import com.example.aston.model.Operation;
 import com.example.aston.model.Transaction;
+import com.example.aston.outbox.TransactionOutbox;
+import com.example.aston.repo.AccountCredentialRepository;
 import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.repo.IdempotencyKeyWriter;
 import com.example.aston.repo.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.math.BigDecimal;
-import java.time.LocalTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class AccountServiceImpl implements AccountService {
     private final AccountRepository accountRepository;
+    private final AccountCredentialRepository accountCredentialRepository;
+    private final PinVerifier pinVerifier;
     private final TransactionRepository transactionRepository;
+    private final TransferProperties transferProperties;
+    private final AccountCache accountCache;
+    private final DailyAggregateWriter dailyAggregateWriter;
+    private final Journal journal;
+    private final TransactionOutbox transactionOutbox;
+    private final IdempotencyKeyWriter idempotencyKeyWriter;
 
     @Override
     @Transactional
@@ -29,24 +56,33 @@ public class AccountServiceImpl implements AccountService {
         if ((name == null) || (pinCode.length() != 4)) {
             throw new WrongPinException();
         }
-        Account account = new Account(name, pinCode);
+        Account account = new Account(name);
         accountRepository.save(account);
+        accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), pinCode));
         return Optional.of(account);
     }
 
     @Override
-    public List<Account> getAccounts() {
-        return accountRepository.findAll();
+    public List<AccountView> getAccounts() {
+        return accountRepository.findAllViews();
     }
 
     @Override
-    public Optional<Account> getAccountByAccountNumber(String accountNumber) {
-        return accountRepository.findById(accountNumber);
+    public Optional<AccountView> getAccountByAccountNumber(String accountNumber) {
+        return accountCache.get(accountNumber, accountRepository::findViewById);
     }
 
     @Override
     @Transactional
-    public void deposit(String accountNumber, BigDecimal amount) {
+    @RetryOnConflict
+    public void deposit(String accountNumber, Money amount) {
+        deposit(accountNumber, amount, null);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public void deposit(String accountNumber, Money amount, String idempotencyKey) {
         Optional<Account> id = accountRepository.findById(accountNumber);
 
         if (id.isEmpty()) {
@@ -55,61 +91,202 @@ public class AccountServiceImpl implements AccountService {
 
         Account account = id.get();
         Transaction transaction = new Transaction(accountNumber, accountNumber,
-                LocalTime.now(), amount, Operation.DEPOSIT);
-        account.setAmount(account.getAmount().add(amount));
+                Instant.now(), amount, Operation.DEPOSIT);
+        transaction.setIdempotencyKey(idempotencyKey);
+        account.setAmount(account.getAmount().plus(amount));
         accountRepository.save(account);
-        transactionRepository.save(transaction);
+        saveTransaction(transaction);
+        recordProjections(List.of(transaction), List.of(account));
+        accountCache.invalidateAfterCommit(accountNumber);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode) {
+        transfer(fromAccountNumber, toAccountNumber, amount, pinCode, null);
     }
 
     @Override
     @Transactional
-    public void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String pinCode) {
-        Optional<Account> fromAccount = accountRepository.findById(fromAccountNumber);
-        Optional<Account> toAccount = accountRepository.findById(toAccountNumber);
+    @RetryOnConflict
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                         String idempotencyKey) {
+        boolean pinMatches = pinMatches(fromAccountNumber, pinCode);
+        Optional<Account> fromAccount;
+        Optional<Account> toAccount;
+
+        if (transferProperties.getLocking() == TransferProperties.Locking.PESSIMISTIC) {
+            // Both rows are always locked in account number order, so opposite transfers cannot deadlock.
+            if (fromAccountNumber.compareTo(toAccountNumber) <= 0) {
+                fromAccount = accountRepository.findByIdForUpdate(fromAccountNumber);
+                toAccount = accountRepository.findByIdForUpdate(toAccountNumber);
+            } else {
+                toAccount = accountRepository.findByIdForUpdate(toAccountNumber);
+                fromAccount = accountRepository.findByIdForUpdate(fromAccountNumber);
+            }
+        } else {
+            fromAccount = accountRepository.findById(fromAccountNumber);
+            toAccount = accountRepository.findById(toAccountNumber);
+        }
 
         if ((fromAccount.isEmpty()) || (toAccount.isEmpty())) {
             throw new NotFoundException("Transfer error.");
         }
-        if (!(fromAccount.get().getPinCode().equals(pinCode))) {
-            throw new WrongPinException();
+        Transaction transaction = move(fromAccount.get(), toAccount.get(), amount, pinMatches);
+        transaction.setIdempotencyKey(idempotencyKey);
+
+        accountRepository.save(fromAccount.get());
+        accountRepository.save(toAccount.get());
+        saveTransaction(transaction);
+        recordProjections(List.of(transaction), List.of(fromAccount.get(), toAccount.get()));
+        accountCache.invalidateAfterCommit(fromAccountNumber, toAccountNumber);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public List<TransferResultDTO> transferAll(List<TransferDTO> transfers) {
+        Set<String> accountNumbers = new TreeSet<>();
+        transfers.forEach(transfer -> {
+            accountNumbers.add(transfer.getFromAccountNumber());
+            accountNumbers.add(transfer.getToAccountNumber());
+        });
+
+        Map<String, AccountCredential> credentials = new HashMap<>();
+        accountCredentialRepository.findAllById(transfers.stream().map(TransferDTO::getFromAccountNumber).toList())
+                .forEach(credential -> credentials.put(credential.getAccountNumber(), credential));
+        boolean[] pinMatches = new boolean[transfers.size()];
+        for (int i = 0; i < pinMatches.length; i++) {
+            TransferDTO transfer = transfers.get(i);
+            try {
+                pinMatches[i] = pinVerifier.matches(credentials.get(transfer.getFromAccountNumber()),
+                        transfer.getPinCode());
+            } catch (PinLockedException e) {
+                pinMatches[i] = false;
+            }
         }
-        if (fromAccount.get().getAmount().compareTo(amount) < 0) {
-            throw new NotEnoughFundsException();
+
+        Map<String, Account> accounts = new HashMap<>();
+        if (transferProperties.getLocking() == TransferProperties.Locking.PESSIMISTIC) {
+            // The sorted set gives the same lock order as single transfers use.
+            accountNumbers.forEach(accountNumber -> accountRepository.findByIdForUpdate(accountNumber)
+                    .ifPresent(account -> accounts.put(accountNumber, account)));
+        } else {
+            accountRepository.findAllById(accountNumbers)
+                    .forEach(account -> accounts.put(account.getAccountNumber(), account));
         }
 
-        fromAccount.get().setAmount(fromAccount.get().getAmount().subtract(amount));
-        toAccount.get().setAmount(toAccount.get().getAmount().add(amount));
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        List<Transaction> transactions = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferDTO transfer = transfers.get(i);
+            Account fromAccount = accounts.get(transfer.getFromAccountNumber());
+            Account toAccount = accounts.get(transfer.getToAccountNumber());
+            TransferResultDTO.Status status;
+            if ((fromAccount == null) || (toAccount == null)) {
+                status = TransferResultDTO.Status.NOT_FOUND;
+            } else {
+                try {
+                    Transaction transaction = move(fromAccount, toAccount, transfer.getAmount(), pinMatches[i]);
+                    transaction.setIdempotencyKey(transfer.getIdempotencyKey());
+                    transactions.add(transaction);
+                    status = TransferResultDTO.Status.COMPLETED;
+                } catch (WrongPinException e) {
+                    status = TransferResultDTO.Status.WRONG_PIN;
+                } catch (NotEnoughFundsException e) {
+                    status = TransferResultDTO.Status.NOT_ENOUGH_FUNDS;
+                }
+            }
+            results.add(new TransferResultDTO(transfer, status));
+        }
 
-        Transaction transaction = new Transaction(fromAccountNumber, toAccountNumber, LocalTime.now(),
-                amount, Operation.TRANSFER);
+        accountRepository.saveAll(accounts.values());
+        if (transactionOutbox.isEnabled()) {
+            transactionOutbox.append(transactions);
+        } else {
+            transactionRepository.saveAll(transactions);
+        }
+        recordProjections(transactions, accounts.values());
+        accountCache.invalidateAfterCommit(accounts.keySet().toArray(String[]::new));
+        return results;
+    }
 
-        accountRepository.save(fromAccount.get());
-        accountRepository.save(toAccount.get());
-        transactionRepository.save(transaction);
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public void withdraw(String accountNumber, Money amount, String pinCode) {
+        withdraw(accountNumber, amount, pinCode, null);
     }
 
     @Override
     @Transactional
-    public void withdraw(String accountNumber, BigDecimal amount, String pinCode) {
+    @RetryOnConflict
+    public void withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey) {
+        boolean pinMatches = pinMatches(accountNumber, pinCode);
         Optional<Account> id = accountRepository.findById(accountNumber);
 
         if (id.isEmpty()) {
             throw new NotFoundException("Account with this number not found.");
         }
-        if (id.get().getAmount().compareTo(amount) < 0) {
+        if (id.get().getAmount().isLessThan(amount)) {
             throw new NotEnoughFundsException();
         }
-        if (!(id.get().getPinCode().equals(pinCode))) {
+        if (!pinMatches) {
             throw new WrongPinException();
-
         }
         Account account = id.get();
-        Transaction transaction = new Transaction(accountNumber, accountNumber, LocalTime.now(),
+        Transaction transaction = new Transaction(accountNumber, accountNumber, Instant.now(),
                 amount, Operation.WITHDRAW);
+        transaction.setIdempotencyKey(idempotencyKey);
 
-        account.setAmount(account.getAmount().subtract(amount));
+        account.setAmount(account.getAmount().minus(amount));
 
         accountRepository.save(account);
-        transactionRepository.save(transaction);
+        saveTransaction(transaction);
+        recordProjections(List.of(transaction), List.of(account));
+        accountCache.invalidateAfterCommit(accountNumber);
+    }
+
+    /**
+     * PINs are checked before any row is locked, so that a PBKDF2 run on a cache miss never holds a lock.
+     */
+    private boolean pinMatches(String accountNumber, String pinCode) {
+        return pinVerifier.matches(accountCredentialRepository.findById(accountNumber).orElse(null), pinCode);
+    }
+
+    private void saveTransaction(Transaction transaction) {
+        if (transactionOutbox.isEnabled()) {
+            transactionOutbox.append(List.of(transaction));
+        } else {
+            transactionRepository.save(transaction);
+        }
+    }
+
+    private Transaction move(Account fromAccount, Account toAccount, Money amount, boolean pinMatches) {
+        if (!pinMatches) {
+            throw new WrongPinException();
+        }
+        if (fromAccount.getAmount().isLessThan(amount)) {
+            throw new NotEnoughFundsException();
+        }
+
+        fromAccount.setAmount(fromAccount.getAmount().minus(amount));
+        toAccount.setAmount(toAccount.getAmount().plus(amount));
+
+        return new Transaction(fromAccount.getAccountNumber(), toAccount.getAccountNumber(), Instant.now(),
+                amount, Operation.TRANSFER);
+    }
+
+    private void recordProjections(List<Transaction> transactions, Collection<Account> accounts) {
+        Map<String, Account> accountsByNumber = new HashMap<>();
+        Map<String, Money> closingBalances = new HashMap<>();
+        accounts.forEach(account -> {
+            accountsByNumber.put(account.getAccountNumber(), account);
+            closingBalances.put(account.getAccountNumber(), account.getAmount());
+        });
+        idempotencyKeyWriter.insert(transactions);
+        journal.append(transactions, accountsByNumber);
+        dailyAggregateWriter.record(transactions, closingBalances);
     }
 }
@@ -0,0 +1,50 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.AccountImportDTO;
+import com.example.aston.dto.ImportResultDTO;
+import com.example.aston.dto.TransactionImportDTO;
+import com.example.aston.model.Money;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+
+public interface BulkImportService {
+    ImportResultDTO importAccounts(InputStream input, Format format);
+
+    /**
+     * Accounts whose number already exists are skipped, so an import can be repeated.
+     */
+    ImportResultDTO importAccounts(Iterator<AccountImportDTO> accounts);
+
+    ImportResultDTO importTransactions(InputStream input, Format format);
+
+    ImportResultDTO importTransactions(Iterator<TransactionImportDTO> transactions);
+
+    /**
+     * Imports {@code count} generated accounts {@code seed-1} ... {@code seed-N} with PIN 1111.
+     */
+    ImportResultDTO generateAccounts(int count, Money amount);
+
+    enum Format {
+        /**
+         * Comma-separated values with a header line naming the fields.
+         */
+        CSV,
+        /**
+         * One JSON object per line.
+         */
+        NDJSON;
+
+        public static Format ofFileName(String fileName) {
+            String lowerCase = fileName.toLowerCase(Locale.ROOT);
+            if (lowerCase.endsWith(".csv")) {
+                return CSV;
+            }
+            if (lowerCase.endsWith(".ndjson") || lowerCase.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unknown import file type: " + fileName);
+        }
+    }
+}
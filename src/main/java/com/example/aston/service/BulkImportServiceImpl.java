@@ -0,0 +1,340 @@
+package com.example.aston.service;
+
+import com.example.aston.config.ImportProperties;
+import com.example.aston.dto.AccountImportDTO;
+import com.example.aston.dto.ImportResultDTO;
+import com.example.aston.dto.TransactionImportDTO;
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.model.Money;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.shard.AccountShards;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads accounts and transactions with plain JDBC batches instead of one JPA save per row. Rows are checked
+ * with a few explicit rules while they are parsed instead of going through bean validation, and the database
+ * constraints still apply. Every batch is committed on its own, so a file of millions of rows never becomes
+ * one huge transaction; a bad row stops the import after the batches before it. Accounts that already exist
+ * are skipped, so an account import can simply be repeated once the file is fixed. Every imported account gets
+ * its amount as today's closing balance in the same batch, so its statements open with it.
+ * <p>
+ * Every imported PIN is hashed with PBKDF2, which dominates the cost of an account import. Generated seed accounts
+ * all get the same PIN and share one hash.
+ * <p>
+ * With {@code aston.sharding.enabled} accounts go to their {@link AccountShards} and only credentials to the main
+ * database, saved first like those of {@link ShardedAccountService#createAccount new accounts}. Transactions are
+ * historical and always go to the main database.
+ */
+@Service
+public class BulkImportServiceImpl implements BulkImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportServiceImpl.class);
+
+    private static final String INSERT_ACCOUNT = """
+            insert into accounts (account_number, name, amount, version, journal_seq)
+            select cast(? as varchar), cast(? as varchar), cast(? as bigint), 0, cast(? as bigint)
+            where not exists (select 1 from accounts where account_number = ?)""";
+    private static final String INSERT_CREDENTIAL = """
+            insert into account_credentials (account_number, salt, pin_hash, iterations)
+            values (?, ?, ?, ?)""";
+    private static final String INSERT_CREDENTIAL_IF_ABSENT = """
+            insert into account_credentials (account_number, salt, pin_hash, iterations)
+            select cast(? as varchar), cast(? as varbinary), cast(? as varbinary), cast(? as int)
+            where not exists (select 1 from account_credentials where account_number = ?)""";
+    private static final String INSERT_TRANSACTION = """
+            insert into transactions (id, account_number_from, account_number_to, time, amount, operation)
+            values (next value for transactions_seq, ?, ?, ?, ?, ?)""";
+    private final JdbcTemplate jdbcTemplate;
+    private final Journal journal;
+    private final PinVerifier pinVerifier;
+    private final DailyAggregateWriter dailyAggregateWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountShards accountShards;
+    private final int batchSize;
+    private final ObjectReader accountJsonReader;
+    private final ObjectReader accountCsvReader;
+    private final ObjectReader transactionJsonReader;
+    private final ObjectReader transactionCsvReader;
+
+    public BulkImportServiceImpl(JdbcTemplate jdbcTemplate, Journal journal, PinVerifier pinVerifier,
+                                 DailyAggregateWriter dailyAggregateWriter, TransactionTemplate transactionTemplate,
+                                 ImportProperties importProperties, ObjectMapper objectMapper,
+                                 ObjectProvider<AccountShards> accountShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.journal = journal;
+        this.pinVerifier = pinVerifier;
+        this.dailyAggregateWriter = dailyAggregateWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.accountShards = accountShards.getIfAvailable();
+        this.batchSize = importProperties.getBatchSize();
+        CsvMapper csvMapper = CsvMapper.builder().findAndAddModules().build();
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        this.accountJsonReader = objectMapper.readerFor(AccountImportDTO.class);
+        this.accountCsvReader = csvMapper.readerFor(AccountImportDTO.class).with(schema);
+        this.transactionJsonReader = objectMapper.readerFor(TransactionImportDTO.class);
+        this.transactionCsvReader = csvMapper.readerFor(TransactionImportDTO.class).with(schema);
+    }
+
+    @Override
+    public ImportResultDTO importAccounts(InputStream input, Format format) {
+        try (MappingIterator<AccountImportDTO> accounts =
+                     (format == Format.CSV ? accountCsvReader : accountJsonReader).readValues(input)) {
+            return importAccounts(accounts);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ImportResultDTO importAccounts(Iterator<AccountImportDTO> accounts) {
+        return importAccounts(accounts, account -> pinVerifier.issue(account.getAccountNumber(), account.getPinCode()));
+    }
+
+    @Override
+    public ImportResultDTO importTransactions(InputStream input, Format format) {
+        try (MappingIterator<TransactionImportDTO> transactions =
+                     (format == Format.CSV ? transactionCsvReader : transactionJsonReader).readValues(input)) {
+            return importTransactions(transactions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ImportResultDTO importTransactions(Iterator<TransactionImportDTO> transactions) {
+        long start = System.nanoTime();
+        long imported = 0;
+        List<TransactionImportDTO> batch = new ArrayList<>(batchSize);
+        while (hasNext(transactions, imported + batch.size(), imported)) {
+            TransactionImportDTO transaction = next(transactions, imported + batch.size() + 1, imported);
+            validate(transaction, imported + batch.size() + 1, imported);
+            batch.add(transaction);
+            if (batch.size() == batchSize) {
+                imported += insertTransactions(batch);
+                batch.clear();
+            }
+        }
+        imported += insertTransactions(batch);
+        return report("transactions", imported, 0, start);
+    }
+
+    @Override
+    public ImportResultDTO generateAccounts(int count, Money amount) {
+        Iterator<AccountImportDTO> accounts = IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new AccountImportDTO("seed-" + i, "Seed " + i, "1111", amount))
+                .iterator();
+        AccountCredential shared = pinVerifier.issue(null, "1111");
+        return importAccounts(accounts, account -> new AccountCredential(account.getAccountNumber(),
+                shared.getSalt(), shared.getPinHash(), shared.getIterations()));
+    }
+
+    private ImportResultDTO importAccounts(Iterator<AccountImportDTO> accounts,
+                                           Function<AccountImportDTO, AccountCredential> credentials) {
+        long start = System.nanoTime();
+        long imported = 0;
+        long rows = 0;
+        List<Account> batch = new ArrayList<>(batchSize);
+        List<AccountCredential> batchCredentials = new ArrayList<>(batchSize);
+        while (hasNext(accounts, rows, imported)) {
+            AccountImportDTO account = next(accounts, ++rows, imported);
+            validate(account, rows, imported);
+            batch.add(new Account(account.getAccountNumber(), account.getName(), account.getAmount()));
+            batchCredentials.add(credentials.apply(account));
+            if (batch.size() == batchSize) {
+                imported += insertAccounts(batch, batchCredentials);
+                batch.clear();
+                batchCredentials.clear();
+            }
+        }
+        imported += insertAccounts(batch, batchCredentials);
+        return report("accounts", imported, rows - imported, start);
+    }
+
+    private long insertAccounts(List<Account> batch, List<AccountCredential> credentials) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (accountShards != null) {
+            return insertShardAccounts(batch, credentials);
+        }
+        List<Account> funded = batch.stream().filter(account -> account.getAmount().compareTo(Money.ZERO) != 0)
+                .toList();
+        long[] seqs = journal.reserveSeqs(funded.size());
+        for (int i = 0; i < seqs.length; i++) {
+            funded.get(i).setJournalSeq(seqs[i]);
+        }
+        return transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_ACCOUNT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    Account account = batch.get(i);
+                    statement.setString(1, account.getAccountNumber());
+                    statement.setString(2, account.getName());
+                    statement.setLong(3, account.getAmount().minorUnits());
+                    statement.setLong(4, account.getJournalSeq());
+                    statement.setString(5, account.getAccountNumber());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            List<Account> inserted = new ArrayList<>(batch.size());
+            List<AccountCredential> insertedCredentials = new ArrayList<>(batch.size());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    inserted.add(batch.get(i));
+                    insertedCredentials.add(credentials.get(i));
+                }
+            }
+            if (!insertedCredentials.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_CREDENTIAL, insertedCredentials, insertedCredentials.size(),
+                        (statement, credential) -> {
+                            statement.setString(1, credential.getAccountNumber());
+                            statement.setBytes(2, credential.getSalt());
+                            statement.setBytes(3, credential.getPinHash());
+                            statement.setInt(4, credential.getIterations());
+                        });
+            }
+            journal.appendOpeningBalances(inserted);
+            dailyAggregateWriter.record(List.of(), inserted.stream()
+                    .collect(Collectors.toMap(Account::getAccountNumber, Account::getAmount)));
+            return (long) inserted.size();
+        });
+    }
+
+    /**
+     * An account that already exists keeps its credential, so the batch can be repeated like any other.
+     */
+    private long insertShardAccounts(List<Account> batch, List<AccountCredential> credentials) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CREDENTIAL_IF_ABSENT,
+                credentials, credentials.size(), (statement, credential) -> {
+                    statement.setString(1, credential.getAccountNumber());
+                    statement.setBytes(2, credential.getSalt());
+                    statement.setBytes(3, credential.getPinHash());
+                    statement.setInt(4, credential.getIterations());
+                    statement.setString(5, credential.getAccountNumber());
+                }));
+        return accountShards.insertAccounts(batch).size();
+    }
+
+    private long insertTransactions(List<TransactionImportDTO> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, batch, batch.size(), (statement, transaction) -> {
+                statement.setString(1, transaction.getAccountNumberFrom());
+                statement.setString(2, transaction.getAccountNumberTo());
+                statement.setObject(3, transaction.getTime());
+                statement.setLong(4, transaction.getAmount().minorUnits());
+                statement.setString(5, transaction.getOperation().name());
+            });
+            // Statements read only the daily aggregates; balances are not changed, so there are no closing ones.
+            dailyAggregateWriter.record(batch.stream()
+                    .map(transaction -> new Transaction(transaction.getAccountNumberFrom(),
+                            transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount(),
+                            transaction.getOperation()))
+                    .toList(), Map.of());
+        });
+        return batch.size();
+    }
+
+    private static void validate(AccountImportDTO account, long row, long imported) {
+        if (account.getAccountNumber() == null || account.getAccountNumber().isBlank()) {
+            account.setAccountNumber(UUID.randomUUID().toString());
+        }
+        if (account.getName() == null || account.getName().isBlank()) {
+            throw invalid(row, imported, "name is required");
+        }
+        if (account.getPinCode() == null || account.getPinCode().length() != 4) {
+            throw invalid(row, imported, "PIN must have 4 characters");
+        }
+        if (account.getAmount() == null) {
+            account.setAmount(Money.ZERO);
+        } else if (account.getAmount().isLessThan(Money.ZERO)) {
+            throw invalid(row, imported, "amount must not be negative");
+        }
+    }
+
+    private static void validate(TransactionImportDTO transaction, long row, long imported) {
+        if (transaction.getAccountNumberFrom() == null || transaction.getAccountNumberFrom().isBlank()
+                || transaction.getAccountNumberTo() == null || transaction.getAccountNumberTo().isBlank()) {
+            throw invalid(row, imported, "both account numbers are required");
+        }
+        if (transaction.getTime() == null || transaction.getOperation() == null) {
+            throw invalid(row, imported, "time and operation are required");
+        }
+        if (transaction.getAmount() == null || !Money.ZERO.isLessThan(transaction.getAmount())) {
+            throw invalid(row, imported, "amount must be positive");
+        }
+    }
+
+    private static boolean hasNext(Iterator<?> rows, long row, long imported) {
+        try {
+            return rows.hasNext();
+        } catch (RuntimeException e) {
+            throw unreadable(row + 1, imported, e);
+        }
+    }
+
+    private static <T> T next(Iterator<T> rows, long row, long imported) {
+        try {
+            return rows.next();
+        } catch (RuntimeException e) {
+            throw unreadable(row, imported, e);
+        }
+    }
+
+    /**
+     * {@link MappingIterator} wraps mapping errors in {@link RuntimeJsonMappingException} and syntax errors
+     * in a plain runtime exception.
+     */
+    private static RuntimeException unreadable(long row, long imported, RuntimeException e) {
+        if (e instanceof RuntimeJsonMappingException || e.getCause() instanceof JsonProcessingException) {
+            return invalid(row, imported, e.getMessage());
+        }
+        return e;
+    }
+
+    private static IllegalArgumentException invalid(long row, long imported, String message) {
+        return new IllegalArgumentException("Row " + row + ": " + message + " (" + imported + " rows imported)");
+    }
+
+    private static ImportResultDTO report(String what, long imported, long skipped, long start) {
+        ImportResultDTO result = ImportResultDTO.of(imported, skipped, System.nanoTime() - start);
+        logger.info("Imported {} {} ({} skipped) in {} ms, {} rows/s", imported, what, skipped,
+                result.getMillis(), result.getRowsPerSecond());
+        return result;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.aston.service;
+
+import com.example.aston.config.CoalescingProperties;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies concurrent transfers to the same receiver as one group: a single transaction that locks all
+ * accounts of the group in account number order, checks and debits every sender on its own, credits the
+ * receiver once and inserts the transactions as a batch (see {@link AccountServiceImpl#transferAll}).
+ * <p>
+ * The first transfer to a receiver becomes the leader of a new group. It waits for the optional window, then
+ * for the previous group of the same receiver to finish, and only then closes its group, so everything that
+ * queued up behind a hot receiver's row lock is applied together. The other callers wait for the leader.
+ * If the group transaction fails as a whole, every caller applies its own transfer separately.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${aston.coalescing.enabled:false} and !${aston.ledger.enabled:false}"
+        + " and !${aston.sharding.enabled:false}")
+public class CoalescingAccountService implements AccountService {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingAccountService.class);
+    private static final int STRIPES = 64;
+
+    private final AccountServiceImpl delegate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ConcurrentMap<String, Group> openGroups = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[STRIPES];
+
+    public CoalescingAccountService(AccountServiceImpl delegate, CoalescingProperties coalescingProperties) {
+        this.delegate = delegate;
+        this.windowNanos = coalescingProperties.getWindow().toNanos();
+        this.maxBatch = coalescingProperties.getMaxBatch();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Optional<Account> createAccount(String name, String pin) {
+        return delegate.createAccount(name, pin);
+    }
+
+    @Override
+    public List<AccountView> getAccounts() {
+        return delegate.getAccounts();
+    }
+
+    @Override
+    public Optional<AccountView> getAccountByAccountNumber(String accountNumber) {
+        return delegate.getAccountByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        delegate.deposit(accountNumber, amount);
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount, String idempotencyKey) {
+        delegate.deposit(accountNumber, amount, idempotencyKey);
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode) {
+        transfer(fromAccountNumber, toAccountNumber, amount, pinCode, null);
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                         String idempotencyKey) {
+        Pending pending = new Pending(new TransferDTO(fromAccountNumber, toAccountNumber, pinCode, amount,
+                idempotencyKey));
+        boolean[] leader = {false};
+        Group group = openGroups.compute(toAccountNumber, (accountNumber, current) -> {
+            if (current != null && current.requests.size() < maxBatch) {
+                current.add(pending, maxBatch);
+                return current;
+            }
+            leader[0] = true;
+            return new Group(pending);
+        });
+        if (leader[0]) {
+            lead(toAccountNumber, group);
+        }
+
+        try {
+            pending.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GroupFailure) {
+                delegate.transfer(fromAccountNumber, toAccountNumber, amount, pinCode, idempotencyKey);
+                return;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferDTO> transfers) {
+        return delegate.transferAll(transfers);
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode) {
+        delegate.withdraw(accountNumber, amount, pinCode);
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey) {
+        delegate.withdraw(accountNumber, amount, pinCode, idempotencyKey);
+    }
+
+    private void lead(String toAccountNumber, Group group) {
+        if (windowNanos > 0) {
+            try {
+                group.full.await(windowNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Lock stripe = stripes[Math.floorMod(toAccountNumber.hashCode(), STRIPES)];
+        stripe.lock();
+        try {
+            // Removing the group under the map's bin lock makes every add to it visible here.
+            openGroups.remove(toAccountNumber, group);
+            if (group.requests.size() == 1) {
+                applyAlone(group.requests.get(0));
+            } else {
+                applyTogether(group.requests);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void applyAlone(Pending pending) {
+        TransferDTO transfer = pending.transfer;
+        try {
+            delegate.transfer(transfer.getFromAccountNumber(), transfer.getToAccountNumber(), transfer.getAmount(),
+                    transfer.getPinCode(), transfer.getIdempotencyKey());
+            pending.done.complete(null);
+        } catch (RuntimeException e) {
+            pending.done.completeExceptionally(e);
+        }
+    }
+
+    private void applyTogether(List<Pending> requests) {
+        List<TransferResultDTO> results;
+        try {
+            results = delegate.transferAll(requests.stream().map(pending -> pending.transfer).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Group of {} transfers to {} failed, applying them one by one: {}", requests.size(),
+                    requests.get(0).transfer.getToAccountNumber(), e.getMessage());
+            requests.forEach(pending -> pending.done.completeExceptionally(new GroupFailure()));
+            return;
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            CompletableFuture<Void> done = requests.get(i).done;
+            switch (results.get(i).getStatus()) {
+                case COMPLETED -> done.complete(null);
+                case NOT_FOUND -> done.completeExceptionally(new NotFoundException("Transfer error."));
+                case WRONG_PIN -> done.completeExceptionally(new WrongPinException());
+                case NOT_ENOUGH_FUNDS -> done.completeExceptionally(new NotEnoughFundsException());
+                default -> done.completeExceptionally(new GroupFailure());
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final TransferDTO transfer;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Pending(TransferDTO transfer) {
+            this.transfer = transfer;
+        }
+    }
+
+    private static final class Group {
+        private final List<Pending> requests = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private Group(Pending leader) {
+            requests.add(leader);
+        }
+
+        private void add(Pending pending, int maxBatch) {
+            requests.add(pending);
+            if (requests.size() == maxBatch) {
+                full.countDown();
+            }
+        }
+    }
+
+    /**
+     * Marks transfers whose group could not be applied; each caller then applies its own transfer.
+     */
+    private static final class GroupFailure extends RuntimeException {
+        private GroupFailure() {
+            super(null, null, false, false);
+        }
+    }
+}
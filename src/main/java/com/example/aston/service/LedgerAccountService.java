@@ -0,0 +1,191 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.ledger.BalanceLedger;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.repo.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger mode: money movements are applied to {@link BalanceLedger} and persisted write-behind.
+ * Account creation and listing still go to the database.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "aston.ledger", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LedgerAccountService implements AccountService {
+    private final AccountRepository accountRepository;
+    private final AccountCredentialRepository accountCredentialRepository;
+    private final PinVerifier pinVerifier;
+    private final BalanceLedger balanceLedger;
+
+    @Override
+    @Transactional
+    public Optional<Account> createAccount(String name, String pinCode) {
+        if ((name == null) || (pinCode.length() != 4)) {
+            throw new WrongPinException();
+        }
+        Account account = new Account(name);
+        accountRepository.save(account);
+        accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), pinCode));
+        return Optional.of(account);
+    }
+
+    /**
+     * Balances that have not been flushed yet are taken from the ledger, so the list may lag behind
+     * concurrent movements by at most one flush interval.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<AccountView> getAccounts() {
+        return accountRepository.findAllViews().stream()
+                .map(account -> balanceLedger.unflushedBalance(account.accountNumber())
+                        .map(amount -> new AccountView(account.accountNumber(), account.name(), amount))
+                        .orElse(account))
+                .toList();
+    }
+
+    @Override
+    public Optional<AccountView> getAccountByAccountNumber(String accountNumber) {
+        try {
+            return Optional.of(balanceLedger.execute(accountNumber, AccountView::of));
+        } catch (NotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        deposit(accountNumber, amount, null);
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount, String idempotencyKey) {
+        balanceLedger.execute(accountNumber, account -> {
+            credit(account, amount);
+            return null;
+        });
+        Transaction transaction = new Transaction(accountNumber, accountNumber, Instant.now(),
+                amount, Operation.DEPOSIT);
+        transaction.setIdempotencyKey(idempotencyKey);
+        balanceLedger.record(transaction);
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode) {
+        transfer(fromAccountNumber, toAccountNumber, amount, pinCode, null);
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                         String idempotencyKey) {
+        boolean pinMatches = pinMatches(fromAccountNumber, pinCode);
+        try {
+            if (balanceLedger.shardOf(fromAccountNumber) == balanceLedger.shardOf(toAccountNumber)) {
+                balanceLedger.execute(fromAccountNumber, toAccountNumber, (from, to) -> {
+                    debit(from, amount, pinMatches);
+                    credit(to, amount);
+                    return null;
+                });
+            } else {
+                // Accounts are never deleted, so once the receiver has been loaded the credit cannot fail.
+                balanceLedger.execute(toAccountNumber, account -> null);
+                balanceLedger.execute(fromAccountNumber, account -> {
+                    debit(account, amount, pinMatches);
+                    return null;
+                });
+                balanceLedger.execute(toAccountNumber, account -> {
+                    credit(account, amount);
+                    return null;
+                });
+            }
+        } catch (NotFoundException e) {
+            throw new NotFoundException("Transfer error.");
+        }
+        Transaction transaction = new Transaction(fromAccountNumber, toAccountNumber, Instant.now(),
+                amount, Operation.TRANSFER);
+        transaction.setIdempotencyKey(idempotencyKey);
+        balanceLedger.record(transaction);
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferDTO> transfers) {
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        for (TransferDTO transfer : transfers) {
+            TransferResultDTO.Status status;
+            try {
+                transfer(transfer.getFromAccountNumber(), transfer.getToAccountNumber(),
+                        transfer.getAmount(), transfer.getPinCode(), transfer.getIdempotencyKey());
+                status = TransferResultDTO.Status.COMPLETED;
+            } catch (NotFoundException e) {
+                status = TransferResultDTO.Status.NOT_FOUND;
+            } catch (WrongPinException e) {
+                status = TransferResultDTO.Status.WRONG_PIN;
+            } catch (NotEnoughFundsException e) {
+                status = TransferResultDTO.Status.NOT_ENOUGH_FUNDS;
+            }
+            results.add(new TransferResultDTO(transfer, status));
+        }
+        return results;
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode) {
+        withdraw(accountNumber, amount, pinCode, null);
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey) {
+        boolean pinMatches = pinMatches(accountNumber, pinCode);
+        balanceLedger.execute(accountNumber, account -> {
+            debit(account, amount, pinMatches);
+            return null;
+        });
+        Transaction transaction = new Transaction(accountNumber, accountNumber, Instant.now(),
+                amount, Operation.WITHDRAW);
+        transaction.setIdempotencyKey(idempotencyKey);
+        balanceLedger.record(transaction);
+    }
+
+    /**
+     * Checked on the caller's thread, so that neither the credential lookup nor PBKDF2 runs on a shard thread.
+     */
+    private boolean pinMatches(String accountNumber, String pinCode) {
+        return pinVerifier.matches(accountCredentialRepository.findById(accountNumber).orElse(null), pinCode);
+    }
+
+    private void debit(Account account, Money amount, boolean pinMatches) {
+        if (!pinMatches) {
+            throw new WrongPinException();
+        }
+        if (account.getAmount().isLessThan(amount)) {
+            throw new NotEnoughFundsException();
+        }
+        account.setAmount(account.getAmount().minus(amount));
+        balanceLedger.markDirty(account);
+    }
+
+    private void credit(Account account, Money amount) {
+        account.setAmount(account.getAmount().plus(amount));
+        balanceLedger.markDirty(account);
+    }
+}
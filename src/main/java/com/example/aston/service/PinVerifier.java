@@ -0,0 +1,155 @@
+package com.example.aston.service;
+
+import com.example.aston.config.PinProperties;
+import com.example.aston.exception.PinLockedException;
+import com.example.aston.model.AccountCredential;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hashes PINs with salted PBKDF2 and checks them on debits.
+ * <p>
+ * PBKDF2 is deliberately slow, so a successful check is remembered per account as a SHA-256 of the stored hash
+ * and the PIN; while it is cached, the same PIN is accepted after one cheap digest. All comparisons are
+ * constant-time. Wrong PINs are counted per account in a concurrent map; every check is counted as wrong up
+ * front and a correct PIN resets the count, so that concurrent guesses are limited too. After
+ * {@code aston.pin.max-failed-attempts} in a row the account is locked for {@code aston.pin.lockout-duration}
+ * and every check fails with {@link PinLockedException}, whatever the PIN.
+ */
+@Component
+public class PinVerifier implements MeterBinder {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+    private final int maxFailedAttempts;
+    private final long lockoutNanos;
+    private final Cache<String, byte[]> verified;
+    private final ConcurrentMap<String, FailedAttempts> failedAttempts = new ConcurrentHashMap<>();
+
+    public PinVerifier(PinProperties properties) {
+        this.iterations = properties.getIterations();
+        this.maxFailedAttempts = properties.getMaxFailedAttempts();
+        this.lockoutNanos = properties.getLockoutDuration().toNanos();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedMaximumSize())
+                .expireAfterWrite(properties.getVerifiedExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public AccountCredential issue(String accountNumber, String pinCode) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new AccountCredential(accountNumber, salt, pbkdf2(pinCode, salt, iterations), iterations);
+    }
+
+    /**
+     * @return whether the PIN matches; {@code false} if there is no credential
+     * @throws PinLockedException if the account is locked after too many wrong PINs
+     */
+    public boolean matches(AccountCredential credential, String pinCode) {
+        if (credential == null) {
+            return false;
+        }
+        String accountNumber = credential.getAccountNumber();
+        reserveAttempt(accountNumber);
+        if (pinCode == null) {
+            recordFailure(accountNumber);
+            return false;
+        }
+
+        byte[] digest = digest(credential.getPinHash(), pinCode);
+        byte[] remembered = verified.getIfPresent(accountNumber);
+        if ((remembered == null) || !MessageDigest.isEqual(remembered, digest)) {
+            if (!MessageDigest.isEqual(credential.getPinHash(),
+                    pbkdf2(pinCode, credential.getSalt(), credential.getIterations()))) {
+                recordFailure(accountNumber);
+                return false;
+            }
+            verified.put(accountNumber, digest);
+        }
+        failedAttempts.remove(accountNumber);
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verified, "verified-pins");
+    }
+
+    /**
+     * Counts the check as a wrong PIN before the PIN is hashed, so that concurrent guesses cannot all pass the
+     * lockout check while PBKDF2 runs; a correct PIN then resets the count.
+     *
+     * @throws PinLockedException if the account is locked
+     */
+    private void reserveAttempt(String accountNumber) {
+        failedAttempts.compute(accountNumber, (key, attempts) -> {
+            long now = System.nanoTime();
+            if (attempts == null) {
+                attempts = new FailedAttempts();
+            } else if (now - attempts.lastFailureNanos >= lockoutNanos) {
+                // A run of wrong PINs that ended a lockout period ago no longer counts.
+                attempts.count = 0;
+            } else if (attempts.count >= maxFailedAttempts) {
+                throw new PinLockedException();
+            }
+            attempts.count++;
+            attempts.lastFailureNanos = now;
+            return attempts;
+        });
+    }
+
+    private void recordFailure(String accountNumber) {
+        failedAttempts.computeIfPresent(accountNumber, (key, attempts) -> {
+            attempts.lastFailureNanos = System.nanoTime();
+            return attempts;
+        });
+    }
+
+    private static byte[] pbkdf2(String pinCode, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(pinCode.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] digest(byte[] pinHash, String pinCode) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(pinHash);
+            return sha256.digest(pinCode.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Guarded by the map: only read and written in its {@code compute} calls.
+     */
+    private static final class FailedAttempts {
+        private int count;
+        private long lastFailureNanos;
+    }
+}
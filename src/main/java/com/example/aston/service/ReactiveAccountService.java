@@ -0,0 +1,31 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link AccountService} for the reactive stack. Failures are signalled with the same exceptions.
+ */
+public interface ReactiveAccountService {
+    Mono<Account> createAccount(String name, String pin);
+
+    Flux<AccountView> getAccounts();
+
+    Mono<AccountView> getAccountByAccountNumber(String accountNumber);
+
+    Mono<Void> deposit(String accountNumber, Money amount, String idempotencyKey);
+
+    Mono<Void> transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                        String idempotencyKey);
+
+    Mono<List<TransferResultDTO>> transferAll(List<TransferDTO> transfers);
+
+    Mono<Void> withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey);
+}
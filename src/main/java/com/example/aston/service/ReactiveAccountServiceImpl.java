@@ -0,0 +1,377 @@
+package com.example.aston.service;
+
+import com.example.aston.cache.AccountCache;
+import com.example.aston.config.TransferProperties;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.PinLockedException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.journal.ReactiveJournal;
+import com.example.aston.model.Account;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.ReactiveDailyAggregateWriter;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * R2DBC implementation with the semantics of {@link AccountServiceImpl}. Every money movement locks its account
+ * rows with {@code SELECT ... FOR UPDATE} in account number order, whatever {@code aston.transfer.locking} says,
+ * and saves the accounts, the transactions, the journal entries and the daily aggregates in one transaction.
+ * A lost lock wait is retried in a new transaction up to {@code aston.transfer.max-attempts} times.
+ * <p>
+ * Transaction ids are taken straight from {@code transactions_seq}, one pooled-lo block per row, so they never
+ * collide with the ids Hibernate hands out. PINs are checked with {@link PinVerifier} before the rows are locked,
+ * on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveAccountServiceImpl implements ReactiveAccountService {
+    private static final Duration BACKOFF = Duration.ofNanos(200_000);
+    private static final String SELECT_ACCOUNTS = "select account_number, name, amount, version, journal_seq "
+            + "from accounts";
+    private static final String SELECT_ACCOUNT = SELECT_ACCOUNTS + " where account_number = ?";
+    private static final String LOCK_ACCOUNT = SELECT_ACCOUNT + " for update";
+    private static final String SELECT_VIEWS = "select account_number, name, amount from accounts";
+    private static final String SELECT_VIEW = SELECT_VIEWS + " where account_number = ?";
+    private static final String INSERT_ACCOUNT = "insert into accounts "
+            + "(account_number, name, amount, version, journal_seq) values (?, ?, ?, 0, 0)";
+    private static final String SELECT_CREDENTIAL = "select account_number, salt, pin_hash, iterations "
+            + "from account_credentials where account_number = ?";
+    private static final String INSERT_CREDENTIAL = "insert into account_credentials "
+            + "(account_number, salt, pin_hash, iterations) values (?, ?, ?, ?)";
+    private static final String UPDATE_ACCOUNT = "update accounts set amount = ?, journal_seq = ?, "
+            + "version = version + 1 where account_number = ?";
+    private static final String NEXT_TRANSACTION_IDS = "select next value for transactions_seq "
+            + "from system_range(1, ?)";
+    private static final String INSERT_TRANSACTION = "insert into transactions "
+            + "(id, account_number_from, account_number_to, time, amount, operation, idempotency_key) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IDEMPOTENCY_KEY = "insert into idempotency_keys "
+            + "(idempotency_key, transaction_id, fingerprint) values (?, ?, ?)";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final TransferProperties transferProperties;
+    private final AccountCache accountCache;
+    private final ReactiveJournal journal;
+    private final ReactiveDailyAggregateWriter dailyAggregateWriter;
+    private final PinVerifier pinVerifier;
+
+    @Override
+    public Mono<Account> createAccount(String name, String pinCode) {
+        if ((name == null) || (pinCode.length() != 4)) {
+            return Mono.error(new WrongPinException());
+        }
+        Account account = new Account(name);
+        // Hashed on the bounded elastic scheduler, before the transaction takes a connection.
+        return Mono.fromCallable(() -> pinVerifier.issue(account.getAccountNumber(), pinCode))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(credential -> transactionalOperator.transactional(databaseClient.sql(INSERT_ACCOUNT)
+                        .bind(0, account.getAccountNumber())
+                        .bind(1, account.getName())
+                        .bind(2, account.getAmount().minorUnits())
+                        .then()
+                        .then(databaseClient.sql(INSERT_CREDENTIAL)
+                                .bind(0, credential.getAccountNumber())
+                                .bind(1, credential.getSalt())
+                                .bind(2, credential.getPinHash())
+                                .bind(3, credential.getIterations())
+                                .then())))
+                .thenReturn(account);
+    }
+
+    @Override
+    public Flux<AccountView> getAccounts() {
+        return databaseClient.sql(SELECT_VIEWS)
+                .map(ReactiveAccountServiceImpl::view)
+                .all();
+    }
+
+    @Override
+    public Mono<AccountView> getAccountByAccountNumber(String accountNumber) {
+        return databaseClient.sql(SELECT_VIEW)
+                .bind(0, accountNumber)
+                .map(ReactiveAccountServiceImpl::view)
+                .one();
+    }
+
+    @Override
+    public Mono<Void> deposit(String accountNumber, Money amount, String idempotencyKey) {
+        Set<String> accountNumbers = Set.of(accountNumber);
+        return atomically(accountNumbers, lock(accountNumbers).flatMap(accounts -> {
+            Account account = accounts.get(accountNumber);
+            if (account == null) {
+                throw new NotFoundException("Account with this number not found.");
+            }
+            Transaction transaction = new Transaction(accountNumber, accountNumber,
+                    Instant.now(), amount, Operation.DEPOSIT);
+            transaction.setIdempotencyKey(idempotencyKey);
+            account.setAmount(account.getAmount().plus(amount));
+            return save(List.of(transaction), accounts);
+        }));
+    }
+
+    @Override
+    public Mono<Void> transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                               String idempotencyKey) {
+        Set<String> accountNumbers = new TreeSet<>(List.of(fromAccountNumber, toAccountNumber));
+        return pinMatches(fromAccountNumber, pinCode).flatMap(pinMatches -> atomically(accountNumbers,
+                lock(accountNumbers).flatMap(accounts -> {
+                    Account fromAccount = accounts.get(fromAccountNumber);
+                    Account toAccount = accounts.get(toAccountNumber);
+                    if ((fromAccount == null) || (toAccount == null)) {
+                        throw new NotFoundException("Transfer error.");
+                    }
+                    Transaction transaction = move(fromAccount, toAccount, amount, pinMatches);
+                    transaction.setIdempotencyKey(idempotencyKey);
+                    return save(List.of(transaction), accounts);
+                })));
+    }
+
+    @Override
+    public Mono<List<TransferResultDTO>> transferAll(List<TransferDTO> transfers) {
+        Set<String> accountNumbers = new TreeSet<>();
+        transfers.forEach(transfer -> {
+            accountNumbers.add(transfer.getFromAccountNumber());
+            accountNumbers.add(transfer.getToAccountNumber());
+        });
+        return pinMatches(transfers).flatMap(pinMatches -> atomically(accountNumbers,
+                lock(accountNumbers).flatMap(accounts -> {
+                    List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+                    List<Transaction> transactions = new ArrayList<>(transfers.size());
+                    for (int i = 0; i < transfers.size(); i++) {
+                        TransferDTO transfer = transfers.get(i);
+                        Account fromAccount = accounts.get(transfer.getFromAccountNumber());
+                        Account toAccount = accounts.get(transfer.getToAccountNumber());
+                        TransferResultDTO.Status status;
+                        if ((fromAccount == null) || (toAccount == null)) {
+                            status = TransferResultDTO.Status.NOT_FOUND;
+                        } else {
+                            try {
+                                Transaction transaction = move(fromAccount, toAccount, transfer.getAmount(),
+                                        pinMatches[i]);
+                                transaction.setIdempotencyKey(transfer.getIdempotencyKey());
+                                transactions.add(transaction);
+                                status = TransferResultDTO.Status.COMPLETED;
+                            } catch (WrongPinException e) {
+                                status = TransferResultDTO.Status.WRONG_PIN;
+                            } catch (NotEnoughFundsException e) {
+                                status = TransferResultDTO.Status.NOT_ENOUGH_FUNDS;
+                            }
+                        }
+                        results.add(new TransferResultDTO(transfer, status));
+                    }
+                    return save(transactions, accounts).thenReturn(results);
+                })));
+    }
+
+    @Override
+    public Mono<Void> withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey) {
+        Set<String> accountNumbers = Set.of(accountNumber);
+        return pinMatches(accountNumber, pinCode).flatMap(pinMatches -> atomically(accountNumbers,
+                lock(accountNumbers).flatMap(accounts -> {
+                    Account account = accounts.get(accountNumber);
+                    if (account == null) {
+                        throw new NotFoundException("Account with this number not found.");
+                    }
+                    if (account.getAmount().isLessThan(amount)) {
+                        throw new NotEnoughFundsException();
+                    }
+                    if (!pinMatches) {
+                        throw new WrongPinException();
+                    }
+                    Transaction transaction = new Transaction(accountNumber, accountNumber, Instant.now(),
+                            amount, Operation.WITHDRAW);
+                    transaction.setIdempotencyKey(idempotencyKey);
+                    account.setAmount(account.getAmount().minus(amount));
+                    return save(List.of(transaction), accounts);
+                })));
+    }
+
+    /**
+     * Runs {@code operation} in a transaction, retries it in a new one after a lock timeout or deadlock, and
+     * drops the accounts from the cache once it has committed. Since {@code operation} may run more than once,
+     * PINs are checked before it and not in it.
+     */
+    private <T> Mono<T> atomically(Set<String> accountNumbers, Mono<T> operation) {
+        return transactionalOperator.transactional(operation)
+                .retryWhen(Retry.backoff(transferProperties.getMaxAttempts() - 1, BACKOFF)
+                        .filter(TransientDataAccessException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnSuccess(result -> accountCache.invalidate(accountNumbers.toArray(String[]::new)));
+    }
+
+    /**
+     * Locks the existing accounts one by one in account number order, the order the blocking service uses.
+     */
+    private Mono<Map<String, Account>> lock(Set<String> accountNumbers) {
+        return Flux.fromIterable(new TreeSet<>(accountNumbers))
+                .concatMap(accountNumber -> databaseClient.sql(LOCK_ACCOUNT)
+                        .bind(0, accountNumber)
+                        .map(ReactiveAccountServiceImpl::account)
+                        .one())
+                .collectMap(Account::getAccountNumber);
+    }
+
+    /**
+     * Checks the PIN once, before the rows are locked and outside the retried transaction, so a retry does not
+     * count a wrong PIN twice towards the lockout. PBKDF2 runs on the bounded elastic scheduler, so that it holds
+     * up neither an event loop nor the thread of a pooled connection.
+     */
+    private Mono<Boolean> pinMatches(String accountNumber, String pinCode) {
+        return credentials(Set.of(accountNumber))
+                .flatMap(credentials -> Mono.fromCallable(
+                                () -> pinVerifier.matches(credentials.get(accountNumber), pinCode))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Checks the PIN of every transfer in one go, like {@link #pinMatches(String, String)}; a locked sender
+     * counts as a wrong PIN, so that the other transfers still go through.
+     */
+    private Mono<boolean[]> pinMatches(List<TransferDTO> transfers) {
+        Set<String> senders = new LinkedHashSet<>();
+        transfers.forEach(transfer -> senders.add(transfer.getFromAccountNumber()));
+
+        return credentials(senders).flatMap(credentials -> Mono.fromCallable(() -> {
+            boolean[] pinMatches = new boolean[transfers.size()];
+            for (int i = 0; i < pinMatches.length; i++) {
+                TransferDTO transfer = transfers.get(i);
+                try {
+                    pinMatches[i] = pinVerifier.matches(credentials.get(transfer.getFromAccountNumber()),
+                            transfer.getPinCode());
+                } catch (PinLockedException e) {
+                    pinMatches[i] = false;
+                }
+            }
+            return pinMatches;
+        }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Mono<Map<String, AccountCredential>> credentials(Set<String> accountNumbers) {
+        return Flux.fromIterable(accountNumbers)
+                .concatMap(accountNumber -> databaseClient.sql(SELECT_CREDENTIAL)
+                        .bind(0, accountNumber)
+                        .map(row -> new AccountCredential(row.get("account_number", String.class),
+                                row.get("salt", byte[].class),
+                                row.get("pin_hash", byte[].class),
+                                row.get("iterations", Integer.class)))
+                        .one())
+                .collectMap(AccountCredential::getAccountNumber);
+    }
+
+    private Transaction move(Account fromAccount, Account toAccount, Money amount, boolean pinMatches) {
+        if (!pinMatches) {
+            throw new WrongPinException();
+        }
+        if (fromAccount.getAmount().isLessThan(amount)) {
+            throw new NotEnoughFundsException();
+        }
+
+        fromAccount.setAmount(fromAccount.getAmount().minus(amount));
+        toAccount.setAmount(toAccount.getAmount().plus(amount));
+
+        return new Transaction(fromAccount.getAccountNumber(), toAccount.getAccountNumber(), Instant.now(),
+                amount, Operation.TRANSFER);
+    }
+
+    /**
+     * Inserts the transactions with new ids and takes their idempotency keys, appends them to the journal and
+     * writes back the accounts they changed together with the daily aggregates.
+     */
+    private Mono<Void> save(List<Transaction> transactions, Map<String, Account> accounts) {
+        if (transactions.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, Account> changed = new HashMap<>();
+        transactions.forEach(transaction -> {
+            changed.put(transaction.getAccountNumberFrom(), accounts.get(transaction.getAccountNumberFrom()));
+            changed.put(transaction.getAccountNumberTo(), accounts.get(transaction.getAccountNumberTo()));
+        });
+        Map<String, Money> closingBalances = new HashMap<>();
+        changed.forEach((accountNumber, account) -> closingBalances.put(accountNumber, account.getAmount()));
+
+        return databaseClient.sql(NEXT_TRANSACTION_IDS)
+                .bind(0, transactions.size())
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .flatMapMany(ids -> Flux.range(0, transactions.size()).concatMap(i -> {
+                    Transaction transaction = transactions.get(i);
+                    transaction.setId(ids.get(i));
+                    return insert(transaction);
+                }))
+                .then(Mono.defer(() -> journal.append(transactions, changed)))
+                .thenMany(Flux.fromIterable(new TreeSet<>(changed.keySet()))
+                        .concatMap(accountNumber -> update(changed.get(accountNumber))))
+                .then(Mono.defer(() -> dailyAggregateWriter.record(transactions, closingBalances)));
+    }
+
+    private Mono<Void> insert(Transaction transaction) {
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(INSERT_TRANSACTION)
+                .bind(0, transaction.getId())
+                .bind(1, transaction.getAccountNumberFrom())
+                .bind(2, transaction.getAccountNumberTo())
+                .bind(3, transaction.getTime())
+                .bind(4, transaction.getAmount().minorUnits())
+                .bind(5, transaction.getOperation().name());
+        if (transaction.getIdempotencyKey() == null) {
+            return statement.bindNull(6, String.class).then();
+        }
+        return statement.bind(6, transaction.getIdempotencyKey()).then()
+                .then(databaseClient.sql(INSERT_IDEMPOTENCY_KEY)
+                        .bind(0, transaction.getIdempotencyKey())
+                        .bind(1, transaction.getId())
+                        .bind(2, IdempotencyKey.fingerprint(transaction))
+                        .then());
+    }
+
+    private Mono<Void> update(Account account) {
+        return databaseClient.sql(UPDATE_ACCOUNT)
+                .bind(0, account.getAmount().minorUnits())
+                .bind(1, account.getJournalSeq())
+                .bind(2, account.getAccountNumber())
+                .then();
+    }
+
+    private static AccountView view(Readable row) {
+        return new AccountView(row.get("account_number", String.class), row.get("name", String.class),
+                Money.ofMinor(row.get("amount", Long.class)));
+    }
+
+    private static Account account(Readable row) {
+        Account account = new Account(row.get("account_number", String.class),
+                row.get("name", String.class),
+                Money.ofMinor(row.get("amount", Long.class)));
+        account.setVersion(row.get("version", Long.class));
+        account.setJournalSeq(row.get("journal_seq", Long.class));
+        return account;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.TransactionView;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link TransactionService} for the reactive stack. All histories are ordered by id and are read as the
+ * subscriber requests them.
+ */
+public interface ReactiveTransactionService {
+    Flux<TransactionView> getTransactions(long afterId, int limit);
+
+    Flux<TransactionView> getTransactionsByAccountNumber(String accountNumber, long afterId, int limit);
+
+    Flux<TransactionView> streamTransactions();
+
+    Flux<TransactionView> streamTransactionsByAccountNumber(String accountNumber);
+}
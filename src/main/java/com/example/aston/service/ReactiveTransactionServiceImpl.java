@@ -0,0 +1,79 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * Reads account histories as two index range scans, outgoing and incoming, merged by id like
+ * {@link TransactionServiceImpl} does. Deposits and withdrawals name the account on both sides and are read
+ * from the outgoing side only.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveTransactionServiceImpl implements ReactiveTransactionService {
+    private static final String SELECT_TRANSACTIONS = "select id, account_number_from, account_number_to, time, "
+            + "amount, operation from transactions";
+    private static final String AFTER_ID = SELECT_TRANSACTIONS + " where id > ? order by id";
+    private static final String SENT_AFTER_ID = SELECT_TRANSACTIONS
+            + " where account_number_from = ? and id > ? order by id";
+    private static final String RECEIVED_AFTER_ID = SELECT_TRANSACTIONS
+            + " where account_number_to = ? and account_number_from <> ? and id > ? order by id";
+    private static final String LIMIT = " limit ?";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<TransactionView> getTransactions(long afterId, int limit) {
+        return query(AFTER_ID + LIMIT, afterId, limit);
+    }
+
+    @Override
+    public Flux<TransactionView> getTransactionsByAccountNumber(String accountNumber, long afterId, int limit) {
+        return merge(query(SENT_AFTER_ID + LIMIT, accountNumber, afterId, limit),
+                query(RECEIVED_AFTER_ID + LIMIT, accountNumber, accountNumber, afterId, limit))
+                .take(limit);
+    }
+
+    @Override
+    public Flux<TransactionView> streamTransactions() {
+        return query(AFTER_ID, 0L);
+    }
+
+    @Override
+    public Flux<TransactionView> streamTransactionsByAccountNumber(String accountNumber) {
+        return merge(query(SENT_AFTER_ID, accountNumber, 0L),
+                query(RECEIVED_AFTER_ID, accountNumber, accountNumber, 0L));
+    }
+
+    private static Flux<TransactionView> merge(Flux<TransactionView> sent, Flux<TransactionView> received) {
+        return Flux.mergeComparing(Comparator.comparing(TransactionView::id), sent, received);
+    }
+
+    private Flux<TransactionView> query(String sql, Object... parameters) {
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement = statement.bind(i, parameters[i]);
+        }
+        return statement.map(ReactiveTransactionServiceImpl::transaction).all();
+    }
+
+    private static TransactionView transaction(Readable row) {
+        return new TransactionView(row.get("id", Long.class),
+                row.get("account_number_from", String.class),
+                row.get("account_number_to", String.class),
+                row.get("time", Instant.class),
+                Money.ofMinor(row.get("amount", Long.class)),
+                Operation.valueOf(row.get("operation", String.class)));
+    }
+}
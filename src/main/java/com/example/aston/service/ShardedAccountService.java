@@ -0,0 +1,206 @@
+package com.example.aston.service;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.shard.AccountShards;
+import com.example.aston.shard.CrossShardTransfers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sharded mode: accounts and their money movements live in {@link AccountShards}. Deposits, withdrawals and
+ * transfers between accounts of one shard are local transactions of that shard; transfers between shards go
+ * through {@link CrossShardTransfers}. Credentials stay in the main database.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${aston.sharding.enabled:false} and !${aston.ledger.enabled:false}")
+@RequiredArgsConstructor
+public class ShardedAccountService implements AccountService {
+    private static final String SELECT_ACCOUNTS = "select account_number, name, amount from accounts";
+    private static final String SELECT_ACCOUNT = SELECT_ACCOUNTS + " where account_number = ?";
+
+    private final AccountShards accountShards;
+    private final CrossShardTransfers crossShardTransfers;
+    private final AccountCredentialRepository accountCredentialRepository;
+    private final PinVerifier pinVerifier;
+    private final StatementProperties statementProperties;
+
+    @Override
+    public Optional<Account> createAccount(String name, String pinCode) {
+        if ((name == null) || (pinCode.length() != 4)) {
+            throw new WrongPinException();
+        }
+        Account account = new Account(name);
+        // A credential without an account is never looked up, so it is saved first.
+        accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), pinCode));
+        accountShards.insertAccounts(List.of(account));
+        return Optional.of(account);
+    }
+
+    /**
+     * Concatenates the shards; there is no snapshot across them.
+     */
+    @Override
+    public List<AccountView> getAccounts() {
+        List<AccountView> accounts = new ArrayList<>();
+        for (int shard = 0; shard < accountShards.count(); shard++) {
+            accounts.addAll(accountShards.query(shard, jdbc -> jdbc.query(SELECT_ACCOUNTS, (resultSet, row) ->
+                    new AccountView(resultSet.getString(1), resultSet.getString(2),
+                            Money.ofMinor(resultSet.getLong(3))))));
+        }
+        return accounts;
+    }
+
+    @Override
+    public Optional<AccountView> getAccountByAccountNumber(String accountNumber) {
+        return accountShards.query(accountShards.shardOf(accountNumber), jdbc -> jdbc.query(SELECT_ACCOUNT,
+                (resultSet, row) -> new AccountView(resultSet.getString(1), resultSet.getString(2),
+                        Money.ofMinor(resultSet.getLong(3))), accountNumber).stream().findFirst());
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        deposit(accountNumber, amount, null);
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount, String idempotencyKey) {
+        Transaction transaction = transaction(accountNumber, accountNumber, amount, Operation.DEPOSIT,
+                idempotencyKey);
+        accountShards.inTransaction(accountShards.shardOf(accountNumber), jdbc -> {
+            if (!AccountShards.addToBalance(jdbc, accountNumber, amount, businessDay(transaction))) {
+                throw new NotFoundException("Account with this number not found.");
+            }
+            return AccountShards.insertTransaction(jdbc, transaction);
+        });
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode) {
+        transfer(fromAccountNumber, toAccountNumber, amount, pinCode, null);
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String pinCode,
+                         String idempotencyKey) {
+        boolean pinMatches = pinMatches(fromAccountNumber, pinCode);
+        int shard = accountShards.shardOf(fromAccountNumber);
+        if (shard != accountShards.shardOf(toAccountNumber)) {
+            crossShardTransfers.transfer(fromAccountNumber, toAccountNumber, amount, pinMatches, idempotencyKey);
+            return;
+        }
+        Transaction transaction = transaction(fromAccountNumber, toAccountNumber, amount, Operation.TRANSFER,
+                idempotencyKey);
+        accountShards.inTransaction(shard, jdbc -> {
+            // Both rows are always locked in account number order, so opposite transfers cannot deadlock.
+            Optional<Money> fromBalance;
+            Optional<Money> toBalance;
+            if (fromAccountNumber.compareTo(toAccountNumber) <= 0) {
+                fromBalance = AccountShards.lockBalance(jdbc, fromAccountNumber);
+                toBalance = AccountShards.lockBalance(jdbc, toAccountNumber);
+            } else {
+                toBalance = AccountShards.lockBalance(jdbc, toAccountNumber);
+                fromBalance = AccountShards.lockBalance(jdbc, fromAccountNumber);
+            }
+            if (fromBalance.isEmpty() || toBalance.isEmpty()) {
+                throw new NotFoundException("Transfer error.");
+            }
+            if (!pinMatches) {
+                throw new WrongPinException();
+            }
+            if (fromBalance.get().isLessThan(amount)) {
+                throw new NotEnoughFundsException();
+            }
+            AccountShards.addToBalance(jdbc, fromAccountNumber, amount.negate(), businessDay(transaction));
+            AccountShards.addToBalance(jdbc, toAccountNumber, amount, businessDay(transaction));
+            return AccountShards.insertTransaction(jdbc, transaction);
+        });
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferDTO> transfers) {
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        for (TransferDTO transfer : transfers) {
+            TransferResultDTO.Status status;
+            try {
+                transfer(transfer.getFromAccountNumber(), transfer.getToAccountNumber(),
+                        transfer.getAmount(), transfer.getPinCode(), transfer.getIdempotencyKey());
+                status = TransferResultDTO.Status.COMPLETED;
+            } catch (NotFoundException e) {
+                status = TransferResultDTO.Status.NOT_FOUND;
+            } catch (WrongPinException e) {
+                status = TransferResultDTO.Status.WRONG_PIN;
+            } catch (NotEnoughFundsException e) {
+                status = TransferResultDTO.Status.NOT_ENOUGH_FUNDS;
+            }
+            results.add(new TransferResultDTO(transfer, status));
+        }
+        return results;
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode) {
+        withdraw(accountNumber, amount, pinCode, null);
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount, String pinCode, String idempotencyKey) {
+        boolean pinMatches = pinMatches(accountNumber, pinCode);
+        Transaction transaction = transaction(accountNumber, accountNumber, amount, Operation.WITHDRAW,
+                idempotencyKey);
+        accountShards.inTransaction(accountShards.shardOf(accountNumber), jdbc -> {
+            Money balance = AccountShards.lockBalance(jdbc, accountNumber)
+                    .orElseThrow(() -> new NotFoundException("Account with this number not found."));
+            if (balance.isLessThan(amount)) {
+                throw new NotEnoughFundsException();
+            }
+            if (!pinMatches) {
+                throw new WrongPinException();
+            }
+            AccountShards.addToBalance(jdbc, accountNumber, amount.negate(), businessDay(transaction));
+            return AccountShards.insertTransaction(jdbc, transaction);
+        });
+    }
+
+    /**
+     * Checked before the shard transaction starts, so that neither the credential lookup nor PBKDF2 runs while
+     * a row is locked.
+     */
+    private boolean pinMatches(String accountNumber, String pinCode) {
+        return pinVerifier.matches(accountCredentialRepository.findById(accountNumber).orElse(null), pinCode);
+    }
+
+    /**
+     * The id is reserved before the shard transaction starts, for the same reason as {@link #pinMatches}.
+     */
+    private Transaction transaction(String fromAccountNumber, String toAccountNumber, Money amount,
+                                    Operation operation, String idempotencyKey) {
+        Transaction transaction = new Transaction(accountShards.nextTransactionId(), fromAccountNumber,
+                toAccountNumber, Instant.now(), amount, operation);
+        transaction.setIdempotencyKey(idempotencyKey);
+        return transaction;
+    }
+
+    private LocalDate businessDay(Transaction transaction) {
+        return statementProperties.businessDay(transaction.getTime());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.StatementDTO;
+
+import java.time.LocalDate;
+
+public interface StatementService {
+    StatementDTO getStatement(String accountNumber, LocalDate from, LocalDate to);
+}
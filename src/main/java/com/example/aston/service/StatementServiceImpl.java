@@ -0,0 +1,53 @@
+package com.example.aston.service;
+
+import com.example.aston.dto.StatementDTO;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.model.DailyAggregate;
+import com.example.aston.model.DailyBalance;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.DailyAggregateRepository;
+import com.example.aston.repo.DailyBalanceRepository;
+import com.example.aston.shard.AccountShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Statements are built from the daily aggregates and closing balances only, so their cost grows with the number
+ * of days in the period and not with the number of transactions. With {@code aston.sharding.enabled} they are
+ * moved there from the shards by {@link com.example.aston.shard.ShardRelay}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class StatementServiceImpl implements StatementService {
+    private final AccountRepository accountRepository;
+    private final DailyAggregateRepository dailyAggregateRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final ObjectProvider<AccountShards> accountShards;
+
+    @Override
+    public StatementDTO getStatement(String accountNumber, LocalDate from, LocalDate to) {
+        AccountShards shards = accountShards.getIfAvailable();
+        if (shards != null ? !shards.exists(accountNumber) : !accountRepository.existsById(accountNumber)) {
+            throw new NotFoundException("Account with this number not found.");
+        }
+        Money openingBalance = dailyBalanceRepository
+                .findFirstByAccountNumberAndDayLessThanOrderByDayDesc(accountNumber, from)
+                .map(DailyBalance::getClosingBalance)
+                .orElse(Money.ZERO);
+        Money closingBalance = dailyBalanceRepository
+                .findFirstByAccountNumberAndDayLessThanEqualOrderByDayDesc(accountNumber, to)
+                .filter(balance -> !balance.getDay().isBefore(from))
+                .map(DailyBalance::getClosingBalance)
+                .orElse(openingBalance);
+        List<DailyAggregate> days = dailyAggregateRepository
+                .findByAccountNumberAndDayBetweenOrderByDayAscOperationAsc(accountNumber, from, to);
+        return new StatementDTO(accountNumber, from, to, openingBalance, closingBalance, days);
+    }
+}
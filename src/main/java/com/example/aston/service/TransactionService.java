@@ -1,10 +1,18 @@
 package com.example.aston.service;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
-import com.example.aston.model.Transaction;
+import com.example.aston.dto.TransactionView;
 
 public interface TransactionService {
-    List<Transaction> getTransactions();
-    List<Transaction> getTransactionsByAccountNumber(String accountNumber);
+    List<TransactionView> getTransactions();
+    List<TransactionView> getTransactionsByAccountNumber(String accountNumber);
+    List<TransactionView> getTransactions(long afterId, int limit);
+    List<TransactionView> getTransactionsByAccountNumber(String accountNumber, long afterId, int limit);
+    List<TransactionView> getTransactionsByAccountNumber(String accountNumber, Instant afterTime, long afterId,
+                                                         Instant to, int limit);
+    void streamTransactions(Consumer<TransactionView> consumer);
+    void streamTransactionsByAccountNumber(String accountNumber, Consumer<TransactionView> consumer);
 }
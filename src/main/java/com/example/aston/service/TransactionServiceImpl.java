@@ -1,13 +1,21 @@
 package com.example.aston.service;
 
+import com.example.aston.archive.TransactionArchive;
+import com.example.aston.dto.TransactionView;
 import com.example.aston.exception.NotFoundException;
-import com.example.aston.model.Transaction;
 import com.example.aston.repo.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -15,18 +23,103 @@ import java.util.List;
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
 
     @Override
-    public List<Transaction> getTransactions() {
-        return transactionRepository.findAll();
+    public List<TransactionView> getTransactions() {
+        return transactionRepository.findAllViews();
     }
 
     @Override
-    public List<Transaction> getTransactionsByAccountNumber(String accountNumber) {
-        List<Transaction> transactions = transactionRepository.findTransactionsByAccountNumberFrom(accountNumber);
+    public List<TransactionView> getTransactionsByAccountNumber(String accountNumber) {
+        List<TransactionView> transactions = merge(
+                transactionRepository.findTransactionsByAccountNumberFromOrderByIdAsc(accountNumber).iterator(),
+                transactionRepository.findTransactionsByAccountNumberToOrderByIdAsc(accountNumber).iterator(),
+                Integer.MAX_VALUE);
         if (transactions.isEmpty()) {
             throw new NotFoundException("No transactions found for account number: " + accountNumber);
         }
         return transactions;
     }
+
+    @Override
+    public List<TransactionView> getTransactions(long afterId, int limit) {
+        return transactionRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<TransactionView> getTransactionsByAccountNumber(String accountNumber, long afterId, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        return merge(
+                transactionRepository.findByAccountNumberFromAndIdGreaterThanOrderByIdAsc(accountNumber, afterId, page)
+                        .iterator(),
+                transactionRepository.findByAccountNumberToAndIdGreaterThanOrderByIdAsc(accountNumber, afterId, page)
+                        .iterator(),
+                limit);
+    }
+
+    /**
+     * Combines a page of the archived periods with a page of each side from the transactions table, so at most
+     * three pages are held whatever the time range. A transaction that is in both, because an archive run stopped
+     * before deleting it, is passed on once.
+     */
+    @Override
+    public List<TransactionView> getTransactionsByAccountNumber(String accountNumber, Instant afterTime, long afterId,
+                                                                Instant to, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        TreeSet<TransactionView> transactions = new TreeSet<>(TransactionView.TIME_ORDER);
+        transactions.addAll(transactionArchive.find(accountNumber, afterTime, afterId, to, limit));
+        transactions.addAll(transactionRepository.findSentAfter(accountNumber, afterTime, afterId, to, page));
+        transactions.addAll(transactionRepository.findReceivedAfter(accountNumber, afterTime, afterId, to, page));
+        return transactions.stream().limit(limit).toList();
+    }
+
+    @Override
+    public void streamTransactions(Consumer<TransactionView> consumer) {
+        try (Stream<TransactionView> transactions = transactionRepository.streamAll()) {
+            transactions.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void streamTransactionsByAccountNumber(String accountNumber, Consumer<TransactionView> consumer) {
+        try (Stream<TransactionView> sent = transactionRepository.streamByAccountNumberFrom(accountNumber);
+             Stream<TransactionView> received = transactionRepository.streamByAccountNumberTo(accountNumber)) {
+            merge(sent.iterator(), received.iterator(), consumer);
+        }
+    }
+
+    private static List<TransactionView> merge(Iterator<TransactionView> sent, Iterator<TransactionView> received,
+                                               int limit) {
+        List<TransactionView> transactions = new ArrayList<>();
+        merge(sent, received, transaction -> {
+            if (transactions.size() < limit) {
+                transactions.add(transaction);
+            }
+        });
+        return transactions;
+    }
+
+    /**
+     * Merges the outgoing and incoming sides of an account history, both ordered by id. Deposits and
+     * withdrawals are on both sides and are passed on once.
+     */
+    private static void merge(Iterator<TransactionView> sent, Iterator<TransactionView> received,
+                              Consumer<TransactionView> consumer) {
+        TransactionView nextSent = sent.hasNext() ? sent.next() : null;
+        TransactionView nextReceived = received.hasNext() ? received.next() : null;
+        while (nextSent != null || nextReceived != null) {
+            int order = nextSent == null ? 1 : nextReceived == null ? -1
+                    : nextSent.id().compareTo(nextReceived.id());
+            if (order <= 0) {
+                consumer.accept(nextSent);
+                nextSent = sent.hasNext() ? sent.next() : null;
+            } else {
+                consumer.accept(nextReceived);
+            }
+            if (order >= 0) {
+                nextReceived = received.hasNext() ? received.next() : null;
+            }
+        }
+    }
 }
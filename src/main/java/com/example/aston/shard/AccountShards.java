@@ -0,0 +1,257 @@
+package com.example.aston.shard;
+
+import com.example.aston.config.ShardingProperties;
+import com.example.aston.config.StatementProperties;
+import com.example.aston.config.TransferProperties;
+import com.example.aston.model.Account;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Money;
+import com.example.aston.model.Transaction;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * The shard databases of {@code aston.sharding}, each with its own connection pool and the schema from
+ * {@code db/shard/schema.sql}. Everything goes through one {@link ShardRoutingDataSource}, so a single
+ * transaction manager and {@link JdbcTemplate} serve all shards.
+ * <p>
+ * None of this is registered as a bean of its own: the main data source, JPA and Flyway keep working on the
+ * main database, which still holds credentials and everything else that is not an account balance. Shard
+ * transactions take their ids from the main {@code transactions_seq} and are moved there by {@link ShardRelay};
+ * idempotency keys stay on the shard of the account, where {@link #findIdempotencyKey} looks them up.
+ */
+@Component
+@ConditionalOnExpression("${aston.sharding.enabled:false} and !${aston.ledger.enabled:false}")
+public class AccountShards {
+    private static final Logger logger = LoggerFactory.getLogger(AccountShards.class);
+    private static final String INSERT_ACCOUNT = """
+            insert into accounts (account_number, name, amount)
+            select cast(? as varchar), cast(? as varchar), cast(? as bigint)
+            where not exists (select 1 from accounts where account_number = ?)""";
+    private static final String SELECT_FOR_UPDATE = "select amount from accounts where account_number = ? for update";
+    private static final String EXISTS = "select count(*) from accounts where account_number = ?";
+    private static final String ADD_TO_BALANCE = "update accounts set amount = amount + ? where account_number = ?";
+    private static final String MERGE_BALANCE = """
+            merge into daily_balances (account_number, business_day, closing_balance) key (account_number, business_day)
+            select account_number, cast(? as date), amount from accounts where account_number = ?
+            """;
+    private static final String INSERT_TRANSACTION = """
+            insert into transactions (id, account_number_from, account_number_to, time, amount, operation,
+                idempotency_key) values (?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_KEY = """
+            insert into idempotency_keys (idempotency_key, transaction_id, fingerprint) values (?, ?, ?)
+            """;
+    private static final String SELECT_KEY = """
+            select idempotency_key, transaction_id, fingerprint from idempotency_keys where idempotency_key = ?
+            """;
+    private static final String NEXT_TRANSACTION_ID = "select next value for transactions_seq";
+    private static final long BACKOFF_NANOS = 200_000;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate mainJdbcTemplate;
+    private final TransferProperties transferProperties;
+    private final StatementProperties statementProperties;
+
+    public AccountShards(ShardingProperties shardingProperties, TransferProperties transferProperties,
+                         StatementProperties statementProperties, JdbcTemplate mainJdbcTemplate) {
+        if (shardingProperties.getShards() < 1) {
+            throw new IllegalArgumentException("aston.sharding.shards must be positive");
+        }
+        this.transferProperties = transferProperties;
+        this.mainJdbcTemplate = mainJdbcTemplate;
+        this.statementProperties = statementProperties;
+        Map<Object, Object> targets = new HashMap<>();
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/shard/schema.sql"));
+        for (int shard = 0; shard < shardingProperties.getShards(); shard++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + shard);
+            config.setJdbcUrl(shardingProperties.getUrl().replace("{shard}", String.valueOf(shard)));
+            config.setUsername("sa");
+            config.setMaximumPoolSize(shardingProperties.getPoolSize());
+            HikariDataSource dataSource = new HikariDataSource(config);
+            dataSources.add(dataSource);
+            schema.execute(dataSource);
+            targets.put(shard, dataSource);
+        }
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.afterPropertiesSet();
+        this.jdbcTemplate = new JdbcTemplate(routingDataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+        logger.info("Using {} account shards", dataSources.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    public int count() {
+        return dataSources.size();
+    }
+
+    public int shardOf(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), dataSources.size());
+    }
+
+    /**
+     * Runs {@code work} in a local transaction of {@code shard}. A transaction that lost a lock wait is retried
+     * up to {@code aston.transfer.max-attempts} times, so {@code work} must not have effects outside the shard.
+     */
+    public <T> T inTransaction(int shard, Function<JdbcTemplate, T> work) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return routingDataSource.on(shard, () -> transactionTemplate.execute(status -> work.apply(jdbcTemplate)));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferProperties.getMaxAttempts()) {
+                    throw e;
+                }
+                logger.debug("Conflict on shard {}, attempt {}: {}", shard, attempt, e.getMessage());
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(BACKOFF_NANOS * attempt));
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Runs {@code work} on {@code shard} in auto-commit mode.
+     */
+    public <T> T query(int shard, Function<JdbcTemplate, T> work) {
+        return routingDataSource.on(shard, () -> work.apply(jdbcTemplate));
+    }
+
+    /**
+     * Inserts new accounts into their shards, one batch per shard; accounts that already exist are skipped.
+     * The amount of every inserted account is recorded in the same shard transaction as today's closing balance.
+     * Credentials are saved separately in the main database.
+     *
+     * @return the accounts that were inserted
+     */
+    public List<Account> insertAccounts(Collection<Account> accounts) {
+        List<List<Account>> batches = new ArrayList<>();
+        for (int shard = 0; shard < count(); shard++) {
+            batches.add(new ArrayList<>());
+        }
+        for (Account account : accounts) {
+            batches.get(shardOf(account.getAccountNumber())).add(account);
+        }
+        List<Account> inserted = new ArrayList<>(accounts.size());
+        for (int shard = 0; shard < count(); shard++) {
+            List<Account> batch = batches.get(shard);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            LocalDate today = statementProperties.today();
+            inserted.addAll(inTransaction(shard, jdbc -> {
+                int[] counts = jdbc.batchUpdate(INSERT_ACCOUNT, batch.stream()
+                        .map(account -> new Object[]{account.getAccountNumber(), account.getName(),
+                                account.getAmount().minorUnits(), account.getAccountNumber()})
+                        .toList());
+                List<Account> insertedOnShard = new ArrayList<>(batch.size());
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        insertedOnShard.add(batch.get(i));
+                    }
+                }
+                jdbc.batchUpdate(MERGE_BALANCE, insertedOnShard.stream()
+                        .map(account -> new Object[]{today, account.getAccountNumber()})
+                        .toList());
+                return insertedOnShard;
+            }));
+        }
+        return inserted;
+    }
+
+    public boolean exists(String accountNumber) {
+        return query(shardOf(accountNumber), jdbc -> jdbc.queryForObject(EXISTS, Long.class, accountNumber)) > 0;
+    }
+
+    /**
+     * Reserves an id from the main {@code transactions_seq}, so that shard transactions keep their ids when
+     * they are moved there.
+     */
+    public long nextTransactionId() {
+        return mainJdbcTemplate.queryForObject(NEXT_TRANSACTION_ID, Long.class);
+    }
+
+    /**
+     * Looks {@code idempotencyKey} up on every shard, since the key does not tell which account took it.
+     */
+    public Optional<IdempotencyKey> findIdempotencyKey(String idempotencyKey) {
+        for (int shard = 0; shard < count(); shard++) {
+            Optional<IdempotencyKey> taken = query(shard, jdbc -> jdbc.query(SELECT_KEY,
+                    (resultSet, row) -> new IdempotencyKey(resultSet.getString(1), resultSet.getLong(2),
+                            resultSet.getString(3)), idempotencyKey).stream().findFirst());
+            if (taken.isPresent()) {
+                return taken;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Balance of {@code accountNumber}, row-locked until the end of the current shard transaction.
+     */
+    public static Optional<Money> lockBalance(JdbcTemplate jdbc, String accountNumber) {
+        return Optional.ofNullable(jdbc.query(SELECT_FOR_UPDATE,
+                resultSet -> resultSet.next() ? Money.ofMinor(resultSet.getLong(1)) : null, accountNumber));
+    }
+
+    /**
+     * Adds {@code amount}, which may be negative, to the balance of {@code accountNumber} and records the new
+     * balance as the closing balance of {@code businessDay}.
+     *
+     * @return false if there is no such account on the shard
+     */
+    public static boolean addToBalance(JdbcTemplate jdbc, String accountNumber, Money amount, LocalDate businessDay) {
+        if (jdbc.update(ADD_TO_BALANCE, amount.minorUnits(), accountNumber) != 1) {
+            return false;
+        }
+        jdbc.update(MERGE_BALANCE, businessDay, accountNumber);
+        return true;
+    }
+
+    /**
+     * Inserts {@code transaction}, whose id must come from {@link #nextTransactionId}, and takes its idempotency
+     * key. A key that is already taken on the shard fails the insert with a
+     * {@link org.springframework.dao.DuplicateKeyException}, which rolls back the movement.
+     *
+     * @return the id of the transaction
+     */
+    public static long insertTransaction(JdbcTemplate jdbc, Transaction transaction) {
+        jdbc.update(INSERT_TRANSACTION, transaction.getId(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount().minorUnits(),
+                transaction.getOperation().name(), transaction.getIdempotencyKey());
+        if (transaction.getIdempotencyKey() != null) {
+            jdbc.update(INSERT_KEY, transaction.getIdempotencyKey(), transaction.getId(),
+                    IdempotencyKey.fingerprint(transaction));
+        }
+        return transaction.getId();
+    }
+}
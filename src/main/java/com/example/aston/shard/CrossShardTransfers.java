@@ -0,0 +1,231 @@
+package com.example.aston.shard;
+
+import com.example.aston.config.ShardingProperties;
+import com.example.aston.config.StatementProperties;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between accounts on different shards as a saga of local transactions:
+ * <ol>
+ *     <li>on the sender's shard the checks are made, the sender is debited, and the transfer and a
+ *     {@code DEBITED} saga row are inserted;</li>
+ *     <li>on the receiver's shard the receiver is credited together with a {@code saga_credits} row, whose
+ *     primary key makes a repeated credit a no-op;</li>
+ *     <li>on the sender's shard the saga is marked {@code COMPLETED}.</li>
+ * </ol>
+ * If the receiver does not exist, the debit is compensated: the money goes back, the transfer row is deleted and
+ * the saga is marked {@code COMPENSATED}, so the request fails as if nothing happened and its idempotency key is
+ * free again.
+ * <p>
+ * Once the debit has committed, the transfer only moves forward. A request that fails or dies after that leaves a
+ * {@code DEBITED} saga, which {@link #recover} finishes at startup and then every
+ * {@code aston.sharding.recovery-interval} once it is older than {@code aston.sharding.in-doubt-after}.
+ * Each step checks the saga state or the credit row, so a step that runs twice, or concurrently from a request
+ * and from recovery, has its effect once.
+ */
+@Component
+@ConditionalOnExpression("${aston.sharding.enabled:false} and !${aston.ledger.enabled:false}")
+public class CrossShardTransfers implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(CrossShardTransfers.class);
+    private static final String INSERT_SAGA = """
+            insert into transfer_sagas (id, account_number_from, account_number_to, amount, transaction_id, state,
+                updated) values (?, ?, ?, ?, ?, 'DEBITED', ?)
+            """;
+    private static final String INSERT_CREDIT = "insert into saga_credits (saga_id, applied) values (?, ?)";
+    private static final String SET_STATE = """
+            update transfer_sagas set state = ?, updated = ? where id = ? and state = 'DEBITED'
+            """;
+    private static final String DELETE_TRANSACTION = "delete from transactions where id = ?";
+    private static final String DELETE_KEY = "delete from idempotency_keys where transaction_id = ?";
+    private static final String SELECT_IN_DOUBT = """
+            select id, account_number_from, account_number_to, amount, transaction_id from transfer_sagas
+            where state = 'DEBITED' and updated < ? order by updated
+            """;
+
+    private final AccountShards accountShards;
+    private final ShardingProperties shardingProperties;
+    private final StatementProperties statementProperties;
+    private final ScheduledExecutorService scheduler;
+
+    public CrossShardTransfers(AccountShards accountShards, ShardingProperties shardingProperties,
+                               StatementProperties statementProperties) {
+        this.accountShards = accountShards;
+        this.shardingProperties = shardingProperties;
+        this.statementProperties = statementProperties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transfer-saga-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    record Saga(String id, String accountNumberFrom, String accountNumberTo, Money amount, long transactionId) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int recovered = recover(Instant.now());
+        if (recovered > 0) {
+            logger.info("Recovered {} cross-shard transfers", recovered);
+        }
+        long interval = shardingProperties.getRecoveryInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::recoverQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Moves {@code amount} between accounts on different shards.
+     *
+     * @throws NotFoundException if either account does not exist; nothing is left behind
+     */
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, boolean pinMatches,
+                         String idempotencyKey) {
+        Saga saga = debit(fromAccountNumber, toAccountNumber, amount, pinMatches, idempotencyKey);
+        try {
+            credit(saga);
+        } catch (NotFoundException e) {
+            compensate(saga);
+            throw new NotFoundException("Transfer error.");
+        } catch (RuntimeException e) {
+            // The receiver exists and accounts are never deleted, so recovery will finish the transfer.
+            logger.warn("Credit of cross-shard transfer {} failed, left to recovery: {}", saga.id(), e.getMessage());
+            return;
+        }
+        complete(saga);
+    }
+
+    /**
+     * Finishes the {@code DEBITED} sagas of every shard that were last updated before {@code cutoff}.
+     *
+     * @return the number of finished sagas
+     */
+    public int recover(Instant cutoff) {
+        int recovered = 0;
+        for (int shard = 0; shard < accountShards.count(); shard++) {
+            List<Saga> sagas = accountShards.query(shard,
+                    jdbc -> jdbc.query(SELECT_IN_DOUBT, (resultSet, row) -> saga(resultSet), cutoff));
+            for (Saga saga : sagas) {
+                try {
+                    try {
+                        credit(saga);
+                        complete(saga);
+                        logger.info("Completed cross-shard transfer {}", saga.id());
+                    } catch (NotFoundException e) {
+                        compensate(saga);
+                        logger.info("Compensated cross-shard transfer {} to missing account {}", saga.id(),
+                                saga.accountNumberTo());
+                    }
+                    recovered++;
+                } catch (RuntimeException e) {
+                    logger.warn("Recovery of cross-shard transfer {} failed, will retry: {}", saga.id(),
+                            e.getMessage());
+                }
+            }
+        }
+        return recovered;
+    }
+
+    private Saga debit(String fromAccountNumber, String toAccountNumber, Money amount, boolean pinMatches,
+                       String idempotencyKey) {
+        long transactionId = accountShards.nextTransactionId();
+        return accountShards.inTransaction(accountShards.shardOf(fromAccountNumber), jdbc -> {
+            Money balance = AccountShards.lockBalance(jdbc, fromAccountNumber)
+                    .orElseThrow(() -> new NotFoundException("Transfer error."));
+            if (!pinMatches) {
+                throw new WrongPinException();
+            }
+            if (balance.isLessThan(amount)) {
+                throw new NotEnoughFundsException();
+            }
+            Instant now = Instant.now();
+            AccountShards.addToBalance(jdbc, fromAccountNumber, amount.negate(), statementProperties.businessDay(now));
+            Transaction transaction = new Transaction(transactionId, fromAccountNumber, toAccountNumber, now, amount,
+                    Operation.TRANSFER);
+            transaction.setIdempotencyKey(idempotencyKey);
+            Saga saga = new Saga(UUID.randomUUID().toString(), fromAccountNumber, toAccountNumber, amount,
+                    AccountShards.insertTransaction(jdbc, transaction));
+            jdbc.update(INSERT_SAGA, saga.id(), fromAccountNumber, toAccountNumber, amount.minorUnits(),
+                    saga.transactionId(), now);
+            return saga;
+        });
+    }
+
+    /**
+     * @throws NotFoundException if the receiver does not exist
+     */
+    private void credit(Saga saga) {
+        try {
+            accountShards.inTransaction(accountShards.shardOf(saga.accountNumberTo()), jdbc -> {
+                Instant now = Instant.now();
+                jdbc.update(INSERT_CREDIT, saga.id(), now);
+                if (!AccountShards.addToBalance(jdbc, saga.accountNumberTo(), saga.amount(),
+                        statementProperties.businessDay(now))) {
+                    throw new NotFoundException("Transfer error.");
+                }
+                return null;
+            });
+        } catch (DuplicateKeyException e) {
+            logger.debug("Cross-shard transfer {} is already credited", saga.id());
+        }
+    }
+
+    private void complete(Saga saga) {
+        accountShards.inTransaction(accountShards.shardOf(saga.accountNumberFrom()),
+                jdbc -> jdbc.update(SET_STATE, "COMPLETED", Instant.now(), saga.id()));
+    }
+
+    private void compensate(Saga saga) {
+        accountShards.inTransaction(accountShards.shardOf(saga.accountNumberFrom()), jdbc -> {
+            Instant now = Instant.now();
+            if (jdbc.update(SET_STATE, "COMPENSATED", now, saga.id()) == 1) {
+                AccountShards.addToBalance(jdbc, saga.accountNumberFrom(), saga.amount(),
+                        statementProperties.businessDay(now));
+                jdbc.update(DELETE_TRANSACTION, saga.transactionId());
+                jdbc.update(DELETE_KEY, saga.transactionId());
+            }
+            return null;
+        });
+    }
+
+    private static Saga saga(ResultSet resultSet) throws SQLException {
+        return new Saga(resultSet.getString("id"), resultSet.getString("account_number_from"),
+                resultSet.getString("account_number_to"), Money.ofMinor(resultSet.getLong("amount")),
+                resultSet.getLong("transaction_id"));
+    }
+
+    private void recoverQuietly() {
+        try {
+            recover(Instant.now().minus(shardingProperties.getInDoubtAfter()));
+        } catch (RuntimeException e) {
+            logger.error("Cross-shard transfer recovery failed, will retry: {}", e.getMessage());
+        }
+    }
+}
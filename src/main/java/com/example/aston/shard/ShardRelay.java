@@ -0,0 +1,197 @@
+package com.example.aston.shard;
+
+import com.example.aston.config.ShardingProperties;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.DailyAggregateWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves transactions and closing balances from the {@link AccountShards} to the main database, where history,
+ * statements and the archive read them, in batches of {@code aston.sharding.relay-batch-size}.
+ * <p>
+ * A batch is inserted into the main database together with its daily aggregates and then deleted from the shard.
+ * Transactions are inserted only if their id is not there yet and only inserted ones are aggregated, so a batch
+ * that is moved twice, after a failure between the two steps, is counted once. A closing balance is deleted from
+ * the shard only if it has not changed since it was read. The debit of a cross-shard transfer stays on the shard
+ * until its saga is no longer {@code DEBITED}, so a compensated transfer never reaches the main database.
+ * <p>
+ * Like the {@link com.example.aston.outbox.OutboxRelay outbox relay}, this runs at startup, every
+ * {@code aston.sharding.relay-interval} and once more at shutdown; history lags behind the balances by up to one
+ * interval.
+ */
+@Component
+@ConditionalOnExpression("${aston.sharding.enabled:false} and !${aston.ledger.enabled:false}")
+public class ShardRelay implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRelay.class);
+    private static final String SELECT_TRANSACTIONS = """
+            select id, account_number_from, account_number_to, time, amount, operation, idempotency_key
+            from transactions t
+            where not exists (select 1 from transfer_sagas s where s.transaction_id = t.id and s.state = 'DEBITED')
+            order by id limit ?
+            """;
+    private static final String INSERT_TRANSACTION = """
+            insert into transactions (id, account_number_from, account_number_to, time, amount, operation,
+                idempotency_key)
+            select cast(? as bigint), cast(? as varchar), cast(? as varchar), cast(? as timestamp(6) with time zone),
+                cast(? as bigint), cast(? as varchar), cast(? as varchar)
+            where not exists (select 1 from transactions where id = ?)""";
+    private static final String DELETE_TRANSACTION = "delete from transactions where id = ?";
+    private static final String SELECT_BALANCES = """
+            select account_number, business_day, closing_balance from daily_balances
+            order by account_number, business_day limit ?
+            """;
+    private static final String DELETE_BALANCE = """
+            delete from daily_balances where account_number = ? and business_day = ? and closing_balance = ?
+            """;
+
+    private final AccountShards accountShards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DailyAggregateWriter dailyAggregateWriter;
+    private final ShardingProperties shardingProperties;
+    private final ScheduledExecutorService scheduler;
+
+    public ShardRelay(AccountShards accountShards, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                      DailyAggregateWriter dailyAggregateWriter, ShardingProperties shardingProperties) {
+        this.accountShards = accountShards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dailyAggregateWriter = dailyAggregateWriter;
+        this.shardingProperties = shardingProperties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    record Balance(String accountNumber, LocalDate day, Money closingBalance) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long relayed = relay();
+        if (relayed > 0) {
+            logger.info("Relayed {} shard transactions left from the last run", relayed);
+        }
+        long interval = shardingProperties.getRelayInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::relayQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the relay and drains the shards once more, so that a clean shutdown leaves the history complete.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        relayQuietly();
+    }
+
+    /**
+     * Relays batches until no shard has transactions or closing balances left to move.
+     *
+     * @return the number of relayed transactions
+     */
+    public synchronized long relay() {
+        long relayed = 0;
+        for (int shard = 0; shard < accountShards.count(); shard++) {
+            relayed += relayTransactions(shard);
+            relayBalances(shard);
+        }
+        return relayed;
+    }
+
+    private long relayTransactions(int shard) {
+        int batchSize = shardingProperties.getRelayBatchSize();
+        long relayed = 0;
+        List<Transaction> batch;
+        do {
+            batch = accountShards.query(shard,
+                    jdbc -> jdbc.query(SELECT_TRANSACTIONS, ShardRelay::transaction, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            relayed += insert(batch);
+            List<Object[]> ids = batch.stream().map(transaction -> new Object[]{transaction.getId()}).toList();
+            accountShards.inTransaction(shard, jdbc -> jdbc.batchUpdate(DELETE_TRANSACTION, ids));
+        } while (batch.size() == batchSize);
+        return relayed;
+    }
+
+    private long insert(List<Transaction> batch) {
+        return transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_TRANSACTION, batch.stream().map(ShardRelay::row).toList());
+            List<Transaction> inserted = IntStream.range(0, counts.length).filter(i -> counts[i] > 0)
+                    .mapToObj(batch::get).toList();
+            dailyAggregateWriter.record(inserted, Map.of());
+            return (long) inserted.size();
+        });
+    }
+
+    private void relayBalances(int shard) {
+        int batchSize = shardingProperties.getRelayBatchSize();
+        List<Balance> batch;
+        do {
+            batch = accountShards.query(shard, jdbc -> jdbc.query(SELECT_BALANCES, (resultSet, row) ->
+                    new Balance(resultSet.getString(1), resultSet.getObject(2, LocalDate.class),
+                            Money.ofMinor(resultSet.getLong(3))), batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            Map<LocalDate, Map<String, Money>> days = new TreeMap<>();
+            batch.forEach(balance -> days.computeIfAbsent(balance.day(), day -> new TreeMap<>())
+                    .put(balance.accountNumber(), balance.closingBalance()));
+            transactionTemplate.executeWithoutResult(status -> days.forEach((day, closingBalances) ->
+                    dailyAggregateWriter.record(day, List.of(), closingBalances)));
+            List<Object[]> rows = batch.stream().map(balance -> new Object[]{balance.accountNumber(), balance.day(),
+                    balance.closingBalance().minorUnits()}).toList();
+            accountShards.inTransaction(shard, jdbc -> jdbc.batchUpdate(DELETE_BALANCE, rows));
+        } while (batch.size() == batchSize);
+    }
+
+    private static Object[] row(Transaction transaction) {
+        return new Object[]{transaction.getId(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount().minorUnits(),
+                transaction.getOperation().name(), transaction.getIdempotencyKey(), transaction.getId()};
+    }
+
+    private static Transaction transaction(ResultSet resultSet, int rowNum) throws SQLException {
+        Transaction transaction = new Transaction(resultSet.getLong("id"), resultSet.getString("account_number_from"),
+                resultSet.getString("account_number_to"), resultSet.getObject("time", Instant.class),
+                Money.ofMinor(resultSet.getLong("amount")), Operation.valueOf(resultSet.getString("operation")));
+        transaction.setIdempotencyKey(resultSet.getString("idempotency_key"));
+        return transaction;
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            logger.error("Shard relay failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.aston.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the shard selected for the current thread with {@link #on}. Transactions are bound
+ * to this data source rather than to a shard, so one thread must not work on two shards at a time.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+    <T> T on(int shard, Supplier<T> action) {
+        Integer current = currentShard.get();
+        if (current != null) {
+            throw new IllegalStateException("Already working on shard " + current + ", cannot switch to " + shard);
+        }
+        currentShard.set(shard);
+        try {
+            return action.get();
+        } finally {
+            currentShard.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = currentShard.get();
+        if (shard == null) {
+            throw new IllegalStateException("No shard selected");
+        }
+        return shard;
+    }
+}
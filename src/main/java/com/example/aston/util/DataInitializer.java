@@ -1,41 +1,57 @@
 package com.example.aston.util;
 
-import com.example.aston.model.Account;
+import com.example.aston.config.SeedProperties;
+import com.example.aston.dto.AccountImportDTO;
+import com.example.aston.dto.TransactionImportDTO;
+import com.example.aston.model.Money;
 import com.example.aston.model.Operation;
-import com.example.aston.model.Transaction;
-import com.example.aston.repo.AccountRepository;
-import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.BulkImportService;
 import lombok.AllArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.time.LocalTime;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 @AllArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
-    private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
+    private final BulkImportService bulkImportService;
+    private final SeedProperties seedProperties;
     @Override
-    public void run(String... args) {
-        Account account1 = new Account("Name Surname1", "1111");
-        account1.setAmount(BigDecimal.valueOf(1000));
-        accountRepository.save(account1);
+    public void run(String... args) throws IOException {
+        if (seedProperties.isDemo()) {
+            String accountNumber1 = UUID.randomUUID().toString();
+            String accountNumber2 = UUID.randomUUID().toString();
+            bulkImportService.importAccounts(List.of(
+                    new AccountImportDTO(accountNumber1, "Name Surname1", "1111", Money.of("1000")),
+                    new AccountImportDTO(accountNumber2, "Name Surname2", "2222", Money.of("2000"))).iterator());
+            bulkImportService.importTransactions(List.of(
+                    new TransactionImportDTO(accountNumber1, accountNumber2, Instant.now(), Money.of("500"),
+                            Operation.DEPOSIT),
+                    new TransactionImportDTO(accountNumber2, accountNumber1, Instant.now(), Money.of("500"),
+                            Operation.WITHDRAW)).iterator());
+        }
 
-        Account account2 = new Account("Name Surname2", "2222");
-        account2.setAmount(BigDecimal.valueOf(2000));
-        accountRepository.save(account2);
-
-        Transaction transaction1 = new Transaction(account1.getAccountNumber(),
-                account2.getAccountNumber(),
-                LocalTime.now(), BigDecimal.valueOf(500), Operation.DEPOSIT);
-        transactionRepository.save(transaction1);
-
-        Transaction transaction2 = new Transaction(account2.getAccountNumber(),
-                account1.getAccountNumber(),
-                LocalTime.now(), BigDecimal.valueOf(500), Operation.WITHDRAW);
-        transactionRepository.save(transaction2);
+        if (seedProperties.getAccounts() > 0) {
+            bulkImportService.generateAccounts(seedProperties.getAccounts(), Money.of(seedProperties.getAmount()));
+        }
+        if (seedProperties.getAccountsFile() != null) {
+            Resource file = seedProperties.getAccountsFile();
+            try (InputStream input = file.getInputStream()) {
+                bulkImportService.importAccounts(input, BulkImportService.Format.ofFileName(file.getFilename()));
+            }
+        }
+        if (seedProperties.getTransactionsFile() != null) {
+            Resource file = seedProperties.getTransactionsFile();
+            try (InputStream input = file.getInputStream()) {
+                bulkImportService.importTransactions(input, BulkImportService.Format.ofFileName(file.getFilename()));
+            }
+        }
     }
 }
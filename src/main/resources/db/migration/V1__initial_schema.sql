@@ -0,0 +1,62 @@
+-- Schema as of the journal and bulk import changes. The sequence increments must match aston.id.allocation-size.
+
+create sequence transactions_seq start with 1 increment by 50;
+create sequence journal_seq start with 1 increment by 50;
+
+create table accounts (
+    account_number varchar(255) not null,
+    name varchar(255),
+    pin_code varchar(4),
+    amount bigint,
+    version bigint,
+    journal_seq bigint not null,
+    primary key (account_number)
+);
+
+create table transactions (
+    id bigint not null,
+    account_number_from varchar(255),
+    account_number_to varchar(255),
+    time time(6),
+    amount bigint,
+    operation varchar(255) check (operation in ('TRANSFER', 'DEPOSIT', 'WITHDRAW')),
+    idempotency_key varchar(64),
+    primary key (id),
+    constraint uk_transactions_idempotency_key unique (idempotency_key)
+);
+create index idx_transactions_from_id on transactions (account_number_from, id);
+create index idx_transactions_to_id on transactions (account_number_to, id);
+
+create table daily_aggregates (
+    account_number varchar(255) not null,
+    business_day date not null,
+    operation varchar(255) not null check (operation in ('TRANSFER', 'DEPOSIT', 'WITHDRAW')),
+    operation_count bigint,
+    credits bigint,
+    debits bigint,
+    primary key (business_day, account_number, operation)
+);
+
+create table daily_balances (
+    account_number varchar(255) not null,
+    business_day date not null,
+    closing_balance bigint,
+    primary key (business_day, account_number)
+);
+
+create table journal (
+    seq bigint not null,
+    account_number varchar(255) not null,
+    transaction_id bigint,
+    operation varchar(255) check (operation in ('TRANSFER', 'DEPOSIT', 'WITHDRAW')),
+    delta bigint not null,
+    primary key (seq)
+);
+create index idx_journal_account_seq on journal (account_number, seq);
+
+create table account_snapshots (
+    account_number varchar(255) not null,
+    journal_seq bigint not null,
+    amount bigint,
+    primary key (account_number)
+);
@@ -0,0 +1,5 @@
+-- Transactions carry a UTC timestamp instead of a time of day. H2 dates the existing rows to the day the
+-- migration runs, which is the best that can be recovered from a time of day.
+
+alter table transactions alter column time set data type timestamp(6) with time zone;
+create index idx_transactions_time on transactions (time);
@@ -0,0 +1,13 @@
+-- Money movements waiting to be moved to the transactions table (aston.outbox.enabled).
+
+create table transaction_outbox (
+    id bigint not null,
+    account_number_from varchar(255),
+    account_number_to varchar(255),
+    time timestamp(6) with time zone,
+    amount bigint,
+    operation varchar(255) check (operation in ('TRANSFER', 'DEPOSIT', 'WITHDRAW')),
+    idempotency_key varchar(64),
+    primary key (id),
+    constraint uk_transaction_outbox_idempotency_key unique (idempotency_key)
+);
@@ -0,0 +1,17 @@
+-- Idempotency keys move to a table of their own, written in the transaction of every money movement, so that
+-- a key is unique across the outbox and the transactions table.
+
+create table idempotency_keys (
+    idempotency_key varchar(64) not null,
+    transaction_id bigint not null,
+    primary key (idempotency_key)
+);
+
+insert into idempotency_keys (idempotency_key, transaction_id)
+select idempotency_key, id from transactions where idempotency_key is not null;
+
+insert into idempotency_keys (idempotency_key, transaction_id)
+select idempotency_key, id from transaction_outbox where idempotency_key is not null;
+
+alter table transactions drop constraint uk_transactions_idempotency_key;
+alter table transaction_outbox drop constraint uk_transaction_outbox_idempotency_key;
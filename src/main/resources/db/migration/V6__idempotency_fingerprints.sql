@@ -0,0 +1,16 @@
+-- Binds every idempotency key to the request that took it. Existing keys get the fingerprint of their
+-- transaction; the expression matches IdempotencyKey.fingerprint. Keys whose transaction is no longer in the
+-- database keep none and match any request.
+
+alter table idempotency_keys add column fingerprint varchar(64);
+
+update idempotency_keys k set fingerprint = (
+    select lower(rawtohex(hash('SHA-256', t.operation || '|' || t.account_number_from || '|'
+                                          || t.account_number_to || '|' || t.amount)))
+    from transactions t where t.id = k.transaction_id);
+
+update idempotency_keys k set fingerprint = (
+    select lower(rawtohex(hash('SHA-256', o.operation || '|' || o.account_number_from || '|'
+                                          || o.account_number_to || '|' || o.amount)))
+    from transaction_outbox o where o.id = k.transaction_id)
+where fingerprint is null;
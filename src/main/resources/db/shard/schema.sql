@@ -0,0 +1,57 @@
+-- Schema of one account shard (aston.sharding.enabled=true). Applied to every shard on startup, so all
+-- statements must be repeatable.
+create table if not exists accounts (
+    account_number varchar(255) not null primary key,
+    name varchar(255),
+    amount bigint not null
+);
+
+-- Transactions not yet moved to the main database; ids come from its transactions_seq.
+create table if not exists transactions (
+    id bigint generated by default as identity primary key,
+    account_number_from varchar(255),
+    account_number_to varchar(255),
+    time timestamp(6) with time zone,
+    amount bigint,
+    operation varchar(255),
+    idempotency_key varchar(64)
+);
+
+-- Keys are taken in idempotency_keys, which outlives the moved transactions.
+create table if not exists idempotency_keys (
+    idempotency_key varchar(64) not null primary key,
+    transaction_id bigint not null,
+    fingerprint varchar(64)
+);
+
+create index if not exists idx_shard_idempotency_keys_transaction on idempotency_keys (transaction_id);
+
+-- Closing balances not yet moved to the main database.
+create table if not exists daily_balances (
+    account_number varchar(255) not null,
+    business_day date not null,
+    closing_balance bigint not null,
+    primary key (account_number, business_day)
+);
+
+create index if not exists idx_shard_transactions_from_id on transactions (account_number_from, id);
+create index if not exists idx_shard_transactions_to_id on transactions (account_number_to, id);
+
+-- Saga log of cross-shard transfers, kept on the sender's shard next to the debit.
+create table if not exists transfer_sagas (
+    id varchar(36) not null primary key,
+    account_number_from varchar(255) not null,
+    account_number_to varchar(255) not null,
+    amount bigint not null,
+    transaction_id bigint not null,
+    state varchar(16) not null,
+    updated timestamp(6) with time zone not null
+);
+
+create index if not exists idx_transfer_sagas_state_updated on transfer_sagas (state, updated);
+
+-- Credits applied on the receiver's shard; the primary key makes a retried credit a no-op.
+create table if not exists saga_credits (
+    saga_id varchar(36) not null primary key,
+    applied timestamp(6) with time zone not null
+);
@@ -1,29 +1,48 @@
 package com.example.aston;
 
+import com.example.aston.cache.AccountCache;
+import com.example.aston.config.AccountCacheProperties;
+import com.example.aston.config.PinProperties;
+import com.example.aston.config.TransferProperties;
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
 import com.example.aston.exception.WrongPinException;
 import com.example.aston.exception.NotEnoughFundsException;
 import com.example.aston.exception.NotFoundException;
+import com.example.aston.journal.Journal;
 import com.example.aston.model.Account;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.model.Money;
 import com.example.aston.model.Operation;
 import com.example.aston.model.Transaction;
+import com.example.aston.outbox.TransactionOutbox;
+import com.example.aston.repo.AccountCredentialRepository;
 import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.repo.IdempotencyKeyWriter;
 import com.example.aston.repo.TransactionRepository;
 import com.example.aston.service.AccountServiceImpl;
+import com.example.aston.service.PinVerifier;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
-import java.time.LocalTime;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +51,22 @@ class AccountServiceTest {
     private TransactionRepository transactionRepository;
     @Mock
     private AccountRepository accountRepository;
+    @Mock
+    private AccountCredentialRepository accountCredentialRepository;
+    @Mock
+    private DailyAggregateWriter dailyAggregateWriter;
+    @Mock
+    private Journal journal;
+    @Mock
+    private TransactionOutbox transactionOutbox;
+    @Mock
+    private IdempotencyKeyWriter idempotencyKeyWriter;
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+    @Spy
+    private AccountCache accountCache = new AccountCache(new AccountCacheProperties());
+    @Spy
+    private PinVerifier pinVerifier = new PinVerifier(new PinProperties());
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -41,14 +76,16 @@ class AccountServiceTest {
         String name = "name1";
         String pinCode = "1111";
 
-        Account account = new Account(name, pinCode);
+        Account account = new Account(name);
         Mockito.doReturn(account).when(accountRepository).save(any(Account.class));
 
         Optional<Account> createdAccount = accountService.createAccount(name, pinCode);
 
         assertTrue(createdAccount.isPresent());
         assertEquals(createdAccount.get().getName(), name);
-        assertEquals(createdAccount.get().getPinCode(), pinCode);
+        verify(accountCredentialRepository).save(argThat(credential ->
+                credential.getAccountNumber().equals(createdAccount.get().getAccountNumber())
+                        && pinVerifier.matches(credential, pinCode)));
 
     }
 
@@ -60,14 +97,14 @@ class AccountServiceTest {
 
     @Test
     void getAllAccounts_ReturnsAllAccountsFromRepository() {
-        Account account1 = new Account("name1", "1111");
-        Account account2 = new Account("name2", "2222");
+        AccountView account1 = AccountView.of(new Account("name1"));
+        AccountView account2 = AccountView.of(new Account("name2"));
 
-        List<Account> accountList = Arrays.asList(account1, account2);
+        List<AccountView> accountList = Arrays.asList(account1, account2);
 
-        when(accountRepository.findAll()).thenReturn(accountList);
+        when(accountRepository.findAllViews()).thenReturn(accountList);
 
-        List<Account> accounts = accountService.getAccounts();
+        List<AccountView> accounts = accountService.getAccounts();
 
         assertEquals(accountList, accounts);
     }
@@ -75,22 +112,52 @@ class AccountServiceTest {
     @Test
     void getAccountByAccountNumber_WithValidAccountNumber_ReturnsAccount() {
         String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account account = new Account(accountNumber, "Name", "1111", BigDecimal.ZERO);
+        AccountView account = new AccountView(accountNumber, "Name", Money.ZERO);
 
-        when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
+        when(accountRepository.findViewById(accountNumber)).thenReturn(Optional.of(account));
 
-        Optional<Account> accountByAccountNumber = accountService.getAccountByAccountNumber("f47ac10b-58cc-4372-a567-0e02b2c3d479");
+        Optional<AccountView> accountByAccountNumber = accountService.getAccountByAccountNumber("f47ac10b-58cc-4372-a567-0e02b2c3d479");
 
         assertTrue(accountByAccountNumber.isPresent());
         assertEquals(accountByAccountNumber.get(), account);
     }
 
+    @Test
+    void getAccountByAccountNumber_RepeatedLookup_IsServedFromCache() {
+        String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        AccountView account = new AccountView(accountNumber, "Name", Money.ZERO);
+
+        when(accountRepository.findViewById(accountNumber)).thenReturn(Optional.of(account));
+
+        accountService.getAccountByAccountNumber(accountNumber);
+        Optional<AccountView> cached = accountService.getAccountByAccountNumber(accountNumber);
+
+        assertEquals(Optional.of(account), cached);
+        verify(accountRepository, times(1)).findViewById(accountNumber);
+    }
+
+    @Test
+    void deposit_InvalidatesCachedAccount() {
+        String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account account = new Account(accountNumber, "Name", Money.ZERO);
+
+        when(accountRepository.findViewById(accountNumber)).thenReturn(Optional.of(AccountView.of(account)));
+        when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
+
+        accountService.getAccountByAccountNumber(accountNumber);
+        accountService.deposit(accountNumber, Money.of("10"));
+        accountService.getAccountByAccountNumber(accountNumber);
+
+        verify(accountCache).invalidateAfterCommit(accountNumber);
+        verify(accountRepository, times(2)).findViewById(accountNumber);
+    }
+
     @Test
     public void deposit_WithValidAccountNumber_DepositsAmountAndSavesTransaction() {
         String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        BigDecimal amountToDeposit = new BigDecimal("1000.00");
-        Account existingAccount = new Account(accountNumber, "Name123", "3333", new BigDecimal("222.22"));
-        Transaction transaction = new Transaction(accountNumber, accountNumber, LocalTime.now(), amountToDeposit, Operation.DEPOSIT);
+        Money amountToDeposit = Money.of("1000.00");
+        Account existingAccount = new Account(accountNumber, "Name123", Money.of("222.22"));
+        Transaction transaction = new Transaction(accountNumber, accountNumber, Instant.now(), amountToDeposit, Operation.DEPOSIT);
 
         when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(existingAccount));
         when(transactionRepository.save(any())).thenReturn(transaction);
@@ -98,7 +165,60 @@ class AccountServiceTest {
 
         verify(accountRepository).save(existingAccount);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
-        assertEquals(new BigDecimal("1222.22"), existingAccount.getAmount());
+        assertEquals(Money.of("1222.22"), existingAccount.getAmount());
+    }
+
+    @Test
+    void deposit_WithIdempotencyKey_StoresKeyOnTransaction() {
+        String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account account = new Account(accountNumber, "Name", Money.ZERO);
+
+        when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
+        accountService.deposit(accountNumber, Money.of("10"), "key-1");
+
+        verify(transactionRepository).save(argThat(transaction -> "key-1".equals(transaction.getIdempotencyKey())));
+    }
+
+    @Test
+    void deposit_WithOutboxEnabled_AppendsToOutboxInsteadOfTransactions() {
+        String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account account = new Account(accountNumber, "Name", Money.ZERO);
+
+        when(transactionOutbox.isEnabled()).thenReturn(true);
+        when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
+        accountService.deposit(accountNumber, Money.of("10"), "key-1");
+
+        verify(transactionOutbox).append(argThat(transactions -> transactions.size() == 1
+                && "key-1".equals(transactions.iterator().next().getIdempotencyKey())));
+        verify(transactionRepository, never()).save(any());
+        verify(journal).append(anyCollection(), anyMap());
+    }
+
+    @Test
+    void deposit_RecordsDailyAggregateWithClosingBalance() {
+        String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account account = new Account(accountNumber, "Name", Money.of("5.00"));
+
+        when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
+        accountService.deposit(accountNumber, Money.of("10"));
+
+        verify(dailyAggregateWriter).record(argThat(transactions -> transactions.size() == 1
+                        && transactions.iterator().next().getOperation() == Operation.DEPOSIT),
+                eq(Map.of(accountNumber, Money.of("15.00"))));
+    }
+
+    @Test
+    void transfer_AppendsToJournalWithBothAccounts() {
+        Account fromAccount = new Account("from", "Name", Money.of("100"));
+        Account toAccount = new Account("to", "Name", Money.of("0"));
+
+        givenPin("from", "1111");
+        when(accountRepository.findByIdForUpdate("from")).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate("to")).thenReturn(Optional.of(toAccount));
+        accountService.transfer("from", "to", Money.of("40"), "1111");
+
+        verify(journal).append(argThat(transactions -> transactions.size() == 1),
+                eq(Map.of("from", fromAccount, "to", toAccount)));
     }
 
     @Test
@@ -107,7 +227,7 @@ class AccountServiceTest {
 
         when(accountRepository.findById(accountNumber)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> accountService.deposit(accountNumber, BigDecimal.TEN));
+        assertThrows(NotFoundException.class, () -> accountService.deposit(accountNumber, Money.of("10")));
 
         verify(accountRepository, times(1)).findById(accountNumber);
     }
@@ -115,15 +235,14 @@ class AccountServiceTest {
     @Test
     void deposit_IncreasesAccountBalance() {
         String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account account = new Account(accountNumber, "Name Surname", "7777", BigDecimal.ONE);
-
+        Account account = new Account(accountNumber, "Name Surname", Money.of("1"));
 
         when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
 
-        BigDecimal amount = new BigDecimal(222);
+        Money amount = Money.of("222");
         accountService.deposit(accountNumber, amount);
 
-        BigDecimal expectedBalance = BigDecimal.valueOf(223);
+        Money expectedBalance = Money.of("223");
         assertEquals(expectedBalance, account.getAmount());
 
         verify(accountRepository, times(1)).save(account);
@@ -132,11 +251,11 @@ class AccountServiceTest {
     @Test
     void deposit_CreatesTransaction() {
         String accountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account account = new Account(accountNumber, "Name Surname", "7777", BigDecimal.TEN);
+        Account account = new Account(accountNumber, "Name Surname", Money.of("10"));
 
         when(accountRepository.findById(accountNumber)).thenReturn(Optional.of(account));
 
-        BigDecimal amount = new BigDecimal(100);
+        Money amount = Money.of("100");
         accountService.deposit(accountNumber, amount);
 
         verify(transactionRepository, times(1)).save(any(Transaction.class));
@@ -145,92 +264,163 @@ class AccountServiceTest {
     @Test
     public void transferSuccess() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
         String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
-        Account toAccount = new Account(toAccountNumber, "Name Surname2", "8888", BigDecimal.ZERO);
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
 
-        when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountNumber)).thenReturn(Optional.of(toAccount));
+        givenPin(fromAccountNumber, "7777");
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.of(toAccount));
 
-        accountService.transfer(fromAccountNumber, toAccountNumber, BigDecimal.TEN, "7777");
+        accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("10"), "7777");
 
-        assertEquals(BigDecimal.ZERO, fromAccount.getAmount());
-        assertEquals(BigDecimal.TEN, toAccount.getAmount());
+        assertEquals(Money.ZERO, fromAccount.getAmount());
+        assertEquals(Money.of("10"), toAccount.getAmount());
     }
 
     @Test
     void transfer_CreatesTransaction() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
         String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
-        Account toAccount = new Account(toAccountNumber, "Name Surname2", "8888", BigDecimal.ZERO);
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
 
-        when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountNumber)).thenReturn(Optional.of(toAccount));
+        givenPin(fromAccountNumber, "7777");
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.of(toAccount));
 
-        accountService.transfer(fromAccountNumber, toAccountNumber, BigDecimal.TEN, "7777");
+        accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("10"), "7777");
 
         verify(transactionRepository, times(1)).save(any(Transaction.class));
 
     }
 
-    @Test()
-    public void transferNotEnoughFunds() {
+    @Test
+    void transfer_WithOptimisticLocking_ReadsAccountsWithoutRowLocks() {
+        transferProperties.setLocking(TransferProperties.Locking.OPTIMISTIC);
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
         String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
-        Account toAccount = new Account(toAccountNumber, "Name Surname2", "8888", BigDecimal.ZERO);
-
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
 
+        givenPin(fromAccountNumber, "7777");
         when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
         when(accountRepository.findById(toAccountNumber)).thenReturn(Optional.of(toAccount));
 
-        assertThrows(NotEnoughFundsException.class, () -> accountService.transfer(fromAccountNumber, toAccountNumber, BigDecimal.valueOf(20), "7777"));
+        accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("10"), "7777");
+
+        verify(accountRepository, never()).findByIdForUpdate(any());
+        assertEquals(Money.ZERO, fromAccount.getAmount());
+        assertEquals(Money.of("10"), toAccount.getAmount());
     }
 
     @Test()
-    public void transferInvalidPin() {
+    public void transferNotEnoughFunds() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
         String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
-        Account toAccount = new Account(toAccountNumber, "Name Surname2", "8888", BigDecimal.ZERO);
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
 
-        when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountNumber)).thenReturn(Optional.of(toAccount));
+        givenPin(fromAccountNumber, "7777");
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.of(toAccount));
 
-        assertThrows(NotEnoughFundsException.class, () -> accountService.transfer(fromAccountNumber, toAccountNumber, BigDecimal.valueOf(20), "7777"));
+        assertThrows(NotEnoughFundsException.class, () -> accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("20"), "7777"));
     }
 
+    @Test()
+    public void transferInvalidPin() {
+        String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
+        String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
+
+        givenPin(fromAccountNumber, "7777");
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.of(toAccount));
+
+        assertThrows(NotEnoughFundsException.class, () -> accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("20"), "7777"));
+    }
 
     @Test
     public void transferAccountNotFound() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
         String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
 
-        when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountNumber)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () ->
-                accountService.transfer(fromAccountNumber, toAccountNumber, BigDecimal.TEN, "7777"));
+                accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("10"), "7777"));
+    }
+
+    @Test
+    void transfer_ChecksPinBeforeLockingRows() {
+        String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
+        String toAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
+        Account toAccount = new Account(toAccountNumber, "Name Surname2", Money.ZERO);
+
+        givenPin(fromAccountNumber, "7777");
+        when(accountRepository.findByIdForUpdate(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(toAccountNumber)).thenReturn(Optional.of(toAccount));
+
+        assertThrows(WrongPinException.class, () ->
+                accountService.transfer(fromAccountNumber, toAccountNumber, Money.of("1"), "0000"));
+
+        InOrder inOrder = inOrder(accountCredentialRepository, accountRepository);
+        inOrder.verify(accountCredentialRepository).findById(fromAccountNumber);
+        inOrder.verify(accountRepository, times(2)).findByIdForUpdate(any());
+        assertEquals(Money.of("10"), fromAccount.getAmount());
+    }
+
+    @Test
+    void transferAll_AppliesValidItemsAndReportsStatusPerItem() {
+        String firstAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d478";
+        Account firstAccount = new Account(firstAccountNumber, "Name Surname1", Money.of("10"));
+        String secondAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+        Account secondAccount = new Account(secondAccountNumber, "Name Surname2", Money.ZERO);
+        String missingAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d470";
+
+        List<AccountCredential> credentials = List.of(pinVerifier.issue(firstAccountNumber, "7777"),
+                pinVerifier.issue(secondAccountNumber, "8888"));
+        when(accountCredentialRepository.findAllById(any())).thenReturn(credentials);
+        when(accountRepository.findByIdForUpdate(firstAccountNumber)).thenReturn(Optional.of(firstAccount));
+        when(accountRepository.findByIdForUpdate(secondAccountNumber)).thenReturn(Optional.of(secondAccount));
+        when(accountRepository.findByIdForUpdate(missingAccountNumber)).thenReturn(Optional.empty());
+
+        List<TransferResultDTO> results = accountService.transferAll(List.of(
+                new TransferDTO(firstAccountNumber, secondAccountNumber, "7777", Money.of("6")),
+                new TransferDTO(firstAccountNumber, secondAccountNumber, "7777", Money.of("6")),
+                new TransferDTO(secondAccountNumber, firstAccountNumber, "1111", Money.of("1")),
+                new TransferDTO(firstAccountNumber, missingAccountNumber, "7777", Money.of("1"))));
+
+        assertEquals(List.of(TransferResultDTO.Status.COMPLETED, TransferResultDTO.Status.NOT_ENOUGH_FUNDS,
+                        TransferResultDTO.Status.WRONG_PIN, TransferResultDTO.Status.NOT_FOUND),
+                results.stream().map(TransferResultDTO::getStatus).toList());
+        assertEquals(Money.of("4"), firstAccount.getAmount());
+        assertEquals(Money.of("6"), secondAccount.getAmount());
+        verify(transactionRepository).saveAll(argThat(transactions -> ((List<?>) transactions).size() == 1));
     }
 
     @Test
     public void testWithdrawSuccess() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
 
+        givenPin(fromAccountNumber, "7777");
         when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
 
-        accountService.withdraw(fromAccountNumber, BigDecimal.TEN, fromAccount.getPinCode());
+        accountService.withdraw(fromAccountNumber, Money.of("10"), "7777");
 
-        assertEquals(BigDecimal.ZERO, fromAccount.getAmount());
+        assertEquals(Money.ZERO, fromAccount.getAmount());
     }
 
     @Test
     public void testWithdrawNotFoundException() {
         String accountNumber = "66666";
-        BigDecimal amount = new BigDecimal(100);
+        Money amount = Money.of("100");
         String pinCode = "1111";
 
         assertThrows(NotFoundException.class, () ->
@@ -241,24 +431,30 @@ class AccountServiceTest {
     @Test
     public void testWithdrawNotEnoughFundsException() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
 
         when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
 
         assertThrows(NotEnoughFundsException.class, () ->
-                accountService.withdraw(fromAccountNumber, BigDecimal.valueOf(25), fromAccount.getPinCode())
+                accountService.withdraw(fromAccountNumber, Money.of("25"), "7777")
         );
     }
 
     @Test
     public void testWithdrawInvalidPinException() {
         String fromAccountNumber = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
-        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", "7777", BigDecimal.TEN);
+        Account fromAccount = new Account(fromAccountNumber, "Name Surname1", Money.of("10"));
 
+        givenPin(fromAccountNumber, "7777");
         when(accountRepository.findById(fromAccountNumber)).thenReturn(Optional.of(fromAccount));
 
         assertThrows(WrongPinException.class, () ->
-                accountService.withdraw(fromAccountNumber, BigDecimal.TEN, "111")
+                accountService.withdraw(fromAccountNumber, Money.of("10"), "111")
         );
     }
+
+    private void givenPin(String accountNumber, String pinCode) {
+        AccountCredential credential = pinVerifier.issue(accountNumber, pinCode);
+        when(accountCredentialRepository.findById(accountNumber)).thenReturn(Optional.of(credential));
+    }
 }
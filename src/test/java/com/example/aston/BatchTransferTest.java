@@ -0,0 +1,87 @@
+package com.example.aston;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.transfer.batch-max-size=3"
+})
+@AutoConfigureMockMvc
+class BatchTransferTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void invalidItems_AreReportedAndTheRestIsApplied() throws Exception {
+        Account from = accountService.createAccount("From", "1111").orElseThrow();
+        Account to = accountService.createAccount("To", "2222").orElseThrow();
+        accountService.deposit(from.getAccountNumber(), Money.of("100.00"));
+        String body = "[{\"toAccountNumber\":\"" + to.getAccountNumber() + "\",\"pinCode\":\"1111\",\"amount\":5}"
+                + ",{\"fromAccountNumber\":\"" + from.getAccountNumber() + "\",\"toAccountNumber\":\""
+                + to.getAccountNumber() + "\",\"pinCode\":\"1111\",\"amount\":30.00}"
+                + ",{\"fromAccountNumber\":\"" + from.getAccountNumber() + "\",\"toAccountNumber\":\""
+                + to.getAccountNumber() + "\",\"pinCode\":\"1111\"}]";
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[2].status").value("INVALID"));
+
+        assertEquals(0, Money.of("70.00").compareTo(
+                accountRepository.findById(from.getAccountNumber()).orElseThrow().getAmount()));
+    }
+
+    @Test
+    void nonPositiveAmounts_AreInvalid() throws Exception {
+        Account from = accountService.createAccount("Negative from", "1111").orElseThrow();
+        Account to = accountService.createAccount("Negative to", "2222").orElseThrow();
+        accountService.deposit(to.getAccountNumber(), Money.of("100.00"));
+        String item = "{\"fromAccountNumber\":\"" + from.getAccountNumber() + "\",\"toAccountNumber\":\""
+                + to.getAccountNumber() + "\",\"pinCode\":\"1111\",\"amount\":%s}";
+        String body = "[" + String.join(",", item.formatted("-50.00"), item.formatted("0")) + "]";
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].status").value("INVALID"));
+
+        assertEquals(0, Money.ZERO.compareTo(
+                accountRepository.findById(from.getAccountNumber()).orElseThrow().getAmount()));
+        assertEquals(0, Money.of("100.00").compareTo(
+                accountRepository.findById(to.getAccountNumber()).orElseThrow().getAmount()));
+    }
+
+    @Test
+    void oversizedBatch_IsRejected() throws Exception {
+        String item = "{\"fromAccountNumber\":\"a\",\"toAccountNumber\":\"b\",\"pinCode\":\"1111\",\"amount\":1}";
+        String body = "[" + String.join(",", item, item, item, item) + "]";
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+}
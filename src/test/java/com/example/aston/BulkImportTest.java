@@ -0,0 +1,145 @@
+package com.example.aston;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.dto.StatementDTO;
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.DailyAggregate;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.seed.accounts=1000",
+        "aston.seed.amount=10.50"
+})
+@AutoConfigureMockMvc
+class BulkImportTest {
+    private static final String ACCOUNTS_CSV = """
+            accountNumber,name,pinCode,amount
+            import-1,Import One,1111,100.00
+            import-2,Import Two,2222,0
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private Journal journal;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private StatementProperties statementProperties;
+
+    @Test
+    void startup_GeneratesSeedAccountsWithJournaledBalances() {
+        Account account = accountRepository.findById("seed-1000").orElseThrow();
+        assertEquals(Money.of("10.50"), account.getAmount());
+        assertEquals(Money.of("10.50"), journalBalance("seed-1000"));
+    }
+
+    @Test
+    void seedAccounts_OpenStatementsWithTheirAmount() {
+        LocalDate today = statementProperties.today();
+
+        StatementDTO statement = statementService.getStatement("seed-7", today, today.plusDays(1));
+
+        assertEquals(Money.ZERO, statement.getOpeningBalance());
+        assertEquals(Money.of("10.50"), statement.getClosingBalance());
+        assertEquals(Money.of("10.50"),
+                statementService.getStatement("seed-7", today.plusDays(1), today.plusDays(1)).getOpeningBalance());
+    }
+
+    @Test
+    void csvAccounts_AreImportedOnceAndJournaled() throws Exception {
+        mockMvc.perform(post("/api/admin/import/accounts").contentType("text/csv").content(ACCOUNTS_CSV))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.skipped").value(0));
+        mockMvc.perform(post("/api/admin/import/accounts").contentType("text/csv").content(ACCOUNTS_CSV))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.skipped").value(2));
+
+        assertEquals(Money.of("100.00"), accountRepository.findById("import-1").orElseThrow().getAmount());
+        assertEquals(Money.of("100.00"), journalBalance("import-1"));
+        jdbcTemplate.update("update accounts set amount = 0 where account_number = 'import-1'");
+        journal.rebuild(false);
+        assertEquals(Money.of("100.00"), accountRepository.findById("import-1").orElseThrow().getAmount());
+    }
+
+    @Test
+    void ndjsonTransactions_AreImportedIntoStatements() throws Exception {
+        long before = transactionRepository.count();
+        String body = """
+                {"accountNumberFrom":"seed-1","accountNumberTo":"seed-2","time":"2024-03-01T10:15:30Z","amount":12.34,"operation":"TRANSFER"}
+                {"accountNumberFrom":"seed-2","accountNumberTo":"seed-2","time":"2024-03-01T11:00:00Z","amount":1,"operation":"DEPOSIT"}
+                {"accountNumberFrom":"seed-2","accountNumberTo":"seed-2","time":"2024-03-02T09:00:00Z","amount":2,"operation":"WITHDRAW"}
+                """;
+
+        mockMvc.perform(post("/api/admin/import/transactions").contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        assertEquals(before + 3, transactionRepository.count());
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        List<DailyAggregate> sender = statementService.getStatement("seed-1", day, day).getDays();
+        assertEquals(1, sender.size());
+        assertEquals(Money.of("12.34"), sender.get(0).getDebits());
+        StatementDTO receiver = statementService.getStatement("seed-2", day, day.plusDays(1));
+        assertEquals(List.of(Operation.DEPOSIT, Operation.TRANSFER, Operation.WITHDRAW),
+                receiver.getDays().stream().map(DailyAggregate::getOperation).toList());
+        assertEquals(Money.of("13.34"), receiver.getDays().stream().map(DailyAggregate::getCredits)
+                .reduce(Money.ZERO, Money::plus));
+        assertEquals(Money.of("2.00"), receiver.getDays().get(2).getDebits());
+    }
+
+    @Test
+    void invalidRow_RejectsWholeFile() throws Exception {
+        String body = """
+                accountNumber,name,pinCode,amount
+                invalid-1,Valid,1111,1.00
+                invalid-2,Invalid,12,1.00
+                """;
+
+        mockMvc.perform(post("/api/admin/import/accounts").contentType("text/csv").content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Row 2: PIN must have 4 characters (0 rows imported)"));
+
+        assertFalse(accountRepository.existsById("invalid-1"));
+    }
+
+    private Money journalBalance(String accountNumber) {
+        return Money.ofMinor(jdbcTemplate.queryForObject(
+                "select sum(delta) from journal where account_number = ?", Long.class, accountNumber));
+    }
+}
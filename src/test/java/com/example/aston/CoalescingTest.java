@@ -0,0 +1,116 @@
+package com.example.aston;
+
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.CoalescingAccountService;
+import com.example.aston.service.PinVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:coalescing;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.coalescing.enabled=true",
+        "aston.coalescing.window=200us"
+})
+class CoalescingTest {
+    private static final int SENDERS = 32;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 1_000;
+    private static final Money INITIAL_BALANCE = Money.of("50");
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountCredentialRepository accountCredentialRepository;
+    @Autowired
+    private PinVerifier pinVerifier;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void hotReceiverTransfers_AreGroupedAndCheckedOneByOne() throws Exception {
+        assertInstanceOf(CoalescingAccountService.class, accountService);
+        String receiver = accountService.createAccount("Merchant", "9999").orElseThrow().getAccountNumber();
+        List<String> senders = new ArrayList<>();
+        for (int i = 0; i < SENDERS; i++) {
+            Account account = new Account("Sender " + i);
+            account.setAmount(INITIAL_BALANCE);
+            senders.add(accountRepository.save(account).getAccountNumber());
+            accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), "1111"));
+        }
+        long transactionsBefore = transactionRepository.count();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicLong received = new AtomicLong();
+        AtomicInteger remaining = new AtomicInteger(TRANSFERS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0) {
+                    Money amount = Money.ofMinor(random.nextInt(1, 10) * 100L);
+                    boolean wrongPin = random.nextInt(20) == 0;
+                    try {
+                        accountService.transfer(senders.get(random.nextInt(SENDERS)), receiver, amount,
+                                wrongPin ? "0000" : "1111");
+                        assertFalse(wrongPin);
+                        completed.incrementAndGet();
+                        received.addAndGet(amount.minorUnits());
+                    } catch (WrongPinException e) {
+                        assertTrue(wrongPin);
+                        rejected.incrementAndGet();
+                    } catch (NotEnoughFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertEquals(TRANSFERS, completed.get() + rejected.get());
+        Account merchant = accountRepository.findById(receiver).orElseThrow();
+        assertEquals(Money.ofMinor(received.get()), merchant.getAmount());
+        Money sendersTotal = accountRepository.findAllById(senders).stream()
+                .peek(account -> assertFalse(account.getAmount().isLessThan(Money.ZERO)))
+                .map(Account::getAmount)
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(Money.ofMinor(INITIAL_BALANCE.minorUnits() * SENDERS), sendersTotal.plus(merchant.getAmount()));
+        assertEquals(completed.get(), transactionRepository.count() - transactionsBefore);
+        // The receiver row is written once per group, not once per transfer.
+        assertTrue(merchant.getVersion() < completed.get(),
+                "version " + merchant.getVersion() + " for " + completed.get() + " transfers");
+    }
+}
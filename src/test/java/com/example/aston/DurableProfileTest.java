@@ -0,0 +1,116 @@
+package com.example.aston;
+
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DurableProfileTest {
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    void balances_SurviveRestart_OnMigratedSchema() {
+        String from;
+        String to;
+        try (ConfigurableApplicationContext context = start()) {
+            AccountService accountService = context.getBean(AccountService.class);
+            from = accountService.createAccount("Durable From", "1111").orElseThrow().getAccountNumber();
+            to = accountService.createAccount("Durable To", "2222").orElseThrow().getAccountNumber();
+            accountService.deposit(from, Money.of("100.00"));
+            accountService.transfer(from, to, Money.of("40.00"), "1111");
+            assertEquals(1, context.getBean(JdbcTemplate.class).queryForObject(
+                    "select count(*) from \"flyway_schema_history\" where \"version\" = '6' and \"success\"",
+                    Integer.class));
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            AccountRepository accountRepository = context.getBean(AccountRepository.class);
+            Account fromAccount = accountRepository.findById(from).orElseThrow();
+            assertEquals(Money.of("60.00"), fromAccount.getAmount());
+            assertEquals(Money.of("40.00"), accountRepository.findById(to).orElseThrow().getAmount());
+            assertEquals(2, accountRepository.count());
+        }
+    }
+
+    @Test
+    void plainTextPins_AreHashedByMigration() {
+        try (ConfigurableApplicationContext context = start("--spring.flyway.target=1",
+                "--spring.jpa.hibernate.ddl-auto=none")) {
+            context.getBean(JdbcTemplate.class).update("""
+                    insert into accounts (account_number, name, pin_code, amount, version, journal_seq)
+                    values ('legacy', 'Legacy', '4321', 10000, 0, 0)""");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                    + "where table_name = 'ACCOUNTS' and column_name = 'PIN_CODE'", Integer.class));
+            AccountService accountService = context.getBean(AccountService.class);
+            assertThrows(WrongPinException.class, () -> accountService.withdraw("legacy", Money.of("1.00"), "1111"));
+            accountService.withdraw("legacy", Money.of("1.00"), "4321");
+            assertEquals(Money.of("99.00"),
+                    context.getBean(AccountRepository.class).findById("legacy").orElseThrow().getAmount());
+        }
+    }
+
+    @Test
+    void timesOfDay_AreDatedByMigration() {
+        try (ConfigurableApplicationContext context = start("--spring.flyway.target=2",
+                "--spring.jpa.hibernate.ddl-auto=none")) {
+            context.getBean(JdbcTemplate.class).update("""
+                    insert into transactions (id, account_number_from, account_number_to, time, amount, operation)
+                    values (1, 'legacy', 'legacy', '10:15:30', 100, 'DEPOSIT')""");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            Instant time = context.getBean(TransactionRepository.class).findById(1L).orElseThrow().getTime();
+            assertEquals(LocalTime.of(10, 15, 30), LocalTime.ofInstant(time, ZoneId.systemDefault()));
+            assertEquals(1, context.getBean(TransactionService.class).getTransactionsByAccountNumber("legacy",
+                    time, 0, time.plusSeconds(1), 100).size());
+        }
+    }
+
+    @Test
+    void outboxLeftByCrash_IsRelayedAtStartup() {
+        try (ConfigurableApplicationContext context = start()) {
+            context.getBean(JdbcTemplate.class).update("""
+                    insert into transaction_outbox (id, account_number_from, account_number_to, time, amount, operation)
+                    values (1, 'crashed', 'crashed', current_timestamp, 100, 'DEPOSIT')""");
+        }
+
+        try (ConfigurableApplicationContext context = start("--aston.outbox.enabled=true")) {
+            assertEquals(Money.of("1.00"),
+                    context.getBean(TransactionRepository.class).findById(1L).orElseThrow().getAmount());
+            assertEquals(0, context.getBean(JdbcTemplate.class).queryForObject(
+                    "select count(*) from transaction_outbox", Integer.class));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(AstonApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Stream.concat(Stream.of("--spring.profiles.active=durable",
+                                "--aston.data-dir=" + dataDir,
+                                "--logging.level.com.example.aston.aop=OFF"), Stream.of(properties))
+                        .toArray(String[]::new));
+    }
+}
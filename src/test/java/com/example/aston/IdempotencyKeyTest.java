@@ -0,0 +1,97 @@
+package com.example.aston;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.IdempotencyKeyRepository;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF"
+})
+@AutoConfigureMockMvc
+class IdempotencyKeyTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Test
+    void repeatedTransfer_WithSameKey_MovesMoneyOnce() throws Exception {
+        Account from = accountService.createAccount("From", "1111").orElseThrow();
+        Account to = accountService.createAccount("To", "2222").orElseThrow();
+        accountService.deposit(from.getAccountNumber(), Money.of("100.00"));
+        String path = "/api/accounts/" + from.getAccountNumber() + "/transfer/" + to.getAccountNumber();
+        String body = "{\"pinCode\":\"1111\",\"amount\":30.00}";
+
+        mockMvc.perform(patch(path).header("Idempotency-Key", "transfer-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(patch(path).header("Idempotency-Key", "transfer-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        assertEquals(0, Money.of("70.00").compareTo(
+                accountRepository.findById(from.getAccountNumber()).orElseThrow().getAmount()));
+        assertTrue(idempotencyKeyRepository.existsById("transfer-1"));
+    }
+
+    @Test
+    void sameKey_WithDifferentRequest_IsRejected() throws Exception {
+        Account from = accountService.createAccount("Mismatch From", "1111").orElseThrow();
+        Account to = accountService.createAccount("Mismatch To", "2222").orElseThrow();
+        accountService.deposit(from.getAccountNumber(), Money.of("100.00"));
+        String path = "/api/accounts/" + from.getAccountNumber() + "/transfer/" + to.getAccountNumber();
+
+        mockMvc.perform(patch(path).header("Idempotency-Key", "transfer-2")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"pinCode\":\"1111\",\"amount\":30.00}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(path).header("Idempotency-Key", "transfer-2")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"pinCode\":\"1111\",\"amount\":50.00}"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(patch("/api/accounts/" + from.getAccountNumber() + "/withdraw")
+                        .header("Idempotency-Key", "transfer-2")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"pinCode\":\"1111\",\"amount\":30.00}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(0, Money.of("70.00").compareTo(
+                accountRepository.findById(from.getAccountNumber()).orElseThrow().getAmount()));
+    }
+
+    @Test
+    void rejectedWithdrawal_CanBeRetriedWithSameKey() throws Exception {
+        Account account = accountService.createAccount("Retry", "1111").orElseThrow();
+        String path = "/api/accounts/" + account.getAccountNumber() + "/withdraw";
+        String body = "{\"pinCode\":\"1111\",\"amount\":10.00}";
+
+        mockMvc.perform(patch(path).header("Idempotency-Key", "withdraw-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        accountService.deposit(account.getAccountNumber(), Money.of("10.00"));
+        mockMvc.perform(patch(path).header("Idempotency-Key", "withdraw-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aston;
+
+import com.example.aston.cache.IdempotencyStore;
+import com.example.aston.config.IdempotencyProperties;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.repo.IdempotencyKeyRepository;
+import com.example.aston.shard.AccountShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private ObjectProvider<AccountShards> accountShards;
+
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new IdempotencyStore(new IdempotencyProperties(), idempotencyKeyRepository,
+                accountShards);
+    }
+
+    @Test
+    void begin_WithNewKey_ReservesItUntilCompletedOrAborted() {
+        when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.empty());
+
+        assertEquals(IdempotencyStore.Status.NEW, idempotencyStore.begin("key", "request"));
+        assertEquals(IdempotencyStore.Status.IN_PROGRESS, idempotencyStore.begin("key", "request"));
+
+        idempotencyStore.abort("key", "request");
+        assertEquals(IdempotencyStore.Status.NEW, idempotencyStore.begin("key", "request"));
+
+        idempotencyStore.complete("key", "request");
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.begin("key", "request"));
+        verify(idempotencyKeyRepository, times(2)).findById("key");
+    }
+
+    @Test
+    void begin_WithKeyOnlyInDatabase_ReturnsCompletedAndRemembersIt() {
+        when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.of(new IdempotencyKey("key", 1L, "request")));
+
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.begin("key", "request"));
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.begin("key", "request"));
+        verify(idempotencyKeyRepository, times(1)).findById("key");
+    }
+
+    @Test
+    void begin_WithKeyOfAnotherRequest_ReturnsMismatch() {
+        when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.empty());
+        idempotencyStore.begin("key", "request");
+
+        assertEquals(IdempotencyStore.Status.MISMATCH, idempotencyStore.begin("key", "other"));
+        idempotencyStore.complete("key", "request");
+        assertEquals(IdempotencyStore.Status.MISMATCH, idempotencyStore.begin("key", "other"));
+
+        when(idempotencyKeyRepository.findById("stored")).thenReturn(Optional.of(new IdempotencyKey("stored", 1L,
+                "request")));
+        assertEquals(IdempotencyStore.Status.MISMATCH, idempotencyStore.persisted("stored", "other"));
+        assertEquals(IdempotencyStore.Status.MISMATCH, idempotencyStore.begin("stored", "other"));
+    }
+
+    @Test
+    void begin_WithKeyStoredWithoutFingerprint_MatchesAnyRequest() {
+        when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.of(new IdempotencyKey("key", 1L, null)));
+
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.begin("key", "request"));
+    }
+
+    @Test
+    void abort_AfterComplete_KeepsKeyCompleted() {
+        when(idempotencyKeyRepository.findById("key")).thenReturn(Optional.empty());
+
+        idempotencyStore.begin("key", "request");
+        idempotencyStore.complete("key", "request");
+        idempotencyStore.abort("key", "request");
+
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.begin("key", "request"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.aston;
+
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.JournalEntry;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.JournalRepository;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF"
+})
+class JournalTest {
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JournalRepository journalRepository;
+    @Autowired
+    private Journal journal;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void balances_AreRebuiltFromSnapshotAndFromFullReplay() {
+        String first = accountService.createAccount("Journal 1", "1111").orElseThrow().getAccountNumber();
+        String second = accountService.createAccount("Journal 2", "2222").orElseThrow().getAccountNumber();
+        accountService.deposit(first, Money.of("100.00"));
+        accountService.transfer(first, second, Money.of("30.00"), "1111");
+        journal.snapshot();
+        accountService.withdraw(second, Money.of("5.50"), "2222");
+        accountService.deposit(first, Money.of("1.25"));
+
+        List<JournalEntry> entries = journalRepository.findAll().stream()
+                .filter(entry -> entry.getAccountNumber().equals(first) || entry.getAccountNumber().equals(second))
+                .toList();
+        assertEquals(5, entries.size());
+        assertEquals(entries.stream().filter(entry -> entry.getAccountNumber().equals(first))
+                        .mapToLong(JournalEntry::getSeq).max().orElseThrow(),
+                accountRepository.findById(first).orElseThrow().getJournalSeq());
+
+        corrupt(first, second);
+        journal.rebuild(true);
+        assertBalances(first, second);
+
+        corrupt(first, second);
+        journal.rebuild(false);
+        assertBalances(first, second);
+    }
+
+    private void corrupt(String... accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            jdbcTemplate.update("update accounts set amount = 0, journal_seq = 0 where account_number = ?",
+                    accountNumber);
+        }
+    }
+
+    private void assertBalances(String first, String second) {
+        Account firstAccount = accountRepository.findById(first).orElseThrow();
+        Account secondAccount = accountRepository.findById(second).orElseThrow();
+        assertEquals(Money.of("71.25"), firstAccount.getAmount());
+        assertEquals(Money.of("24.50"), secondAccount.getAmount());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.aston;
+
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.dto.TransferResultDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.journal.Journal;
+import com.example.aston.ledger.BalanceLedger;
+import com.example.aston.model.Account;
+import com.example.aston.model.DailyAggregate;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.DailyAggregateRepository;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.repo.DailyBalanceRepository;
+import com.example.aston.repo.IdempotencyKeyRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.LedgerAccountService;
+import com.example.aston.service.PinVerifier;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.ledger.enabled=true",
+        "aston.ledger.shards=4",
+        "aston.ledger.flush-interval=1h"
+})
+class LedgerModeTest {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerModeTest.class);
+    private static final int ACCOUNTS = 16;
+    private static final int THREADS = 32;
+    private static final int OPERATIONS = 50_000;
+    private static final Money INITIAL_BALANCE = Money.of("1000");
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private BalanceLedger balanceLedger;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountCredentialRepository accountCredentialRepository;
+    @Autowired
+    private PinVerifier pinVerifier;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private DailyAggregateRepository dailyAggregateRepository;
+    @Autowired
+    private Journal journal;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private DailyBalanceRepository dailyBalanceRepository;
+    @SpyBean
+    private DailyAggregateWriter dailyAggregateWriter;
+
+    @Test
+    void hotAccountTransfers_AreConservedAfterFlush() throws Exception {
+        assertInstanceOf(LedgerAccountService.class, accountService);
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account("Ledger " + i);
+            account.setAmount(INITIAL_BALANCE);
+            accountNumbers.add(accountRepository.save(account).getAccountNumber());
+            accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), "1111"));
+        }
+        String hotAccount = accountNumbers.get(0);
+        long transactionsBefore = transactionRepository.count();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(OPERATIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0) {
+                    String other = accountNumbers.get(random.nextInt(1, ACCOUNTS));
+                    boolean toHot = random.nextBoolean();
+                    try {
+                        accountService.transfer(toHot ? other : hotAccount, toHot ? hotAccount : other,
+                                Money.ofMinor(random.nextInt(1, 20) * 100L), "1111");
+                        completed.incrementAndGet();
+                    } catch (NotEnoughFundsException ignored) {
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        balanceLedger.flush();
+
+        Money total = accountRepository.findAllById(accountNumbers).stream()
+                .map(Account::getAmount)
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(0, Money.ofMinor(INITIAL_BALANCE.minorUnits() * ACCOUNTS).compareTo(total));
+        assertEquals(completed.get(), transactionRepository.count() - transactionsBefore);
+        List<DailyAggregate> aggregates = dailyAggregateRepository.findAll().stream()
+                .filter(aggregate -> accountNumbers.contains(aggregate.getAccountNumber()))
+                .toList();
+        assertEquals(2L * completed.get(), aggregates.stream().mapToLong(DailyAggregate::getCount).sum());
+        assertEquals(0, aggregates.stream().map(DailyAggregate::getCredits).reduce(Money.ZERO, Money::plus)
+                .compareTo(aggregates.stream().map(DailyAggregate::getDebits).reduce(Money.ZERO, Money::plus)));
+
+        logger.warn("Ledger mode, {} threads, hot account: {} transfers/sec ({} completed)",
+                THREADS, String.format("%.0f", OPERATIONS / seconds), completed.get());
+    }
+
+    @Test
+    void batchTransfers_KeepIdempotencyKeys() {
+        Account from = new Account("Ledger batch from");
+        from.setAmount(INITIAL_BALANCE);
+        accountRepository.save(from);
+        accountCredentialRepository.save(pinVerifier.issue(from.getAccountNumber(), "1111"));
+        Account to = accountRepository.save(new Account("Ledger batch to"));
+
+        List<TransferResultDTO> results = accountService.transferAll(List.of(new TransferDTO(
+                from.getAccountNumber(), to.getAccountNumber(), "1111", Money.of("10"), "ledger-batch-key")));
+        balanceLedger.flush();
+
+        assertEquals(TransferResultDTO.Status.COMPLETED, results.get(0).getStatus());
+        assertTrue(idempotencyKeyRepository.existsById("ledger-batch-key"));
+    }
+
+    @Test
+    void balanceChangedDuringFlush_IsFlushedToo() {
+        String accountNumber = accountService.createAccount("Ledger flush race", "1111").orElseThrow()
+                .getAccountNumber();
+        accountService.deposit(accountNumber, Money.of("100.00"));
+        AtomicBoolean interleaved = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Map<String, Money> closingBalances = invocation.getArgument(1);
+            if (closingBalances.containsKey(accountNumber) && interleaved.compareAndSet(false, true)) {
+                accountService.deposit(accountNumber, Money.of("50.00"));
+            }
+            return invocation.callRealMethod();
+        }).when(dailyAggregateWriter).record(anyCollection(), anyMap());
+
+        balanceLedger.flush();
+
+        assertTrue(interleaved.get());
+        assertEquals(Money.of("150.00"), accountRepository.findById(accountNumber).orElseThrow().getAmount());
+        assertEquals(Money.of("150.00"), dailyBalanceRepository
+                .findFirstByAccountNumberAndDayLessThanEqualOrderByDayDesc(accountNumber, LocalDate.now().plusDays(2))
+                .orElseThrow().getClosingBalance());
+    }
+
+    @Test
+    void flushedBalances_SurviveJournalRebuild() {
+        String from = accountService.createAccount("Ledger journal from", "1111").orElseThrow().getAccountNumber();
+        String to = accountService.createAccount("Ledger journal to", "2222").orElseThrow().getAccountNumber();
+        accountService.deposit(from, Money.of("100.00"));
+        accountService.transfer(from, to, Money.of("30.00"), "1111");
+        balanceLedger.flush();
+
+        journal.rebuild(false);
+
+        assertEquals(Money.of("70.00"), accountRepository.findById(from).orElseThrow().getAmount());
+        assertEquals(Money.of("30.00"), accountRepository.findById(to).orElseThrow().getAmount());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.aston;
+
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void prometheusEndpoint_ExposesServiceHistogramsRejectionsAndPool() throws Exception {
+        Account account = accountService.createAccount("Metrics", "1111").orElseThrow();
+        accountService.deposit(account.getAccountNumber(), Money.of("10"));
+        assertThrows(WrongPinException.class,
+                () -> accountService.withdraw(account.getAccountNumber(), Money.of("1"), "0000"));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("aston_service_seconds_bucket{class=\"AccountServiceImpl\"")))
+                .andExpect(content().string(containsString("method=\"deposit\"")))
+                .andExpect(content().string(containsString(
+                        "aston_service_rejections_total{class=\"AccountServiceImpl\",method=\"withdraw\",reason=\"WrongPinException\",}")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.aston;
+
+import com.example.aston.model.Money;
+import com.example.aston.model.MoneyConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void of_KeepsTwoDecimalPlacesExactly() {
+        assertEquals(12_345, Money.of("123.45").minorUnits());
+        assertEquals(10_000, Money.of("100").minorUnits());
+        assertEquals(Money.of("0.10"), Money.of(new BigDecimal("0.1")));
+        assertEquals(new BigDecimal("123.45"), Money.of("123.45").toBigDecimal());
+    }
+
+    @Test
+    void of_WithMoreDecimalPlacesOrOutOfRange_Throws() {
+        assertThrows(ArithmeticException.class, () -> Money.of("0.001"));
+        assertThrows(ArithmeticException.class, () -> Money.of("100000000000000000000"));
+    }
+
+    @Test
+    void arithmetic_IsExactAndChecksOverflow() {
+        assertEquals(Money.of("0.30"), Money.of("0.10").plus(Money.of("0.20")));
+        assertEquals(Money.of("-0.10"), Money.of("0.10").minus(Money.of("0.20")));
+        assertTrue(Money.of("0.10").isLessThan(Money.of("0.11")));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)));
+    }
+
+    @Test
+    void json_IsADecimalNumber() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertEquals("12.50", objectMapper.writeValueAsString(Money.of("12.5")));
+        assertEquals(Money.of("12.50"), objectMapper.readValue("12.5", Money.class));
+        assertEquals(Money.of("12.00"), objectMapper.readValue("12", Money.class));
+    }
+
+    @Test
+    void converter_StoresMinorUnits() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(1_999L, converter.convertToDatabaseColumn(Money.of("19.99")));
+        assertEquals(Money.of("19.99"), converter.convertToEntityAttribute(1_999L));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.aston;
+
+import com.example.aston.cache.IdempotencyStore;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.JournalEntry;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.OutboxEntry;
+import com.example.aston.model.Transaction;
+import com.example.aston.outbox.OutboxConsumer;
+import com.example.aston.outbox.OutboxRelay;
+import com.example.aston.repo.JournalRepository;
+import com.example.aston.repo.OutboxRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.outbox.enabled=true",
+        "aston.outbox.interval=0"
+})
+class OutboxTest {
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private JournalRepository journalRepository;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private RecordingConsumer consumer;
+
+    @TestConfiguration
+    static class Consumers {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+
+    static class RecordingConsumer implements OutboxConsumer {
+        final List<Long> received = new CopyOnWriteArrayList<>();
+        volatile boolean failNext;
+
+        @Override
+        public void accept(List<TransactionView> transactions) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("Consumer is down");
+            }
+            transactions.forEach(transaction -> received.add(transaction.id()));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        consumer.received.clear();
+    }
+
+    @Test
+    void movements_WaitInOutbox_UntilRelayed() {
+        String from = accountService.createAccount("Outbox From", "1111").orElseThrow().getAccountNumber();
+        String to = accountService.createAccount("Outbox To", "2222").orElseThrow().getAccountNumber();
+        accountService.deposit(from, Money.of("100.00"), "outbox-key");
+        String depositFingerprint = IdempotencyKey.fingerprint(Operation.DEPOSIT, from, from, Money.of("100.00"));
+        accountService.transfer(from, to, Money.of("40.00"), "1111");
+
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxEntry::getId).sorted().toList();
+        assertEquals(2, ids.size());
+        assertTrue(transactionRepository.findAllById(ids).isEmpty());
+        assertEquals(Money.of("60.00"), accountService.getAccountByAccountNumber(from).orElseThrow().amount());
+        assertEquals(ids, journalRepository.findAll().stream()
+                .filter(entry -> entry.getAccountNumber().equals(from))
+                .map(JournalEntry::getTransactionId)
+                .sorted().toList());
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.persisted("outbox-key", depositFingerprint));
+
+        assertEquals(2, outboxRelay.relay());
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(ids, consumer.received);
+        List<Transaction> relayed = transactionRepository.findAllById(ids);
+        assertEquals(ids, relayed.stream().map(Transaction::getId).sorted().toList());
+        assertEquals("outbox-key", transactionRepository.findById(ids.get(0)).orElseThrow().getIdempotencyKey());
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.persisted("outbox-key", depositFingerprint));
+    }
+
+    @Test
+    void failedDelivery_IsRepeated_WithoutDuplicatingHistory() {
+        String accountNumber = accountService.createAccount("Outbox Retry", "1111").orElseThrow().getAccountNumber();
+        accountService.deposit(accountNumber, Money.of("5.00"));
+        long id = outboxRepository.findAll().get(0).getId();
+
+        consumer.failNext = true;
+        assertThrows(IllegalStateException.class, outboxRelay::relay);
+        assertEquals(1, outboxRepository.count());
+
+        assertEquals(1, outboxRelay.relay());
+        assertEquals(List.of(id), consumer.received);
+        assertEquals(0, outboxRepository.count());
+        assertEquals(1, transactionRepository.findTransactionsByAccountNumberToOrderByIdAsc(accountNumber).size());
+    }
+
+    @Test
+    void keyOfRelayedTransaction_StillRejectsRepeat() {
+        String accountNumber = accountService.createAccount("Outbox Repeat", "1111").orElseThrow().getAccountNumber();
+        accountService.deposit(accountNumber, Money.of("1.00"), "relayed-key");
+        assertEquals(1, outboxRelay.relay());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> accountService.deposit(accountNumber, Money.of("1.00"), "relayed-key"));
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(Money.of("1.00"), accountService.getAccountByAccountNumber(accountNumber).orElseThrow().amount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.aston;
+
+import com.example.aston.config.PinProperties;
+import com.example.aston.exception.PinLockedException;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.service.PinVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PinVerifierTest {
+    private static final Duration LOCKOUT = Duration.ofMillis(300);
+
+    private PinVerifier pinVerifier;
+
+    @BeforeEach
+    void setUp() {
+        PinProperties properties = new PinProperties();
+        properties.setMaxFailedAttempts(3);
+        properties.setLockoutDuration(LOCKOUT);
+        pinVerifier = new PinVerifier(properties);
+    }
+
+    @Test
+    void issuedCredential_MatchesOnlyItsPin() {
+        AccountCredential credential = pinVerifier.issue("account", "1234");
+        AccountCredential other = pinVerifier.issue("other", "1234");
+
+        assertTrue(pinVerifier.matches(credential, "1234"));
+        assertFalse(pinVerifier.matches(credential, "4321"));
+        assertFalse(pinVerifier.matches(credential, null));
+        assertFalse(pinVerifier.matches(null, "1234"));
+        assertEquals(16, credential.getSalt().length);
+        assertEquals(32, credential.getPinHash().length);
+        assertFalse(Arrays.equals(credential.getPinHash(), other.getPinHash()));
+    }
+
+    @Test
+    void repeatedCheck_IsServedFromVerifiedCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pinVerifier.bindTo(registry);
+        AccountCredential credential = pinVerifier.issue("account", "1234");
+
+        assertTrue(pinVerifier.matches(credential, "1234"));
+        assertTrue(pinVerifier.matches(credential, "1234"));
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "verified-pins").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void wrongPinsInARow_LockTheAccountUntilTheLockoutExpires() throws InterruptedException {
+        AccountCredential credential = pinVerifier.issue("account", "1234");
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(pinVerifier.matches(credential, "0000"));
+        }
+        assertThrows(PinLockedException.class, () -> pinVerifier.matches(credential, "1234"));
+
+        Thread.sleep(LOCKOUT.toMillis() * 2);
+        assertTrue(pinVerifier.matches(credential, "1234"));
+    }
+
+    @Test
+    void concurrentWrongPins_AreLimitedByTheLockout() throws Exception {
+        AccountCredential credential = pinVerifier.issue("account", "1234");
+        int guesses = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(guesses);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < guesses; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return pinVerifier.matches(credential, "0000");
+                }));
+            }
+            start.countDown();
+
+            int checked = 0;
+            int locked = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    assertFalse(result.get());
+                    checked++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(PinLockedException.class, e.getCause());
+                    locked++;
+                }
+            }
+            assertEquals(3, checked);
+            assertEquals(guesses - 3, locked);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(PinLockedException.class, () -> pinVerifier.matches(credential, "1234"));
+    }
+
+    @Test
+    void correctPin_ResetsTheFailureCount() {
+        AccountCredential credential = pinVerifier.issue("account", "1234");
+
+        assertFalse(pinVerifier.matches(credential, "0000"));
+        assertFalse(pinVerifier.matches(credential, "0000"));
+        assertTrue(pinVerifier.matches(credential, "1234"));
+        assertFalse(pinVerifier.matches(credential, "0000"));
+        assertFalse(pinVerifier.matches(credential, "0000"));
+
+        assertTrue(pinVerifier.matches(credential, "1234"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.aston;
+
+import com.example.aston.aop.TracingAspect;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.exception.WrongPinException;
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.service.ReactiveAccountService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF"
+})
+class ReactiveStackTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ReactiveAccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private Journal journal;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void moneyMovements_HaveServletSemanticsAndKeepJournalInSync() {
+        String from = create("Reactive from", "1111");
+        String to = create("Reactive to", "2222");
+
+        patch("/api/accounts/" + from + "/deposit", Map.of("amount", 100), null)
+                .expectStatus().isOk().expectBody(String.class).isEqualTo("Transfer completed.");
+        patch("/api/accounts/" + from + "/transfer/" + to, Map.of("amount", 30, "pinCode", "1111"), null)
+                .expectStatus().isOk();
+        patch("/api/accounts/" + from + "/transfer/" + to, Map.of("amount", 30, "pinCode", "0000"), null)
+                .expectStatus().isBadRequest().expectBody(String.class).isEqualTo("Transfer error: Wrong PIN.");
+        patch("/api/accounts/" + to + "/withdraw", Map.of("amount", 50, "pinCode", "2222"), null)
+                .expectStatus().isBadRequest().expectBody(String.class)
+                .isEqualTo("Withdrawal error: Insufficient funds.");
+        patch("/api/accounts/" + to + "/withdraw", Map.of("amount", 5.5, "pinCode", "2222"), null)
+                .expectStatus().isOk();
+        patch("/api/accounts/" + from + "/transfer/" + from, Map.of("amount", 1, "pinCode", "1111"), null)
+                .expectStatus().isOk();
+        patch("/api/accounts/missing/deposit", Map.of("amount", 1), null)
+                .expectStatus().isNotFound();
+
+        webTestClient.get().uri("/api/accounts/" + to).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.amount").isEqualTo(24.5);
+        webTestClient.get().uri("/api/transactions/" + from + "?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Next-After-Id")
+                .expectBodyList(TransactionView.class).hasSize(1);
+        List<TransactionView> history = webTestClient.get().uri("/api/transactions/" + to)
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(TransactionView.class).getResponseBody().collectList().block();
+        assertEquals(2, history.size());
+        assertEquals(3, webTestClient.get().uri("/api/transactions/" + from).exchange()
+                .expectBodyList(TransactionView.class).returnResult().getResponseBody().size());
+        assertTrue(history.get(0).id() < history.get(1).id());
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from daily_aggregates where account_number = ?", Integer.class, to));
+        journal.rebuild(false);
+        assertEquals(Money.of("70.00"), accountRepository.findById(from).orElseThrow().getAmount());
+        assertEquals(Money.of("24.50"), accountRepository.findById(to).orElseThrow().getAmount());
+    }
+
+    @Test
+    void repeatedTransfer_WithSameKey_MovesMoneyOnce() {
+        String from = create("Reactive key from", "1111");
+        String to = create("Reactive key to", "2222");
+        accountService.deposit(from, Money.of("100.00"), null).block();
+        String path = "/api/accounts/" + from + "/transfer/" + to;
+
+        patch(path, Map.of("amount", 30, "pinCode", "1111"), "reactive-transfer-1")
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("Idempotent-Replayed");
+        patch(path, Map.of("amount", 30, "pinCode", "1111"), "reactive-transfer-1")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Idempotent-Replayed", "true");
+
+        assertEquals(Money.of("70.00"), accountRepository.findById(from).orElseThrow().getAmount());
+    }
+
+    @Test
+    void serviceMetrics_CoverTheWholeReactiveCall() {
+        Account account = accountService.createAccount("Reactive metrics", "1111").block();
+        String accountNumber = account.getAccountNumber();
+
+        accountService.deposit(accountNumber, Money.of("10.00"), null).block();
+        Mono<Void> withdrawal = accountService.withdraw(accountNumber, Money.of("1.00"), "0000", null);
+        assertThrows(WrongPinException.class, withdrawal::block);
+
+        assertEquals(1, meterRegistry.get(TracingAspect.REJECTIONS_NAME)
+                .tag("class", "ReactiveAccountServiceImpl").tag("method", "withdraw")
+                .tag("reason", "WrongPinException").counter().count());
+        Timer deposits = meterRegistry.get(TracingAspect.TIMER_NAME)
+                .tag("class", "ReactiveAccountServiceImpl").tag("method", "deposit").tag("exception", "none")
+                .timer();
+        assertTrue(deposits.count() > 0);
+        // Assembling the Mono takes microseconds; a deposit that ran its statements takes longer.
+        assertTrue(deposits.max(TimeUnit.MICROSECONDS) > 100);
+    }
+
+    @Test
+    void concurrentTransfers_ConserveMoney() {
+        List<String> accounts = Flux.range(0, 8)
+                .concatMap(i -> accountService.createAccount("Reactive " + i, "1111"))
+                .map(Account::getAccountNumber)
+                .concatMap(accountNumber -> accountService.deposit(accountNumber, Money.of("100.00"), null)
+                        .thenReturn(accountNumber))
+                .collectList()
+                .block();
+
+        Flux.range(0, 400)
+                .flatMap(i -> accountService.transfer(accounts.get(i % 8), accounts.get((i * 3 + 1) % 8),
+                        Money.of("1.00"), "1111", null), 32)
+                .blockLast();
+
+        long total = accounts.stream()
+                .mapToLong(accountNumber -> accountRepository.findById(accountNumber).orElseThrow()
+                        .getAmount().minorUnits())
+                .sum();
+        assertEquals(Money.of("800.00").minorUnits(), total);
+    }
+
+    private String create(String name, String pinCode) {
+        webTestClient.post().uri("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", name, "pinCode", pinCode))
+                .exchange()
+                .expectStatus().isOk();
+        return jdbcTemplate.queryForObject("select account_number from accounts where name = ?", String.class, name);
+    }
+
+    private WebTestClient.ResponseSpec patch(String path, Map<String, Object> body, String idempotencyKey) {
+        WebTestClient.RequestBodySpec request = webTestClient.patch().uri(path)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return request.bodyValue(body).exchange();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.aston;
+
+import com.example.aston.model.Money;
+import com.example.aston.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:responses",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF"
+})
+class ResponseBodyTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void account_IsServedAsViewWithoutInternalFields() throws Exception {
+        String accountNumber = accountService.createAccount("Response", "1111").orElseThrow().getAccountNumber();
+        accountService.deposit(accountNumber, Money.of("12.50"));
+
+        HttpResponse<byte[]> response = get("/api/accounts/" + accountNumber);
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals("{\"accountNumber\":\"" + accountNumber + "\",\"name\":\"Response\",\"amount\":12.50}",
+                new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeHistory_IsGzipped() throws Exception {
+        String accountNumber = accountService.createAccount("Gzip", "1111").orElseThrow().getAccountNumber();
+        for (int i = 0; i < 50; i++) {
+            accountService.deposit(accountNumber, Money.of("1.00"));
+        }
+
+        HttpResponse<byte[]> response = get("/api/transactions/" + accountNumber);
+
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        String body = gunzip(response.body());
+        assertTrue(body.startsWith("[{\"id\":"), body);
+        assertTrue(response.body().length * 4 < body.length(), response.body().length + " of " + body.length());
+    }
+
+    private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.aston;
+
+import com.example.aston.cache.IdempotencyStore;
+import com.example.aston.config.StatementProperties;
+import com.example.aston.dto.AccountImportDTO;
+import com.example.aston.dto.StatementDTO;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.dto.TransferDTO;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.exception.NotFoundException;
+import com.example.aston.model.IdempotencyKey;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.BulkImportService;
+import com.example.aston.service.StatementService;
+import com.example.aston.service.TransactionService;
+import com.example.aston.shard.AccountShards;
+import com.example.aston.shard.CrossShardTransfers;
+import com.example.aston.shard.ShardRelay;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.pin.iterations=1",
+        "aston.sharding.enabled=true",
+        "aston.sharding.shards=2",
+        "aston.sharding.url=jdbc:h2:mem:sharding-{shard};DB_CLOSE_DELAY=-1",
+        "aston.sharding.recovery-interval=0",
+        "aston.sharding.relay-interval=0"
+})
+class ShardingTest {
+    private static final String INSERT_SAGA = """
+            insert into transfer_sagas (id, account_number_from, account_number_to, amount, transaction_id, state,
+                updated) values (?, ?, ?, ?, ?, 'DEBITED', ?)
+            """;
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountShards accountShards;
+    @Autowired
+    private CrossShardTransfers crossShardTransfers;
+    @Autowired
+    private ShardRelay shardRelay;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private BulkImportService bulkImportService;
+    @Autowired
+    private StatementProperties statementProperties;
+
+    @Test
+    void transfers_WithinAndAcrossShards_KeepTheTotal() {
+        String a = account(0);
+        String b = account(0);
+        String c = account(1);
+
+        accountService.transfer(a, b, Money.of("30"), "1111");
+        accountService.transfer(a, c, Money.of("20"), "1111");
+        accountService.transfer(c, b, Money.of("50"), "1111");
+        assertThrows(NotEnoughFundsException.class, () -> accountService.transfer(a, c, Money.of("51"), "1111"));
+
+        assertEquals(Money.of("50"), balance(a));
+        assertEquals(Money.of("180"), balance(b));
+        assertEquals(Money.of("70"), balance(c));
+        assertEquals(List.of("COMPLETED"), sagaStates(0, a));
+        assertEquals(List.of("COMPLETED"), sagaStates(1, c));
+        assertEquals(2, count(0, "select count(*) from accounts where account_number in (?, ?, ?)", a, b, c));
+        assertEquals(1, count(1, "select count(*) from accounts where account_number in (?, ?, ?)", a, b, c));
+    }
+
+    @Test
+    void crossShardTransfer_ToMissingAccount_IsCompensated() {
+        String a = account(0);
+        String missing = accountNumberOn(1);
+
+        assertThrows(NotFoundException.class, () -> accountService.transfer(a, missing, Money.of("40"), "1111"));
+
+        assertEquals(Money.of("100"), balance(a));
+        assertEquals(List.of("COMPENSATED"), sagaStates(0, a));
+        assertEquals(0, count(0, "select count(*) from transactions where account_number_to = ?", missing));
+    }
+
+    @Test
+    void debitedTransfers_AreFinishedByRecovery_Once() {
+        String a = account(0);
+        String c = account(1);
+        String debited = UUID.randomUUID().toString();
+        String credited = UUID.randomUUID().toString();
+        Instant abandoned = Instant.now().minusSeconds(60);
+        // A request that stopped after the debit, and one that stopped after the credit.
+        for (String saga : List.of(debited, credited)) {
+            accountShards.inTransaction(0, jdbc -> {
+                AccountShards.addToBalance(jdbc, a, Money.of("-25"), statementProperties.today());
+                long id = AccountShards.insertTransaction(jdbc, new Transaction(accountShards.nextTransactionId(),
+                        a, c, abandoned, Money.of("25"), Operation.TRANSFER));
+                return jdbc.update(INSERT_SAGA, saga, a, c, Money.of("25").minorUnits(), id, abandoned);
+            });
+        }
+        accountShards.inTransaction(1, jdbc -> {
+            AccountShards.addToBalance(jdbc, c, Money.of("25"), statementProperties.today());
+            return jdbc.update("insert into saga_credits (saga_id, applied) values (?, ?)", credited, abandoned);
+        });
+
+        assertEquals(2, crossShardTransfers.recover(Instant.now()));
+        assertEquals(0, crossShardTransfers.recover(Instant.now()));
+
+        assertEquals(Money.of("50"), balance(a));
+        assertEquals(Money.of("150"), balance(c));
+        assertEquals(List.of("COMPLETED", "COMPLETED"), sagaStates(0, a));
+    }
+
+    @Test
+    void relayedTransactions_AppearInHistoryAndStatements() {
+        String a = account(0);
+        String c = account(1);
+        accountService.transfer(a, c, Money.of("30"), "1111");
+        accountService.withdraw(c, Money.of("5"), "1111");
+
+        shardRelay.relay();
+
+        List<TransactionView> history = transactionService.getTransactionsByAccountNumber(c);
+        assertEquals(List.of(Operation.DEPOSIT, Operation.TRANSFER, Operation.WITHDRAW),
+                history.stream().map(TransactionView::operation).toList());
+        assertTrue(transactionService.getTransactions().containsAll(history));
+        assertEquals(0, count(0, "select count(*) from transactions where account_number_from = ?", a));
+        LocalDate today = statementProperties.today();
+        StatementDTO statement = statementService.getStatement(c, today, today);
+        assertEquals(Money.of("125"), statement.getClosingBalance());
+        assertEquals(Money.of("70"), statementService.getStatement(a, today, today).getClosingBalance());
+        assertEquals(0, shardRelay.relay());
+    }
+
+    @Test
+    void idempotencyKeys_AreFoundOnTheShards() {
+        String a = account(0);
+        String c = account(1);
+        String key = UUID.randomUUID().toString();
+        accountService.deposit(c, Money.of("10"), key);
+
+        assertThrows(DataIntegrityViolationException.class, () -> accountService.deposit(c, Money.of("10"), key));
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.persisted(key,
+                IdempotencyKey.fingerprint(Operation.DEPOSIT, c, c, Money.of("10"))));
+        assertEquals(IdempotencyStore.Status.MISMATCH, idempotencyStore.persisted(key,
+                IdempotencyKey.fingerprint(Operation.DEPOSIT, c, c, Money.of("20"))));
+
+        String batchKey = UUID.randomUUID().toString();
+        accountService.transferAll(List.of(new TransferDTO(a, c, "1111", Money.of("15"), batchKey)));
+        assertEquals(IdempotencyStore.Status.COMPLETED, idempotencyStore.persisted(batchKey,
+                IdempotencyKey.fingerprint(Operation.TRANSFER, a, c, Money.of("15"))));
+        shardRelay.relay();
+        assertEquals(Money.of("125"), balance(c));
+        assertThrows(DataIntegrityViolationException.class, () -> accountService.deposit(c, Money.of("10"), key));
+    }
+
+    @Test
+    void importedAccounts_GoToTheirShards() {
+        String imported = accountNumberOn(1);
+        List<AccountImportDTO> accounts = List.of(new AccountImportDTO(imported, "Imported", "2222", Money.of("40")));
+
+        assertEquals(1, bulkImportService.importAccounts(accounts.iterator()).getImported());
+        assertEquals(0, bulkImportService.importAccounts(accounts.iterator()).getImported());
+
+        assertEquals(Money.of("40"), balance(imported));
+        shardRelay.relay();
+        LocalDate today = statementProperties.today();
+        assertEquals(Money.of("40"), statementService.getStatement(imported, today, today).getClosingBalance());
+        accountService.withdraw(imported, Money.of("15"), "2222");
+        assertEquals(Money.of("25"), balance(imported));
+        shardRelay.relay();
+        assertEquals(Money.of("25"), statementService.getStatement(imported, today, today).getClosingBalance());
+    }
+
+    private String account(int shard) {
+        while (true) {
+            String accountNumber = accountService.createAccount("Sharded", "1111").orElseThrow().getAccountNumber();
+            if (accountShards.shardOf(accountNumber) == shard) {
+                accountService.deposit(accountNumber, Money.of("100"));
+                return accountNumber;
+            }
+        }
+    }
+
+    private String accountNumberOn(int shard) {
+        while (true) {
+            String accountNumber = UUID.randomUUID().toString();
+            if (accountShards.shardOf(accountNumber) == shard) {
+                return accountNumber;
+            }
+        }
+    }
+
+    private Money balance(String accountNumber) {
+        return accountService.getAccountByAccountNumber(accountNumber).orElseThrow().amount();
+    }
+
+    private List<String> sagaStates(int shard, String accountNumberFrom) {
+        return accountShards.query(shard, jdbc -> jdbc.queryForList(
+                "select state from transfer_sagas where account_number_from = ? order by state", String.class,
+                accountNumberFrom));
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        return accountShards.query(shard, jdbc -> jdbc.queryForObject(sql, Long.class, args));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.aston;
+
+import com.example.aston.config.StatementProperties;
+import com.example.aston.dto.StatementDTO;
+import com.example.aston.model.Account;
+import com.example.aston.model.DailyAggregate;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.DailyAggregateWriter;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.statement.zone=Pacific/Kiritimati"
+})
+@AutoConfigureMockMvc
+class StatementTest {
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private StatementProperties statementProperties;
+    @Autowired
+    private DailyAggregateWriter dailyAggregateWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void statement_IsBuiltFromIncrementallyMaintainedAggregates() throws Exception {
+        Account account = accountService.createAccount("Statement", "1111").orElseThrow();
+        Account other = accountService.createAccount("Other", "2222").orElseThrow();
+        accountService.deposit(account.getAccountNumber(), Money.of("100.00"));
+        accountService.deposit(account.getAccountNumber(), Money.of("50.00"));
+        accountService.withdraw(account.getAccountNumber(), Money.of("30.00"), "1111");
+        accountService.transfer(account.getAccountNumber(), other.getAccountNumber(), Money.of("20.00"), "1111");
+        LocalDate today = statementProperties.today();
+
+        StatementDTO statement = statementService.getStatement(account.getAccountNumber(), today, today);
+
+        assertEquals(0, Money.ZERO.compareTo(statement.getOpeningBalance()));
+        assertEquals(0, Money.of("100.00").compareTo(statement.getClosingBalance()));
+        Map<Operation, DailyAggregate> days = statement.getDays().stream()
+                .collect(Collectors.toMap(DailyAggregate::getOperation, Function.identity()));
+        assertEquals(2, days.get(Operation.DEPOSIT).getCount());
+        assertEquals(0, Money.of("150.00").compareTo(days.get(Operation.DEPOSIT).getCredits()));
+        assertEquals(0, Money.of("30.00").compareTo(days.get(Operation.WITHDRAW).getDebits()));
+        assertEquals(0, Money.of("20.00").compareTo(days.get(Operation.TRANSFER).getDebits()));
+
+        StatementDTO tomorrow = statementService.getStatement(account.getAccountNumber(),
+                today.plusDays(1), today.plusDays(1));
+        assertEquals(0, Money.of("100.00").compareTo(tomorrow.getOpeningBalance()));
+        assertEquals(0, Money.of("100.00").compareTo(tomorrow.getClosingBalance()));
+
+        mockMvc.perform(get("/api/accounts/" + other.getAccountNumber() + "/statement"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.closingBalance").value(20.0))
+                .andExpect(jsonPath("$.days[0].operation").value("TRANSFER"))
+                .andExpect(jsonPath("$.days[0].credits").value(20.0));
+        mockMvc.perform(get("/api/accounts/unknown/statement"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void businessDay_IsTheDayOfTheTransactionInTheConfiguredZone() {
+        Account account = accountService.createAccount("Zoned", "1111").orElseThrow();
+        // 12:00 UTC is already 02:00 of the next day at UTC+14.
+        Transaction deposit = new Transaction(account.getAccountNumber(), account.getAccountNumber(),
+                Instant.parse("2024-03-01T12:00:00Z"), Money.of("10.00"), Operation.DEPOSIT);
+        transactionTemplate.executeWithoutResult(status -> dailyAggregateWriter.record(List.of(deposit),
+                Map.of(account.getAccountNumber(), Money.of("10.00"))));
+
+        StatementDTO first = statementService.getStatement(account.getAccountNumber(),
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1));
+        StatementDTO second = statementService.getStatement(account.getAccountNumber(),
+                LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 2));
+
+        assertEquals(List.of(), first.getDays());
+        assertEquals(0, Money.ZERO.compareTo(first.getClosingBalance()));
+        assertEquals(1, second.getDays().size());
+        assertEquals(0, Money.of("10.00").compareTo(second.getClosingBalance()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.aston;
+
+import com.example.aston.archive.TransactionArchiver;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "aston.archive.retention=1d"
+})
+class TransactionArchiveTest {
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+    @TempDir
+    private static Path archiveDir;
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private TransactionService transactionService;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("aston.archive.directory", () -> archiveDir.toString());
+    }
+
+    @Test
+    void closedPeriods_MoveToSegments_AndStayQueryable() throws IOException {
+        long before = transactionRepository.count();
+        transactionRepository.saveAll(List.of(
+                transaction("2024-03-01T10:00:00Z", Operation.DEPOSIT),
+                transaction("2024-03-01T23:59:59Z", Operation.TRANSFER),
+                transaction("2024-03-08T08:00:00Z", Operation.TRANSFER),
+                transaction("2024-03-09T08:00:00Z", Operation.TRANSFER),
+                transaction("2024-03-10T08:00:00Z", Operation.TRANSFER)));
+
+        assertEquals(3, transactionArchiver.archive(NOW));
+        assertEquals(List.of("2024-03-01.0.ndjson.gz", "2024-03-08.0.ndjson.gz"), segments());
+        assertEquals(before + 2, transactionRepository.count());
+
+        byte[] firstSegment = Files.readAllBytes(archiveDir.resolve("2024-03-01.0.ndjson.gz"));
+        transactionRepository.save(transaction("2024-03-01T12:00:00Z", Operation.WITHDRAW));
+        assertEquals(1, transactionArchiver.archive(NOW));
+        assertEquals(List.of("2024-03-01.0.ndjson.gz", "2024-03-01.1.ndjson.gz", "2024-03-08.0.ndjson.gz"),
+                segments());
+        assertArrayEquals(firstSegment, Files.readAllBytes(archiveDir.resolve("2024-03-01.0.ndjson.gz")));
+
+        List<TransactionView> history = transactionService.getTransactionsByAccountNumber("archive-a",
+                Instant.parse("2024-03-01T00:00:00Z"), 0, NOW, 100);
+        assertEquals(List.of("2024-03-01T10:00:00Z", "2024-03-01T12:00:00Z", "2024-03-01T23:59:59Z",
+                        "2024-03-08T08:00:00Z", "2024-03-09T08:00:00Z", "2024-03-10T08:00:00Z"),
+                history.stream().map(transaction -> transaction.time().toString()).toList());
+        assertEquals(Money.of("12.34"), history.get(0).amount());
+        assertEquals(2, transactionService.getTransactionsByAccountNumber("archive-a",
+                Instant.parse("2024-03-01T11:00:00Z"), 0, Instant.parse("2024-03-08T08:00:00Z"), 100).size());
+
+        List<TransactionView> firstPage = transactionService.getTransactionsByAccountNumber("archive-a",
+                Instant.parse("2024-03-01T00:00:00Z"), 0, NOW, 4);
+        TransactionView last = firstPage.get(firstPage.size() - 1);
+        List<TransactionView> secondPage = transactionService.getTransactionsByAccountNumber("archive-a",
+                last.time(), last.id(), NOW, 4);
+        assertEquals(history, Stream.concat(firstPage.stream(), secondPage.stream()).toList());
+    }
+
+    private static Transaction transaction(String time, Operation operation) {
+        return new Transaction("archive-a", operation == Operation.TRANSFER ? "archive-b" : "archive-a",
+                Instant.parse(time), Money.of("12.34"), operation);
+    }
+
+    private static List<String> segments() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.aston;
 
+import com.example.aston.archive.TransactionArchive;
+import com.example.aston.dto.TransactionView;
 import com.example.aston.exception.NotFoundException;
+import com.example.aston.model.Money;
 import com.example.aston.model.Operation;
-import com.example.aston.model.Transaction;
 import com.example.aston.repo.TransactionRepository;
 import com.example.aston.service.TransactionServiceImpl;
 import org.junit.jupiter.api.Test;
@@ -10,75 +12,132 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
-import java.math.BigDecimal;
-import java.time.LocalTime;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
+    @Mock
+    private TransactionArchive transactionArchive;
 
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
     @Test
     public void testGetAllTransactions() {
-        Transaction transaction1 = new Transaction(1L, "11111", "11111",
-                LocalTime.now(), BigDecimal.TEN, Operation.DEPOSIT);
+        TransactionView transaction1 = new TransactionView(1L, "11111", "11111",
+                Instant.now(), Money.of("10"), Operation.DEPOSIT);
 
-        Transaction transaction2 = new Transaction(2L, "22222", "22222",
-                LocalTime.now(), BigDecimal.TEN, Operation.TRANSFER);
+        TransactionView transaction2 = new TransactionView(2L, "22222", "22222",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
 
-        List<Transaction> transactions = Arrays.asList(transaction1, transaction2);
+        List<TransactionView> transactions = Arrays.asList(transaction1, transaction2);
 
-        when(transactionRepository.findAll()).thenReturn(transactions);
+        when(transactionRepository.findAllViews()).thenReturn(transactions);
 
-        List<Transaction> result = transactionService.getTransactions();
+        List<TransactionView> result = transactionService.getTransactions();
 
         assertEquals(transactions, result);
     }
 
     @Test
     public void testGetAllTransactionsByAccountNumber_WhenNoTransactionsFound() {
-        List<Transaction> emptyList = Collections.emptyList();
-        when(transactionRepository.findTransactionsByAccountNumberFrom("11111")).thenReturn(emptyList);
+        List<TransactionView> emptyList = Collections.emptyList();
+        when(transactionRepository.findTransactionsByAccountNumberFromOrderByIdAsc("11111")).thenReturn(emptyList);
         assertThrows(NotFoundException.class, () -> transactionService.getTransactionsByAccountNumber("11111"));
     }
 
     @Test
     public void testGetAllTransactionsByAccountNumber_WhenMultipleTransactionsFound() {
-        Transaction transaction1 = new Transaction(1L, "11111", "11111",
-                LocalTime.now(), BigDecimal.TEN, Operation.DEPOSIT);
+        TransactionView transaction1 = new TransactionView(1L, "11111", "11111",
+                Instant.now(), Money.of("10"), Operation.DEPOSIT);
 
-        Transaction transaction2 = new Transaction(2L, "11111", "22222",
-                LocalTime.now(), BigDecimal.TEN, Operation.TRANSFER);
+        TransactionView transaction2 = new TransactionView(2L, "11111", "22222",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
 
-        when(transactionRepository.findTransactionsByAccountNumberFrom("11111")).thenReturn(Arrays.asList(transaction1, transaction2));
+        when(transactionRepository.findTransactionsByAccountNumberFromOrderByIdAsc("11111")).thenReturn(Arrays.asList(transaction1, transaction2));
 
-        List<Transaction> result = transactionService.getTransactionsByAccountNumber("11111");
+        List<TransactionView> result = transactionService.getTransactionsByAccountNumber("11111");
 
         assertEquals(Arrays.asList(transaction1, transaction2), result);
     }
 
     @Test
     public void testGetAllTransactionsByAccountNumber() {
-        Transaction transaction1 = new Transaction(1L, "11111", "11111",
-                LocalTime.now(), BigDecimal.TEN, Operation.DEPOSIT);
+        TransactionView transaction1 = new TransactionView(1L, "11111", "11111",
+                Instant.now(), Money.of("10"), Operation.DEPOSIT);
 
-        new Transaction(2L, "22222", "22222",
-                LocalTime.now(), BigDecimal.TEN, Operation.TRANSFER);
+        new TransactionView(2L, "22222", "22222",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
 
-        when(transactionRepository.findTransactionsByAccountNumberFrom("11111")).thenReturn(List.of(transaction1));
+        when(transactionRepository.findTransactionsByAccountNumberFromOrderByIdAsc("11111")).thenReturn(List.of(transaction1));
 
-        List<Transaction> result = transactionService.getTransactionsByAccountNumber("11111");
+        List<TransactionView> result = transactionService.getTransactionsByAccountNumber("11111");
 
         assertEquals(List.of(transaction1), result);
     }
+
+    @Test
+    public void testGetTransactionsPage_SeeksPastLastSeenId() {
+        TransactionView transaction = new TransactionView(42L, "11111", "22222",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
+
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(41L, PageRequest.ofSize(10)))
+                .thenReturn(List.of(transaction));
+
+        List<TransactionView> result = transactionService.getTransactions(41L, 10);
+
+        assertEquals(List.of(transaction), result);
+    }
+
+    @Test
+    public void testGetAllTransactionsByAccountNumber_MergesSentAndReceivedById() {
+        TransactionView deposit = new TransactionView(1L, "11111", "11111",
+                Instant.now(), Money.of("10"), Operation.DEPOSIT);
+        TransactionView received = new TransactionView(2L, "22222", "11111",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
+        TransactionView sent = new TransactionView(3L, "11111", "22222",
+                Instant.now(), Money.of("10"), Operation.TRANSFER);
+
+        when(transactionRepository.findTransactionsByAccountNumberFromOrderByIdAsc("11111"))
+                .thenReturn(List.of(deposit, sent));
+        when(transactionRepository.findTransactionsByAccountNumberToOrderByIdAsc("11111"))
+                .thenReturn(List.of(deposit, received));
+
+        List<TransactionView> result = transactionService.getTransactionsByAccountNumber("11111");
+
+        assertEquals(List.of(deposit, received, sent), result);
+    }
+
+    @Test
+    void timeRange_CombinesArchiveAndTableInTimeOrder() {
+        Instant from = Instant.parse("2024-03-01T00:00:00Z");
+        Instant to = Instant.parse("2024-04-01T00:00:00Z");
+        TransactionView archived = new TransactionView(7L, "11111", "22222",
+                Instant.parse("2024-03-01T10:00:00Z"), Money.of("10"), Operation.TRANSFER);
+        TransactionView deposit = new TransactionView(3L, "11111", "11111",
+                Instant.parse("2024-03-20T10:00:00Z"), Money.of("10"), Operation.DEPOSIT);
+        TransactionView received = new TransactionView(9L, "33333", "11111",
+                Instant.parse("2024-03-10T10:00:00Z"), Money.of("10"), Operation.TRANSFER);
+        when(transactionArchive.find("11111", from, 0, to, 100)).thenReturn(List.of(archived));
+        when(transactionRepository.findSentAfter(eq("11111"), eq(from), eq(0L), eq(to), any()))
+                .thenReturn(List.of(archived, deposit));
+        when(transactionRepository.findReceivedAfter(eq("11111"), eq(from), eq(0L), eq(to), any()))
+                .thenReturn(List.of(received, deposit));
+
+        List<TransactionView> result = transactionService.getTransactionsByAccountNumber("11111", from, 0, to, 100);
+
+        assertEquals(List.of(archived, received, deposit), result);
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.aston;
+
+import com.example.aston.config.TransferProperties;
+import com.example.aston.exception.NotEnoughFundsException;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.repo.TransactionRepository;
+import com.example.aston.service.AccountService;
+import com.example.aston.service.PinVerifier;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stress;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.aston.aop=OFF",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+        "aston.transfer.max-attempts=20"
+})
+class TransferStressTest {
+    private static final Logger logger = LoggerFactory.getLogger(TransferStressTest.class);
+    private static final int ACCOUNTS = 16;
+    private static final int TRANSFERS = 2_000;
+    private static final Money INITIAL_BALANCE = Money.of("1000");
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountCredentialRepository accountCredentialRepository;
+    @Autowired
+    private PinVerifier pinVerifier;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @ParameterizedTest
+    @CsvSource({
+            "PESSIMISTIC, 8", "PESSIMISTIC, 16", "PESSIMISTIC, 32", "PESSIMISTIC, 64",
+            "OPTIMISTIC, 8", "OPTIMISTIC, 16", "OPTIMISTIC, 32", "OPTIMISTIC, 64"
+    })
+    void concurrentTransfers_ConserveTotalBalance(TransferProperties.Locking locking, int threads) throws Exception {
+        transferProperties.setLocking(locking);
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account("Stress " + i);
+            account.setAmount(INITIAL_BALANCE);
+            accountNumbers.add(accountRepository.save(account).getAccountNumber());
+            accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), "1111"));
+        }
+        long transactionsBefore = transactionRepository.count();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(TRANSFERS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0) {
+                    String from = accountNumbers.get(random.nextInt(ACCOUNTS));
+                    String to = accountNumbers.get(random.nextInt(ACCOUNTS));
+                    try {
+                        accountService.transfer(from, to, Money.ofMinor(random.nextInt(1, 50) * 100L), "1111");
+                        completed.incrementAndGet();
+                    } catch (NotEnoughFundsException e) {
+                        rejected.incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        Money total = accountRepository.findAllById(accountNumbers).stream()
+                .map(Account::getAmount)
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(0, Money.ofMinor(INITIAL_BALANCE.minorUnits() * ACCOUNTS).compareTo(total));
+        assertEquals(completed.get(), transactionRepository.count() - transactionsBefore);
+        assertEquals(TRANSFERS, completed.get() + rejected.get() + conflicts.get());
+
+        logger.warn("{} locking, {} threads: {} transfers/sec ({} completed, {} rejected, {} gave up on conflicts)",
+                locking, threads, String.format("%.0f", TRANSFERS / seconds),
+                completed.get(), rejected.get(), conflicts.get());
+    }
+}
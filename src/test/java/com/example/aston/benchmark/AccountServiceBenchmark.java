@@ -0,0 +1,145 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.service.AccountService;
+import com.example.aston.shard.AccountShards;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Throughput of the money-movement operations of {@link AccountService} against H2. With {@code HOT} contention
+ * every operation hits one of the first {@value #HOT_ACCOUNTS} accounts; with {@code UNIFORM} accounts are
+ * picked uniformly; with {@code HOT_RECEIVER} senders are uniform and every transfer goes to the first account.
+ * The thread count is set with JMH's {@code -t} option. {@code -p storage=mem,durable} compares the in-memory
+ * database with the file-backed {@code durable} profile, {@code -p coalescing=false,true} toggles
+ * {@code aston.coalescing.enabled}, {@code -p outbox=false,true} toggles {@code aston.outbox.enabled} and
+ * {@code -p shards=1,2,4,8} stores the accounts in that many {@code aston.sharding} databases (0 keeps them in
+ * the main one).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class AccountServiceBenchmark {
+    private static final int HOT_ACCOUNTS = 4;
+    private static final String PIN_CODE = "1111";
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    public enum Contention {HOT, UNIFORM, HOT_RECEIVER}
+
+    @Param({"100", "10000"})
+    private int accounts;
+
+    @Param
+    private Contention contention;
+
+    @Param({"pessimistic"})
+    private String locking;
+
+    @Param({"mem"})
+    private String storage;
+
+    @Param({"false"})
+    private boolean coalescing;
+
+    @Param({"false"})
+    private boolean outbox;
+
+    @Param({"0"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountNumbers;
+    private Path dataDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] properties = {
+                "aston.transfer.locking=" + locking,
+                "aston.transfer.max-attempts=50",
+                "aston.coalescing.enabled=" + coalescing,
+                "aston.outbox.enabled=" + outbox,
+                "aston.sharding.enabled=" + (shards > 0),
+                "aston.sharding.shards=" + Math.max(shards, 1),
+                "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+                "logging.level.org.hibernate.orm.jdbc.batch=OFF"
+        };
+        if (storage.equals("durable")) {
+            dataDir = Files.createTempDirectory("aston-benchmark");
+            context = BenchmarkApplication.startDurable(dataDir, properties);
+        } else {
+            context = BenchmarkApplication.start(properties);
+        }
+        accountService = context.getBean(AccountService.class);
+
+        List<Account> seed = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account("Benchmark " + i);
+            account.setAmount(INITIAL_BALANCE);
+            seed.add(account);
+        }
+        if (shards > 0) {
+            context.getBean(AccountShards.class).insertAccounts(seed);
+        } else {
+            seed = context.getBean(AccountRepository.class).saveAll(seed);
+        }
+        accountNumbers = seed.stream().map(Account::getAccountNumber).toArray(String[]::new);
+        BenchmarkApplication.seedPins(context, accountNumbers, PIN_CODE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        if (dataDir != null) {
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    @Benchmark
+    public void deposit() {
+        accountService.deposit(pick(), AMOUNT);
+    }
+
+    @Benchmark
+    public void withdraw() {
+        accountService.withdraw(pick(), AMOUNT, PIN_CODE);
+    }
+
+    @Benchmark
+    public void transfer() {
+        String from = pick();
+        String to = contention == Contention.HOT_RECEIVER ? accountNumbers[0] : pick();
+        while (to.equals(from)) {
+            from = pick();
+        }
+        accountService.transfer(from, to, AMOUNT, PIN_CODE);
+    }
+
+    private String pick() {
+        int bound = contention == Contention.HOT ? Math.min(HOT_ACCOUNTS, accounts) : accounts;
+        return accountNumbers[ThreadLocalRandom.current().nextInt(bound)];
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.AstonApplication;
+import com.example.aston.model.AccountCredential;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.service.PinVerifier;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application, by default without a web server, against a fresh H2 database. Properties are
+ * passed as command line arguments so that they take precedence over application.properties.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return run(WebApplicationType.NONE, Stream.concat(
+                Stream.of("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID()), Stream.of(properties)));
+    }
+
+    /**
+     * Starts the application with a web server of the given type on a random port, which is available as
+     * {@code local.server.port}.
+     */
+    static ConfigurableApplicationContext startWeb(WebApplicationType type, String... properties) {
+        return run(type, Stream.concat(Stream.of("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+                "server.port=0"), Stream.of(properties)));
+    }
+
+    /**
+     * Starts the application with the {@code durable} profile on a new database file in {@code dataDir}.
+     */
+    static ConfigurableApplicationContext startDurable(Path dataDir, String... properties) {
+        return run(WebApplicationType.NONE, Stream.concat(Stream.of("spring.profiles.active=durable", "aston.data-dir=" + dataDir),
+                Stream.of(properties)));
+    }
+
+    /**
+     * Gives all accounts the same PIN. The hash is computed once and shared, so that seeding thousands of
+     * accounts does not take thousands of PBKDF2 runs.
+     */
+    static void seedPins(ConfigurableApplicationContext context, String[] accountNumbers, String pinCode) {
+        AccountCredential shared = context.getBean(PinVerifier.class).issue(null, pinCode);
+        context.getBean(AccountCredentialRepository.class).saveAll(Arrays.stream(accountNumbers)
+                .map(accountNumber -> new AccountCredential(accountNumber, shared.getSalt(), shared.getPinHash(),
+                        shared.getIterations()))
+                .toList());
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, Stream<String> properties) {
+        Stream<String> defaults = Stream.of(
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.com.example.aston.aop=OFF");
+        return new SpringApplicationBuilder(AstonApplication.class)
+                .web(type)
+                .run(Stream.concat(defaults, properties)
+                        .map(property -> "--" + property)
+                        .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.dto.AccountImportDTO;
+import com.example.aston.dto.ImportResultDTO;
+import com.example.aston.journal.Journal;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountCredentialRepository;
+import com.example.aston.repo.AccountRepository;
+import com.example.aston.service.BulkImportService;
+import com.example.aston.service.PinVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Loading {@code rows} funded accounts: one JPA save per row as the old {@code DataInitializer} did, against
+ * {@link BulkImportService}. Both write the opening balances to the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BulkImportBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private AccountCredentialRepository accountCredentialRepository;
+    private PinVerifier pinVerifier;
+    private BulkImportService bulkImportService;
+    private Journal journal;
+    private TransactionTemplate transactionTemplate;
+    private int run;
+
+    @Setup
+    public void setUp() {
+        // A single PBKDF2 iteration: at the default cost hashing would dominate both variants.
+        context = BenchmarkApplication.start("aston.pin.iterations=1");
+        accountRepository = context.getBean(AccountRepository.class);
+        accountCredentialRepository = context.getBean(AccountCredentialRepository.class);
+        pinVerifier = context.getBean(PinVerifier.class);
+        bulkImportService = context.getBean(BulkImportService.class);
+        journal = context.getBean(Journal.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void nextRun() {
+        run++;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void repositorySave() {
+        for (int i = 0; i < rows; i++) {
+            Account account = new Account("save-" + run + "-" + i, "Name " + i, Money.of("1000"));
+            transactionTemplate.executeWithoutResult(status -> {
+                accountRepository.save(account);
+                accountCredentialRepository.save(pinVerifier.issue(account.getAccountNumber(), "1111"));
+                account.setJournalSeq(journal.reserveSeqs(1)[0]);
+                journal.appendOpeningBalances(List.of(account));
+            });
+        }
+    }
+
+    @Benchmark
+    public ImportResultDTO bulkImport() {
+        return bulkImportService.importAccounts(IntStream.range(0, rows)
+                .mapToObj(i -> new AccountImportDTO("import-" + run + "-" + i, "Name " + i, "1111", Money.of("1000")))
+                .iterator());
+    }
+}
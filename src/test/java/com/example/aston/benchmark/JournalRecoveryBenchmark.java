@@ -0,0 +1,83 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.journal.Journal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to rebuild every balance from a journal of {@code entries} rows, either from the snapshots taken
+ * {@code tail} entries before the end or by replaying the whole journal. Snapshot recovery only reads the
+ * tail, so its cost follows the snapshot interval rather than the size of the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class JournalRecoveryBenchmark {
+
+    @Param({"1000000"})
+    private int entries;
+
+    @Param({"10000"})
+    private int tail;
+
+    @Param({"10000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private Journal journal;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("aston.journal.snapshot-interval=0");
+        journal = context.getBean(Journal.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.update("""
+                insert into accounts (account_number, name, amount, version, journal_seq)
+                select 'account-' || x, 'Name', 0, 0, 0
+                from system_range(0, ? - 1)""", accounts);
+        insertEntries(jdbcTemplate, 1, entries - tail);
+        journal.rebuild(false);
+        insertEntries(jdbcTemplate, entries - tail + 1, entries);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int fromSnapshot() {
+        return journal.rebuild(true);
+    }
+
+    @Benchmark
+    public int fullReplay() {
+        return journal.rebuild(false);
+    }
+
+    private void insertEntries(JdbcTemplate jdbcTemplate, int first, int last) {
+        jdbcTemplate.update("""
+                insert into journal (seq, account_number, transaction_id, operation, delta)
+                select x + 1000, 'account-' || mod(x, ?), x, 'DEPOSIT', 100
+                from system_range(?, ?)""", accounts, first, last);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.dto.AccountView;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of the response bodies with an {@link ObjectMapper} configured the way Spring Boot configures
+ * the one used by the controllers. {@code body} compares the entities that the controllers used to return with
+ * the view records they return now, {@code mapper} compares plain Jackson with the Blackbird module. Run with
+ * {@code -prof gc} for the allocation per body; the size of each body, raw and gzipped, is printed on set-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class JsonSerializationBenchmark {
+    private static final int PAGE = 100;
+
+    @Param({"entity", "view"})
+    private String body;
+
+    @Param({"jackson", "blackbird"})
+    private String mapper;
+
+    private ObjectWriter writer;
+    private Object account;
+    private Object transaction;
+    private List<?> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (mapper.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        writer = builder.build().writer();
+
+        Account entity = new Account(UUID.randomUUID().toString(), "Benchmark", Money.of("1234.56"));
+        entity.setVersion(7L);
+        List<Transaction> transactions = IntStream.range(0, PAGE)
+                .mapToObj(JsonSerializationBenchmark::newTransaction)
+                .toList();
+        if (body.equals("view")) {
+            account = AccountView.of(entity);
+            page = transactions.stream().map(JsonSerializationBenchmark::view).toList();
+        } else {
+            account = entity;
+            page = transactions;
+        }
+        transaction = page.get(0);
+
+        System.out.printf("%n%s: account %s, transaction %s, page %s%n", body, sizes(account), sizes(transaction),
+                sizes(page));
+    }
+
+    @Benchmark
+    public byte[] account() throws Exception {
+        return writer.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public byte[] transaction() throws Exception {
+        return writer.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] transactionPage() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+
+    private String sizes(Object value) throws IOException {
+        byte[] json = writer.writeValueAsBytes(value);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(json);
+        }
+        return json.length + " B (" + gzipped.size() + " B gzipped)";
+    }
+
+    private static Transaction newTransaction(int id) {
+        return new Transaction((long) id, UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                Instant.now(), Money.of("10.00"), Operation.TRANSFER);
+    }
+
+    private static TransactionView view(Transaction transaction) {
+        return new TransactionView(transaction.getId(), transaction.getAccountNumberFrom(),
+                transaction.getAccountNumberTo(), transaction.getTime(), transaction.getAmount(),
+                transaction.getOperation());
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Open-model load test of the account and transaction endpoints. Starts the application on a random port
+ * against a fresh H2 database, seeds {@code accounts} accounts and sends a mix of deposits, withdrawals,
+ * transfers and history pages at a fixed arrival rate, whether or not earlier requests have completed. The
+ * latency of a request is measured from the moment it was scheduled to be sent, so a server that falls behind
+ * shows up in the percentiles instead of slowing the load down.
+ * <p>
+ * Arguments are {@code key=value} pairs (see {@link Options}); arguments starting with {@code --} are passed
+ * to the application, e.g. {@code --aston.ledger.enabled=true}:
+ * <pre>
+ * ./mvnw -Pload test-compile exec:exec -Dload.args="rate=500 duration=60s distribution=zipf"
+ * </pre>
+ * The results are printed and written to {@code target/load-result.json}; with {@code baseline=<file>} the
+ * run is compared with an earlier result.
+ */
+public final class LoadGenerator {
+    private static final String PIN_CODE = "1111";
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final String PAYMENT = "{\"amount\":1.00,\"pinCode\":\"" + PIN_CODE + "\"}";
+    private static final int HISTORY_PAGE = 20;
+
+    enum Operation {
+        DEPOSIT, WITHDRAW, TRANSFER, HISTORY
+    }
+
+    private final Options options;
+    private final String url;
+    private final String[] accountNumbers;
+    private final double[] zipfCdf;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final HttpClient client;
+    private final Semaphore inFlight;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final LongAdder completed = new LongAdder();
+
+    LoadGenerator(Options options, String url, String[] accountNumbers) {
+        this.options = options;
+        this.url = url;
+        this.accountNumbers = accountNumbers;
+        this.zipfCdf = options.zipf() ? zipfCdf(accountNumbers.length, options.zipfExponent()) : null;
+        this.operations = options.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += options.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .build();
+        this.inFlight = new Semaphore(options.maxInFlight());
+        for (Operation operation : operations) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ConfigurableApplicationContext context = BenchmarkApplication.startWeb(options.stack(),
+                options.properties().toArray(String[]::new));
+        try {
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Result result = new LoadGenerator(options, url, seed(context, options.accounts())).run();
+            result.print(System.out);
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            objectMapper.writeValue(options.output().toFile(), result);
+            System.out.println("Result is saved to " + options.output());
+            if (options.baseline() != null) {
+                result.compare(objectMapper.readValue(options.baseline().toFile(), Result.class), System.out);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static String[] seed(ConfigurableApplicationContext context, int accounts) {
+        List<Account> seed = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account("Load " + i);
+            account.setAmount(INITIAL_BALANCE);
+            seed.add(account);
+        }
+        String[] accountNumbers = context.getBean(AccountRepository.class).saveAll(seed).stream()
+                .map(Account::getAccountNumber)
+                .toArray(String[]::new);
+        BenchmarkApplication.seedPins(context, accountNumbers, PIN_CODE);
+        return accountNumbers;
+    }
+
+    /**
+     * Sends requests until the warm-up and the measurement are over and waits for the outstanding ones.
+     * Requests scheduled during the warm-up are sent but not recorded.
+     */
+    Result run() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom();
+        long start = System.nanoTime();
+        long measurementStart = start + options.warmup().toNanos();
+        long end = measurementStart + options.duration().toNanos();
+        long intended = start;
+        long scheduled = 0;
+        while (intended < end) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            boolean measured = intended >= measurementStart;
+            send(nextOperation(random), random, intended, measured);
+            if (measured) {
+                scheduled++;
+            }
+            intended += interArrivalNanos(random);
+        }
+        long lateNanos = Math.max(0, System.nanoTime() - end);
+        if (!inFlight.tryAcquire(options.maxInFlight(), options.timeout().toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            System.out.println("Some requests did not complete in time");
+        }
+        double seconds = options.duration().toNanos() / 1e9;
+        Map<String, OperationResult> results = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> results.put(operation.name().toLowerCase(Locale.ROOT),
+                operationStats.result()));
+        return new Result(options.describe(), scheduled / seconds, completed.sum() / seconds,
+                TimeUnit.NANOSECONDS.toMillis(lateNanos), results);
+    }
+
+    private void send(Operation operation, SplittableRandom random, long intended, boolean measured) {
+        Stats operationStats = stats.get(operation);
+        if (!inFlight.tryAcquire()) {
+            if (measured) {
+                operationStats.fail("dropped");
+            }
+            return;
+        }
+        client.sendAsync(request(operation, random), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - intended;
+                    inFlight.release();
+                    if (!measured) {
+                        return;
+                    }
+                    completed.increment();
+                    if (error != null) {
+                        operationStats.fail(error instanceof HttpTimeoutException
+                                || error.getCause() instanceof HttpTimeoutException ? "timeout" : "io");
+                    } else if (response.statusCode() >= 400) {
+                        operationStats.fail(String.valueOf(response.statusCode()));
+                    } else {
+                        operationStats.latencies.recordValue(latency);
+                    }
+                });
+    }
+
+    private HttpRequest request(Operation operation, SplittableRandom random) {
+        String account = nextAccount(random);
+        return switch (operation) {
+            case DEPOSIT -> patch("/api/accounts/" + account + "/deposit");
+            case WITHDRAW -> patch("/api/accounts/" + account + "/withdraw");
+            case TRANSFER -> {
+                String to = nextAccount(random);
+                while (to.equals(account)) {
+                    to = nextAccount(random);
+                }
+                yield patch("/api/accounts/" + account + "/transfer/" + to);
+            }
+            case HISTORY -> HttpRequest.newBuilder(URI.create(url + "/api/transactions/" + account
+                            + "?limit=" + HISTORY_PAGE))
+                    .timeout(options.timeout())
+                    .build();
+        };
+    }
+
+    private HttpRequest patch(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(options.timeout())
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(PAYMENT))
+                .build();
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private String nextAccount(SplittableRandom random) {
+        if (zipfCdf == null) {
+            return accountNumbers[random.nextInt(accountNumbers.length)];
+        }
+        int index = Arrays.binarySearch(zipfCdf, random.nextDouble());
+        return accountNumbers[Math.min(index < 0 ? -index - 1 : index, accountNumbers.length - 1)];
+    }
+
+    /**
+     * Exponential gaps give Poisson arrivals, as from many independent clients; constant gaps give a steady
+     * rate.
+     */
+    private long interArrivalNanos(SplittableRandom random) {
+        double mean = 1e9 / options.rate();
+        return (long) (options.poisson() ? -Math.log(1 - random.nextDouble()) * mean : mean);
+    }
+
+    /**
+     * Cumulative distribution of account ranks where rank {@code k} is chosen with a probability proportional
+     * to {@code 1 / k^exponent}; the first seeded account is the hottest.
+     */
+    static double[] zipfCdf(int accounts, double exponent) {
+        double[] cdf = new double[accounts];
+        double sum = 0;
+        for (int k = 0; k < accounts; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < accounts; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    private static final class Stats {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        /**
+         * Failed requests count as errors only; their latency is left out of the percentiles, so that fast
+         * rejections do not make the server look faster.
+         */
+        void fail(String reason) {
+            failures.computeIfAbsent(reason, key -> new LongAdder()).increment();
+        }
+
+        OperationResult result() {
+            Map<String, Long> failed = new TreeMap<>();
+            failures.forEach((reason, count) -> failed.put(reason, count.sum()));
+            long errors = failed.values().stream().mapToLong(Long::longValue).sum();
+            return new OperationResult(latencies.getTotalCount() + errors, errors, failed,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    record OperationResult(long count, long errors, Map<String, Long> failures, double p50, double p90,
+                           double p99, double p999, double max) {
+
+        double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    /**
+     * @param offeredRate   requests per second scheduled during the measurement
+     * @param throughput    requests per second that completed, successfully or not
+     * @param lateMillis    how long after the end of the measurement the last request was sent; anything but
+     *                      a few milliseconds means the generator itself could not keep up
+     */
+    record Result(Map<String, String> options, double offeredRate, double throughput, long lateMillis,
+                  Map<String, OperationResult> operations) {
+
+        void print(PrintStream out) {
+            out.printf("%nOffered %.1f req/s, completed %.1f req/s%n", offeredRate, throughput);
+            if (lateMillis > 100) {
+                out.printf("The generator fell %d ms behind the schedule%n", lateMillis);
+            }
+            out.printf("%-9s %8s %7s %8s %8s %8s %8s %8s  %s%n", "operation", "count", "errors", "p50 ms",
+                    "p90 ms", "p99 ms", "p99.9 ms", "max ms", "failures");
+            operations.forEach((name, result) -> out.printf(Locale.ROOT,
+                    "%-9s %8d %6.2f%% %8.2f %8.2f %8.2f %8.2f %8.2f  %s%n", name, result.count(),
+                    result.errorRate() * 100, result.p50(), result.p90(), result.p99(), result.p999(), result.max(),
+                    result.failures().isEmpty() ? "" : result.failures()));
+        }
+
+        /**
+         * Prints the change of the throughput, the error rates and the p50 and p99 latencies against
+         * {@code baseline}.
+         */
+        void compare(Result baseline, PrintStream out) {
+            out.printf(Locale.ROOT, "%nAgainst the baseline (%s): throughput %s%n", baseline.options(),
+                    change(baseline.throughput(), throughput));
+            out.printf("%-9s %16s %16s %16s%n", "operation", "errors", "p50", "p99");
+            operations.forEach((name, result) -> {
+                OperationResult before = baseline.operations().get(name);
+                if (before != null) {
+                    out.printf(Locale.ROOT, "%-9s %16s %16s %16s%n", name,
+                            String.format(Locale.ROOT, "%.2f%% -> %.2f%%", before.errorRate() * 100,
+                                    result.errorRate() * 100),
+                            change(before.p50(), result.p50()), change(before.p99(), result.p99()));
+                }
+            });
+        }
+
+        private static String change(double before, double after) {
+            return before == 0 ? "n/a" : String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+        }
+    }
+
+    /**
+     * @param rate          requests per second ({@code rate}, 200)
+     * @param duration      length of the measurement ({@code duration}, 30s)
+     * @param warmup        load before the measurement that is not recorded ({@code warmup}, 10s)
+     * @param accounts      number of seeded accounts ({@code accounts}, 1000)
+     * @param zipf          pick accounts by a Zipfian rather than a uniform distribution
+     *                      ({@code distribution=uniform|zipf})
+     * @param zipfExponent  skew of the Zipfian distribution ({@code zipf-exponent}, 0.99)
+     * @param poisson       Poisson rather than evenly spaced arrivals ({@code arrivals=poisson|constant})
+     * @param mix           relative weights of the operations ({@code mix},
+     *                      {@code deposit:20,withdraw:20,transfer:50,history:10})
+     * @param stack         {@code stack=servlet|reactive}
+     * @param maxInFlight   outstanding requests beyond which new ones are dropped and counted as errors
+     *                      ({@code max-in-flight}, 1000)
+     * @param timeout       request timeout ({@code timeout}, 10s)
+     * @param output        where to write the result ({@code output})
+     * @param baseline      an earlier result to compare with ({@code baseline})
+     * @param properties    application properties, passed as {@code --name=value}
+     */
+    record Options(int rate, Duration duration, Duration warmup, int accounts, boolean zipf, double zipfExponent,
+                   boolean poisson, Map<Operation, Integer> mix, WebApplicationType stack, int maxInFlight,
+                   Duration timeout, Path output, Path baseline, List<String> properties) {
+
+        private static final Map<String, String> DEFAULTS = Map.ofEntries(
+                Map.entry("rate", "200"),
+                Map.entry("duration", "30s"),
+                Map.entry("warmup", "10s"),
+                Map.entry("accounts", "1000"),
+                Map.entry("distribution", "uniform"),
+                Map.entry("zipf-exponent", "0.99"),
+                Map.entry("arrivals", "poisson"),
+                Map.entry("mix", "deposit:20,withdraw:20,transfer:50,history:10"),
+                Map.entry("stack", "servlet"),
+                Map.entry("max-in-flight", "1000"),
+                Map.entry("timeout", "10s"),
+                Map.entry("output", "load-result.json"),
+                Map.entry("baseline", ""));
+
+        static Options parse(String... args) {
+            Map<String, String> values = new TreeMap<>(DEFAULTS);
+            List<String> properties = new ArrayList<>();
+            for (String arg : args) {
+                if (arg.startsWith("--")) {
+                    properties.add(arg.substring(2));
+                    continue;
+                }
+                int separator = arg.indexOf('=');
+                if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                    throw new IllegalArgumentException("Unknown argument " + arg + ", expected one of "
+                            + new TreeMap<>(DEFAULTS).keySet() + " as key=value or --property=value");
+                }
+                values.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+            return new Options(
+                    Integer.parseInt(values.get("rate")),
+                    DurationStyle.detectAndParse(values.get("duration")),
+                    DurationStyle.detectAndParse(values.get("warmup")),
+                    Integer.parseInt(values.get("accounts")),
+                    choice(values, "distribution", "uniform", "zipf"),
+                    Double.parseDouble(values.get("zipf-exponent")),
+                    !choice(values, "arrivals", "poisson", "constant"),
+                    mix(values.get("mix")),
+                    choice(values, "stack", "servlet", "reactive") ? WebApplicationType.REACTIVE
+                            : WebApplicationType.SERVLET,
+                    Integer.parseInt(values.get("max-in-flight")),
+                    DurationStyle.detectAndParse(values.get("timeout")),
+                    Path.of(values.get("output")),
+                    values.get("baseline").isEmpty() ? null : Path.of(values.get("baseline")),
+                    properties);
+        }
+
+        /**
+         * The options as they would be passed on the command line, recorded with the result.
+         */
+        Map<String, String> describe() {
+            Map<String, String> description = new LinkedHashMap<>();
+            description.put("rate", String.valueOf(rate));
+            description.put("duration", duration.toString());
+            description.put("accounts", String.valueOf(accounts));
+            description.put("distribution", zipf ? "zipf(" + zipfExponent + ")" : "uniform");
+            description.put("arrivals", poisson ? "poisson" : "constant");
+            description.put("mix", mix.entrySet().stream()
+                    .map(entry -> entry.getKey().name().toLowerCase(Locale.ROOT) + ":" + entry.getValue())
+                    .collect(Collectors.joining(",")));
+            description.put("stack", stack == WebApplicationType.REACTIVE ? "reactive" : "servlet");
+            if (!properties.isEmpty()) {
+                description.put("properties", String.join(" ", properties));
+            }
+            return description;
+        }
+
+        /**
+         * @return whether the value is {@code second}
+         */
+        private static boolean choice(Map<String, String> values, String key, String first, String second) {
+            String value = values.get(key);
+            if (!value.equals(first) && !value.equals(second)) {
+                throw new IllegalArgumentException(key + " must be " + first + " or " + second + ", not " + value);
+            }
+            return value.equals(second);
+        }
+
+        private static Map<Operation, Integer> mix(String value) {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String entry : value.split(",")) {
+                String[] parts = entry.split(":");
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight > 0) {
+                    mix.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+                }
+            }
+            if (mix.isEmpty()) {
+                throw new IllegalArgumentException("mix must give at least one operation a positive weight");
+            }
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance arithmetic of a transfer (funds check, debit, credit) with {@link BigDecimal} balances as they
+ * were before and with {@link Money}. Run with {@code -prof gc} to see the allocation per transfer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class MoneyArithmeticBenchmark {
+    private BigDecimal bigDecimalFrom;
+    private BigDecimal bigDecimalTo;
+    private BigDecimal bigDecimalAmount;
+    private Money moneyFrom;
+    private Money moneyTo;
+    private Money moneyAmount;
+
+    @Setup
+    public void setUp() {
+        bigDecimalFrom = new BigDecimal("1000000.00");
+        bigDecimalTo = new BigDecimal("1000000.00");
+        bigDecimalAmount = new BigDecimal("12.34");
+        moneyFrom = Money.of(bigDecimalFrom);
+        moneyTo = Money.of(bigDecimalTo);
+        moneyAmount = Money.of(bigDecimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        if (bigDecimalFrom.compareTo(bigDecimalAmount) < 0) {
+            BigDecimal swap = bigDecimalFrom;
+            bigDecimalFrom = bigDecimalTo;
+            bigDecimalTo = swap;
+        }
+        bigDecimalFrom = bigDecimalFrom.subtract(bigDecimalAmount);
+        bigDecimalTo = bigDecimalTo.add(bigDecimalAmount);
+        return bigDecimalTo;
+    }
+
+    @Benchmark
+    public Money moneyTransfer() {
+        if (moneyFrom.isLessThan(moneyAmount)) {
+            Money swap = moneyFrom;
+            moneyFrom = moneyTo;
+            moneyTo = swap;
+        }
+        moneyFrom = moneyFrom.minus(moneyAmount);
+        moneyTo = moneyTo.plus(moneyAmount);
+        return moneyTo;
+    }
+}
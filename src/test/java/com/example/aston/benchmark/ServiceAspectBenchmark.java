@@ -0,0 +1,167 @@
+package com.example.aston.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.aston.aop.LoggingAspect;
+import com.example.aston.aop.TracingAspect;
+import com.example.aston.dto.TransactionView;
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Per-call overhead of the service aspects around a service that does no work, so the score is the aspect alone.
+ * Log output is formatted with the Spring Boot console pattern and written to a null stream, either
+ * synchronously (the default Boot console setup) or through the async appender from logback-spring.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class ServiceAspectBenchmark {
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    public enum Aspect {NONE, LEGACY, TRACING}
+
+    public enum Output {SYNC, ASYNC}
+
+    @Param
+    private Aspect aspect;
+
+    @Param
+    private Output output;
+
+    private TransactionService service;
+    private Appender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        configureLogging();
+        TransactionService target = new StubTransactionService(IntStream.range(0, 100)
+                .mapToObj(i -> new TransactionView((long) i, UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                        Instant.now(), Money.of("10"), Operation.TRANSFER))
+                .toList());
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        switch (aspect) {
+            case LEGACY -> factory.addAspect(new LoggingAspect());
+            case TRACING -> factory.addAspect(new TracingAspect(new SimpleMeterRegistry()));
+            case NONE -> {
+            }
+        }
+        service = factory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public List<TransactionView> largeResult() {
+        return service.getTransactions();
+    }
+
+    @Benchmark
+    public List<TransactionView> smallResult() {
+        return service.getTransactions(0, 0);
+    }
+
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+        appender = sink;
+
+        if (output == Output.ASYNC) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(sink);
+            async.start();
+            appender = async;
+        }
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    private record StubTransactionService(List<TransactionView> transactions) implements TransactionService {
+
+        @Override
+        public List<TransactionView> getTransactions() {
+            return transactions;
+        }
+
+        @Override
+        public List<TransactionView> getTransactionsByAccountNumber(String accountNumber) {
+            return transactions;
+        }
+
+        @Override
+        public List<TransactionView> getTransactions(long afterId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<TransactionView> getTransactionsByAccountNumber(String accountNumber, long afterId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<TransactionView> getTransactionsByAccountNumber(String accountNumber, Instant afterTime,
+                                                                    long afterId, Instant to, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void streamTransactions(Consumer<TransactionView> consumer) {
+        }
+
+        @Override
+        public void streamTransactionsByAccountNumber(String accountNumber, Consumer<TransactionView> consumer) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.dto.TransactionView;
+import com.example.aston.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one page of an account history over a large transactions table. The default of one
+ * million rows keeps the setup short; run with {@code -p rows=10000000} for the full-size table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class TransactionHistoryBenchmark {
+    private static final int PAGE = 100;
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"10000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        transactionService = context.getBean(TransactionService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.update("""
+                insert into transactions (id, account_number_from, account_number_to, time, amount, operation)
+                select x + 1000, 'account-' || mod(x, ?), 'account-' || mod(x * 7 + 1, ?),
+                       current_timestamp, 1000, 'TRANSFER'
+                from system_range(1, ?)""", accounts, accounts, rows);
+        jdbcTemplate.execute("analyze");
+
+        jdbcTemplate.queryForList("explain select * from transactions where account_number_from = 'account-1' "
+                + "and id > 0 order by id limit 100", String.class).forEach(System.out::println);
+        jdbcTemplate.queryForList("explain select * from transactions where account_number_to = 'account-1' "
+                + "and id > 0 order by id limit 100", String.class).forEach(System.out::println);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TransactionView> firstPage() {
+        return transactionService.getTransactionsByAccountNumber(randomAccount(), 0, PAGE);
+    }
+
+    @Benchmark
+    public List<TransactionView> pageInTheMiddle() {
+        return transactionService.getTransactionsByAccountNumber(randomAccount(), rows / 2, PAGE);
+    }
+
+    /**
+     * The single-predicate OR query the merged lookup replaces, for comparison.
+     */
+    @Benchmark
+    public List<Long> orQueryFirstPage() {
+        String account = randomAccount();
+        return jdbcTemplate.queryForList("select id from transactions where account_number_from = ? "
+                + "or account_number_to = ? order by id limit ?", Long.class, account, account, PAGE);
+    }
+
+    private String randomAccount() {
+        return "account-" + ThreadLocalRandom.current().nextInt(accounts);
+    }
+}
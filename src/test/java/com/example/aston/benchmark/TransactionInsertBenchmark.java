@@ -0,0 +1,77 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.model.Money;
+import com.example.aston.model.Operation;
+import com.example.aston.model.Transaction;
+import com.example.aston.repo.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insert throughput of {@link TransactionRepository} with JDBC batching enabled, per sequence allocation size.
+ * An allocation size of 1 costs one sequence round trip per row, like a non-pooled generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class TransactionInsertBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"1", "50", "500"})
+    private int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "aston.id.allocation-size=" + allocationSize,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + BATCH);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction save() {
+        return transactionRepository.save(newTransaction());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Transaction> saveAllInOneTransaction() {
+        List<Transaction> transactions = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            transactions.add(newTransaction());
+        }
+        return transactionTemplate.execute(status -> transactionRepository.saveAll(transactions));
+    }
+
+    private static Transaction newTransaction() {
+        return new Transaction("from", "to", Instant.now(), Money.of("10"), Operation.TRANSFER);
+    }
+}
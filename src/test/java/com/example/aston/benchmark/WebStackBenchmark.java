@@ -0,0 +1,108 @@
+package com.example.aston.benchmark;
+
+import com.example.aston.model.Account;
+import com.example.aston.model.Money;
+import com.example.aston.repo.AccountRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transfers over HTTP against the servlet stack (Tomcat and JPA) and the reactive stack (Netty and R2DBC) of
+ * the same application, in the same JVM as the clients. Every JMH thread is one client, so {@code -t} sets the
+ * number of concurrent connections. {@code -prof gc} gives the allocation per request; the live threads and the
+ * used heap at the end of the run are printed on tear-down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class WebStackBenchmark {
+    private static final String PIN_CODE = "1111";
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final String TRANSFER = "{\"amount\":1.00,\"pinCode\":\"" + PIN_CODE + "\"}";
+
+    @Param({"servlet", "reactive"})
+    private String stack;
+
+    @Param({"1000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String url;
+    private String[] accountNumbers;
+
+    @Setup
+    public void setUp() {
+        WebApplicationType type = stack.equals("reactive") ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET;
+        context = BenchmarkApplication.startWeb(type,
+                "aston.transfer.max-attempts=50",
+                "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF");
+        url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        List<Account> seed = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account("Benchmark " + i);
+            account.setAmount(INITIAL_BALANCE);
+            seed.add(account);
+        }
+        accountNumbers = context.getBean(AccountRepository.class).saveAll(seed).stream()
+                .map(Account::getAccountNumber)
+                .toArray(String[]::new);
+        BenchmarkApplication.seedPins(context, accountNumbers, PIN_CODE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%n%s: %d live threads, %d MB heap used%n", stack,
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        context.close();
+    }
+
+    @Benchmark
+    public int transfer() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String from = accountNumbers[random.nextInt(accounts)];
+        String to = accountNumbers[random.nextInt(accounts)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/accounts/" + from + "/transfer/" + to))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(TRANSFER))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Transfer failed with status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
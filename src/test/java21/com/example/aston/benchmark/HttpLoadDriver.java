@@ -0,0 +1,158 @@
+package com.example.aston.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load driver for a running instance: every client is a virtual thread that sends transfers
+ * between random accounts back to back. Run it once against the default configuration and once against
+ * {@code --spring.profiles.active=virtual} to compare throughput and tail latency.
+ * <p>
+ * Arguments (all optional): {@code url=http://localhost:8080 clients=1000,5000,10000 duration=30 accounts=1000}.
+ * <p>
+ * Throughput counts only responses received within {@code duration}. Latencies also include the requests still in
+ * flight at the deadline, which every client finishes before the next level starts.
+ */
+public final class HttpLoadDriver {
+    private static final String PIN_CODE = "1111";
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String url;
+
+    private HttpLoadDriver(String url) {
+        this.url = url;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "url", "http://localhost:8080",
+                "clients", "1000,5000,10000",
+                "duration", "30",
+                "accounts", "1000"));
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+
+        HttpLoadDriver driver = new HttpLoadDriver(options.get("url"));
+        List<String> accountNumbers = driver.seed(Integer.parseInt(options.get("accounts")));
+        System.out.printf("%8s %10s %10s %10s %10s %10s %8s%n",
+                "clients", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (String clients : options.get("clients").split(",")) {
+            driver.run(accountNumbers, Integer.parseInt(clients), Duration.ofSeconds(Long.parseLong(options.get("duration"))));
+        }
+    }
+
+    private List<String> seed(int accounts) throws Exception {
+        List<String> accountNumbers = new ArrayList<>();
+        for (JsonNode account : objectMapper.readTree(send(get("/api/accounts")).body())) {
+            accountNumbers.add(account.get("accountNumber").asText());
+        }
+        for (int i = accountNumbers.size(); i < accounts; i++) {
+            send(request("/api/accounts").POST(json(Map.of("name", "Load " + i, "pinCode", PIN_CODE))).build());
+        }
+        accountNumbers.clear();
+        for (JsonNode account : objectMapper.readTree(send(get("/api/accounts")).body())) {
+            String accountNumber = account.get("accountNumber").asText();
+            accountNumbers.add(accountNumber);
+            send(request("/api/accounts/" + accountNumber + "/deposit")
+                    .method("PATCH", json(Map.of("amount", 1_000_000))).build());
+        }
+        return accountNumbers;
+    }
+
+    private void run(List<String> accountNumbers, int clients, Duration duration) throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        LongAdder completedInWindow = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String from = accountNumbers.get(random.nextInt(accountNumbers.size()));
+                        String to = accountNumbers.get(random.nextInt(accountNumbers.size()));
+                        HttpRequest transfer = request("/api/accounts/" + from + "/transfer/" + to)
+                                .method("PATCH", json(Map.of("amount", 1, "pinCode", PIN_CODE)))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(transfer, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() >= 500) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        long end = System.nanoTime();
+                        recorder.recordValue(end - start);
+                        if (end < deadline) {
+                            completedInWindow.increment();
+                        }
+                    }
+                });
+            }
+        }
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        System.out.printf("%8d %10.0f %10.1f %10.1f %10.1f %10.1f %8d%n",
+                clients,
+                completedInWindow.sum() / (double) duration.toSeconds(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                errors.sum());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}